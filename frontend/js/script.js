@@ -24,23 +24,19 @@ function setDefaultTime() {
 
 // Last inn stopp fra API
 async function loadStops() {
-  const fromSelect = document.getElementById("fromStop");
-  const toSelect = document.getElementById("toStop");
+  const fromList = document.getElementById("fromStopList");
+  const toList = document.getElementById("toStopList");
   const submitBtn = document.getElementById("submitBtn");
 
   try {
     const response = await fetch("http://localhost:8080/api/stops");
     const stops = await response.json();
 
-    stops.forEach(stop => {
-      const option1 = document.createElement("option");
-      option1.value = stop.name;
-      option1.textContent = stop.name;
-      const option2 = option1.cloneNode(true);
+    fillStopList(fromList, stops);
+    fillStopList(toList, stops);
 
-      fromSelect.appendChild(option1);
-      toSelect.appendChild(option2);
-    });
+    setupStopSuggest("fromStop", fromList);
+    setupStopSuggest("toStop", toList);
 
     submitBtn.disabled = false;
   } catch (error) {
@@ -49,6 +45,40 @@ async function loadStops() {
   }
 }
 
+// Fyll en datalist med stoppnavn
+function fillStopList(list, stops) {
+  list.innerHTML = "";
+  stops.forEach(stop => {
+    const option = document.createElement("option");
+    option.value = stop.name;
+    list.appendChild(option);
+  });
+}
+
+// Hent forslag fra serveren mens brukeren skriver (tåler skrivefeil og æ/ø/å)
+function setupStopSuggest(inputId, list) {
+  const input = document.getElementById(inputId);
+  let timer = null;
+
+  input.addEventListener("input", () => {
+    clearTimeout(timer);
+    const query = input.value.trim();
+    if (query.length === 0) return;
+
+    timer = setTimeout(async () => {
+      try {
+        const response = await fetch(
+          `http://localhost:8080/api/stops/suggest?q=${encodeURIComponent(query)}&limit=8`
+        );
+        if (!response.ok) return;
+        fillStopList(list, await response.json());
+      } catch (error) {
+        console.error("Feil ved henting av forslag:", error);
+      }
+    }, 150);
+  });
+}
+
 // Sett opp skjema-submit
 function setupFormSubmit() {
   const form = document.getElementById("travelForm");
@@ -78,6 +108,10 @@ function setupFormSubmit() {
       const departures = await response.json();
       showResults(departures);
 
+      // Strømmen sender dagens avganger fra nå, så den brukes bare for "nå"-søk
+      if (timeMode === "NOW") followDepartures(fromStop, toStop);
+      else stopFollowingDepartures();
+
     } catch (error) {
       console.error(error);
       alert("Noe gikk galt ved henting av ruter.");
@@ -85,11 +119,36 @@ function setupFormSubmit() {
   });
 
   backBtn.addEventListener("click", () => {
+    stopFollowingDepartures();
     document.getElementById("resultsSection").classList.add("hidden");
     document.getElementById("travelPlanner").classList.remove("hidden");
   });
 }
 
+// Åpen strøm med endringer for gjeldende søk
+let departureStream = null;
+
+// Oppdaterer resultatlisten når et unntak eller en driftsmelding endres, i stedet for å søke på nytt
+function followDepartures(fromStop, toStop) {
+  stopFollowingDepartures();
+
+  const params = new URLSearchParams({ fromStop, toStop });
+  departureStream = new EventSource(`http://localhost:8080/api/departures/stream?${params}`);
+
+  departureStream.addEventListener("departures", (e) => {
+    const change = JSON.parse(e.data);
+    const resultsVisible = !document.getElementById("resultsSection").classList.contains("hidden");
+    if (change.departures && resultsVisible) showResults(change.departures);
+  });
+}
+
+function stopFollowingDepartures() {
+  if (departureStream) {
+    departureStream.close();
+    departureStream = null;
+  }
+}
+
 // Vis resultater som kort
 function showResults(departures) {
   const travelPlanner = document.getElementById("travelPlanner");
@@ -1,13 +1,21 @@
 package controllers;
 
+import domain.model.Stops;
+import dto.DepartureChangeDTO;
 import dto.DepartureRequestDTO;
 import dto.DepartureResponseDTO;
 import dto.ScheduleDTO;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import service.DepartureChangeFeed;
 import service.ScheduleService;
+import service.StopResolver;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 
 @RestController
@@ -15,10 +23,18 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class DepartureController {
 
+    // Klienten (EventSource) kobler til på nytt når strømmen lukkes
+    private static final long STREAM_TIMEOUT_MS = 30 * 60 * 1000L;
+
     private final ScheduleService scheduleService;
+    private final DepartureChangeFeed changeFeed;
+    private final StopResolver stopResolver;
 
-    public DepartureController(ScheduleService scheduleService) {
+    public DepartureController(ScheduleService scheduleService, DepartureChangeFeed changeFeed,
+                               StopResolver stopResolver) {
         this.scheduleService = scheduleService;
+        this.changeFeed = changeFeed;
+        this.stopResolver = stopResolver;
     }
 
     @PostMapping("/search")
@@ -41,6 +57,48 @@ public class DepartureController {
         return scheduleService.getFullSchedule(targetDate);
     }
 
+    // Strømmer endringer i dagens avganger for et stoppar (fromStop og toStop) eller en rute (routeId).
+    // Forespørselstråden frigjøres med en gang, så en åpen strøm holder ingen tråd.
+    @GetMapping(value = "/stream", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestParam(required = false) String fromStop,
+            @RequestParam(required = false) String toStop,
+            @RequestParam(required = false) Integer routeId
+    ) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        DepartureChangeFeed.Listener listener = new DepartureChangeFeed.Listener() {
+            @Override
+            public void onChange(DepartureChangeDTO change) throws IOException {
+                emitter.send(SseEmitter.event().name("departures").data(change));
+            }
+
+            @Override
+            public void onHeartbeat() throws IOException {
+                emitter.send(SseEmitter.event().comment("ping"));
+            }
+
+            @Override
+            public void onClose() {
+                emitter.complete();
+            }
+        };
+
+        DepartureChangeFeed.Subscription subscription;
+        if (routeId != null) {
+            subscription = changeFeed.subscribeRoute(routeId, listener);
+        } else {
+            Optional<Stops> from = stopResolver.resolve(fromStop);
+            Optional<Stops> to = stopResolver.resolve(toStop);
+            if (from.isEmpty() || to.isEmpty()) return ResponseEntity.notFound().build();
+            subscription = changeFeed.subscribeStopPair(from.get(), to.get(), listener);
+        }
+
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        return ResponseEntity.ok(emitter);
+    }
+
 
 
 
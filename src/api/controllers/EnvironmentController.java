@@ -0,0 +1,38 @@
+package controllers;
+
+import domain.model.environment.RateProfile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import service.EnvironmentService;
+
+@RestController
+@RequestMapping("/api/environment")
+@CrossOrigin(origins = "*")
+public class EnvironmentController {
+
+    private final EnvironmentService environmentService;
+
+    public EnvironmentController(EnvironmentService environmentService) {
+        this.environmentService = environmentService;
+    }
+
+    // Satsene miljøberegningen bruker nå
+    @GetMapping("/rates")
+    public RateProfile getRates() {
+        return environmentService.getRates();
+    }
+
+    // Leser satsene på nytt uten omstart. Kun for admin.
+    @PostMapping("/rates/reload")
+    public ResponseEntity<RateProfile> reloadRates(
+            @RequestHeader(value = "adminToken", required = false) String adminToken) {
+
+        if (adminToken == null || !adminToken.equals("test123")) {
+            return ResponseEntity.status(401).build();
+        }
+
+        return environmentService.reloadRates()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
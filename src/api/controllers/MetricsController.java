@@ -0,0 +1,31 @@
+package controllers;
+
+import database.DataSourceFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.sql.DataSource;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    private final DataSource dataSource;
+
+    public MetricsController(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // Aktive, ledige og ventende databasetilkoblinger. Kun for admin.
+    @GetMapping("/db-pool")
+    public ResponseEntity<DataSourceFactory.PoolStats> getPoolStats(
+            @RequestHeader(value = "adminToken", required = false) String adminToken) {
+
+        if (adminToken == null || !adminToken.equals("test123")) {
+            return ResponseEntity.status(401).build();
+        }
+
+        DataSourceFactory.PoolStats stats = DataSourceFactory.stats(dataSource);
+        return stats != null ? ResponseEntity.ok(stats) : ResponseEntity.notFound().build();
+    }
+}
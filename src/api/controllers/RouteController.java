@@ -1,5 +1,6 @@
 package controllers;
 
+import dto.NearbyStopDTO;
 import dto.RouteDTO;
 import dto.StopDTO;
 import org.springframework.web.bind.annotation.*;
@@ -24,6 +25,20 @@ public class RouteController {
         return routeService.getAllStopsDTO();
     }
 
+    @GetMapping("/stops/suggest")
+    public List<StopDTO> suggestStops(@RequestParam("q") String query,
+                                      @RequestParam(defaultValue = "8") int limit) {
+        return routeService.suggestStopsDTO(query, limit);
+    }
+
+    @GetMapping("/stops/near")
+    public List<NearbyStopDTO> getNearbyStops(@RequestParam double lat,
+                                              @RequestParam double lon,
+                                              @RequestParam(required = false) Double radiusKm,
+                                              @RequestParam(defaultValue = "5") int limit) {
+        return routeService.findNearbyStopsDTO(lat, lon, radiusKm, Math.min(limit, 50));
+    }
+
     @GetMapping("/routes")
     public List<RouteDTO> getAllRoutes() {
         return routeService.getAllRoutesDTO();
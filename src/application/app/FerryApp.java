@@ -6,6 +6,7 @@ import adapter.*;
 import dto.DepartureRequestDTO;
 import dto.DepartureResponseDTO;
 import exception.MySQLDatabaseException;
+import org.springframework.context.ApplicationEventPublisher;
 import port.outbound.StopDistanceRepositoryPort;
 import port.outbound.StopsRepositoryPort;
 import service.EnvironmentService;
@@ -26,14 +27,16 @@ public class FerryApp {
             DataSource dataSource = DatabaseConnector.getDataSource();
 
             // --- Repository-adaptere ---
-            StopsRepositoryMYSQLAdapter stopsRepo = new StopsRepositoryMYSQLAdapter(dataSource);
-            RouteRepositoryMYSQLAdapter routeRepo = new RouteRepositoryMYSQLAdapter(dataSource);
-            SeasonRepositoryMYSQLAdapter seasonRepo = new SeasonRepositoryMYSQLAdapter(dataSource);
-            OperationMessageRepositoryMYSQLAdapter msgRepo = new OperationMessageRepositoryMYSQLAdapter(dataSource, routeRepo);
-            RouteStopsRepositoryMYSQLAdapter routeStopsRepo = new RouteStopsRepositoryMYSQLAdapter(dataSource, routeRepo, stopsRepo);
-            FrequencyRepositoryMYSQLAdapter frequencyRepo = new FrequencyRepositoryMYSQLAdapter(dataSource, routeRepo, seasonRepo);
-            ExceptionEntryRepositoryMYSQLAdapter exceptionRepo = new ExceptionEntryRepositoryMYSQLAdapter(dataSource, routeRepo, stopsRepo, seasonRepo, msgRepo);
-            StopDistanceRepositoryMYSQLAdapter stopsDistanceRepo = new StopDistanceRepositoryMYSQLAdapter(dataSource, stopsRepo);
+            // CLI-en bygger ScheduleService selv, så endringshendelser har ingen lyttere her
+            ApplicationEventPublisher events = event -> { };
+            StopsRepositoryMYSQLAdapter stopsRepo = new StopsRepositoryMYSQLAdapter(dataSource, events);
+            RouteRepositoryMYSQLAdapter routeRepo = new RouteRepositoryMYSQLAdapter(dataSource, stopsRepo, events);
+            SeasonRepositoryMYSQLAdapter seasonRepo = new SeasonRepositoryMYSQLAdapter(dataSource, events);
+            OperationMessageRepositoryMYSQLAdapter msgRepo = new OperationMessageRepositoryMYSQLAdapter(dataSource, routeRepo, events);
+            RouteStopsRepositoryMYSQLAdapter routeStopsRepo = new RouteStopsRepositoryMYSQLAdapter(dataSource, routeRepo, stopsRepo, events);
+            FrequencyRepositoryMYSQLAdapter frequencyRepo = new FrequencyRepositoryMYSQLAdapter(dataSource, routeRepo, seasonRepo, events);
+            ExceptionEntryRepositoryMYSQLAdapter exceptionRepo = new ExceptionEntryRepositoryMYSQLAdapter(dataSource, routeRepo, stopsRepo, seasonRepo, msgRepo, events);
+            StopDistanceRepositoryMYSQLAdapter stopsDistanceRepo = new StopDistanceRepositoryMYSQLAdapter(dataSource, stopsRepo, events);
             EnvironmentService environmentService = new EnvironmentService(stopsDistanceRepo);
 
             // --- ScheduleService ---
@@ -0,0 +1,28 @@
+package benchmark;
+
+import dto.EnvironmentDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Oppslag i miljømatrisen for stoppar langs rutene.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnvironmentBenchmark {
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public EnvironmentDTO calculateSavings(NetworkState network, Cursor cursor) {
+        int i = cursor.next++ & (network.fromIds.length - 1);
+        return network.services.environmentService.calculateSavings(network.fromIds[i], network.toIds[i]);
+    }
+}
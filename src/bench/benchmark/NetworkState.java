@@ -0,0 +1,75 @@
+package benchmark;
+
+import domain.model.Frequency;
+import domain.model.Route;
+import domain.model.RouteStops;
+import generator.GeneratorConfig;
+import generator.TimetableGenerator;
+import inmemory.InMemoryTimetable;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Et syntetisk rutenett med 10, 100 eller 1000 ruter, og tjenester med varme cacher.
+ *
+ * Oppslagene i benchmarkene går rundt i faste lister med stoppar som faktisk betjenes, slik at
+ * hvert kall gjør et reelt søk og ikke bare treffer samme par.
+ */
+@State(Scope.Benchmark)
+public class NetworkState {
+
+    /** En mandag i sesongen. Unntakene ligger rundt denne datoen. */
+    static final LocalDate DATE = LocalDate.of(2025, 6, 16);
+    private static final int QUERIES = 256;
+
+    @Param({"10", "100", "1000"})
+    public int routes;
+
+    InMemoryTimetable timetable;
+    InMemoryTimetable.Services services;
+
+    String[] fromNames;
+    String[] toNames;
+    int[] fromIds;
+    int[] toIds;
+    List<Frequency> frequencies;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        timetable = new TimetableGenerator(new GeneratorConfig.Builder()
+                .setRoutes(routes)
+                .setReferenceDate(DATE)
+                .build()).generate().toInMemory();
+        services = timetable.services();
+        frequencies = timetable.frequencies.readAll();
+
+        List<Route> allRoutes = timetable.routes.readAll();
+        List<RouteStops> allRouteStops = timetable.routeStops.readAll();
+        Random random = new Random(7);
+
+        fromNames = new String[QUERIES];
+        toNames = new String[QUERIES];
+        fromIds = new int[QUERIES];
+        toIds = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            Route route = allRoutes.get(random.nextInt(allRoutes.size()));
+            List<RouteStops> stops = new ArrayList<>(allRouteStops.stream()
+                    .filter(rs -> rs.getRoute().getId() == route.getId())
+                    .toList());
+            int from = random.nextInt(stops.size() - 1);
+            int to = from + 1 + random.nextInt(stops.size() - from - 1);
+            fromNames[i] = stops.get(from).getStop().getName();
+            toNames[i] = stops.get(to).getStop().getName();
+            fromIds[i] = stops.get(from).getStop().getId();
+            toIds[i] = stops.get(to).getStop().getId();
+        }
+
+        // Varm opp øyeblikksbildet, dagene og miljømatrisen før målingene
+        services.departureIndex.get(DATE);
+        services.environmentService.getSavingsMatrix();
+    }
+}
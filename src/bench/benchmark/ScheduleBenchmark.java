@@ -0,0 +1,49 @@
+package benchmark;
+
+import domain.model.Frequency;
+import domain.model.TimeMode;
+import dto.DepartureRequestDTO;
+import dto.DepartureResponseDTO;
+import dto.ScheduleDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Søkestien i ScheduleService, målt både som gjennomstrømning og som fordeling av svartider.
+ *
+ * Kjøres med: mvn -Pbench test-compile exec:exec
+ * Allokeringsraten vises med -prof gc, som er med i standardargumentene til profilen.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScheduleBenchmark {
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public List<DepartureResponseDTO> getDepartures(NetworkState network, Cursor cursor) {
+        int i = cursor.next++ & (network.fromNames.length - 1);
+        return network.services.scheduleService.getDepartures(new DepartureRequestDTO(
+                network.fromNames[i], network.toNames[i], NetworkState.DATE, LocalTime.of(6, 0), TimeMode.DEPART));
+    }
+
+    @Benchmark
+    public List<ScheduleDTO> getFullSchedule(NetworkState network) {
+        return network.services.scheduleService.getFullSchedule(NetworkState.DATE);
+    }
+
+    @Benchmark
+    public List<LocalTime> frequencyDepartureTimes(NetworkState network, Cursor cursor) {
+        List<Frequency> frequencies = network.frequencies;
+        return frequencies.get(Math.floorMod(cursor.next++, frequencies.size())).getDepartureTimes();
+    }
+}
@@ -0,0 +1,70 @@
+package generator;
+
+import domain.model.*;
+import domain.model.environment.DistanceBetweenStops;
+import inmemory.InMemoryTimetable;
+import port.outbound.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Et generert rutenett. Radene har id-er fra 1 i hver tabell, i samme rekkefølge som listene.
+ */
+public class GeneratedTimetable {
+
+    final List<Season> seasons = new ArrayList<>();
+    final List<Stops> stops = new ArrayList<>();
+    final List<Route> routes = new ArrayList<>();
+    final List<RouteStops> routeStops = new ArrayList<>();
+    final List<DistanceBetweenStops> distances = new ArrayList<>();
+    final List<Frequency> frequencies = new ArrayList<>();
+    final List<ExceptionEntry> exceptions = new ArrayList<>();
+
+    /**
+     * Skriver radene gjennom portene, i rekkefølgen fremmednøklene krever. Frekvenser og unntak
+     * skrives med createAll(), så MySQL-adapterne gjør det i én transaksjon per tabell.
+     * Portene gir radene nye id-er ved behov; referansene følger med siden de er objekter.
+     */
+    public void writeTo(SeasonRepositoryPort seasonRepo, StopsRepositoryPort stopsRepo,
+                        RouteRepositoryPort routeRepo, RouteStopsRepositoryPort routeStopsRepo,
+                        StopDistanceRepositoryPort distanceRepo, FrequencyRepositoryPort frequencyRepo,
+                        ExceptionEntryRepositoryPort exceptionRepo) {
+        seasons.forEach(seasonRepo::create);
+        stops.forEach(stopsRepo::create);
+        routes.forEach(routeRepo::create);
+        routeStops.forEach(routeStopsRepo::create);
+        distances.forEach(distanceRepo::create);
+        frequencyRepo.createAll(frequencies);
+        exceptionRepo.createAll(exceptions);
+    }
+
+    public InMemoryTimetable toInMemory() {
+        InMemoryTimetable timetable = new InMemoryTimetable();
+        writeTo(timetable.seasons, timetable.stops, timetable.routes, timetable.routeStops,
+                timetable.distances, timetable.frequencies, timetable.exceptions);
+        return timetable;
+    }
+
+    // --- Gettere ---
+    public List<Season> getSeasons() { return seasons; }
+    public List<Stops> getStops() { return stops; }
+    public List<Route> getRoutes() { return routes; }
+    public List<RouteStops> getRouteStops() { return routeStops; }
+    public List<DistanceBetweenStops> getDistances() { return distances; }
+    public List<Frequency> getFrequencies() { return frequencies; }
+    public List<ExceptionEntry> getExceptions() { return exceptions; }
+
+    @Override
+    public String toString() {
+        return "GeneratedTimetable{" +
+                "stops=" + stops.size() +
+                ", routes=" + routes.size() +
+                ", routeStops=" + routeStops.size() +
+                ", seasons=" + seasons.size() +
+                ", frequencies=" + frequencies.size() +
+                ", exceptions=" + exceptions.size() +
+                ", distances=" + distances.size() +
+                '}';
+    }
+}
@@ -0,0 +1,81 @@
+package generator;
+
+import java.time.LocalDate;
+
+/**
+ * Størrelse og sammensetning på et syntetisk rutenett. Lages med {@link Builder}.
+ */
+public class GeneratorConfig {
+
+    private final int routes;
+    private final int hubs;
+    private final int minStopsPerRoute;
+    private final int maxStopsPerRoute;
+    private final long seed;
+    private final LocalDate referenceDate;
+    private final int exceptionWindowDays;
+    private final double exceptionRate;
+    private final double recurringExceptionRate;
+
+    private GeneratorConfig(Builder builder) {
+        this.routes = builder.routes;
+        this.hubs = builder.hubs;
+        this.minStopsPerRoute = builder.minStopsPerRoute;
+        this.maxStopsPerRoute = builder.maxStopsPerRoute;
+        this.seed = builder.seed;
+        this.referenceDate = builder.referenceDate;
+        this.exceptionWindowDays = builder.exceptionWindowDays;
+        this.exceptionRate = builder.exceptionRate;
+        this.recurringExceptionRate = builder.recurringExceptionRate;
+    }
+
+    public static class Builder {
+        private int routes = 100;
+        private int hubs = 5;
+        private int minStopsPerRoute = 3;
+        private int maxStopsPerRoute = 8;
+        private long seed = 42;
+        private LocalDate referenceDate = LocalDate.of(2025, 6, 16);
+        private int exceptionWindowDays = 7;
+        private double exceptionRate = 0.1;
+        private double recurringExceptionRate = 0.05;
+
+        public Builder setRoutes(int routes) { this.routes = routes; return this; }
+        public Builder setHubs(int hubs) { this.hubs = hubs; return this; }
+        public Builder setStopsPerRoute(int min, int max) { this.minStopsPerRoute = min; this.maxStopsPerRoute = max; return this; }
+        public Builder setSeed(long seed) { this.seed = seed; return this; }
+        public Builder setReferenceDate(LocalDate referenceDate) { this.referenceDate = referenceDate; return this; }
+        public Builder setExceptionWindowDays(int days) { this.exceptionWindowDays = days; return this; }
+        public Builder setExceptionRate(double rate) { this.exceptionRate = rate; return this; }
+        public Builder setRecurringExceptionRate(double rate) { this.recurringExceptionRate = rate; return this; }
+
+        /**
+         * Bygger konfigurasjonen og validerer at verdiene gir et gyldig rutenett.
+         */
+        public GeneratorConfig build() {
+            if (routes < 1 || hubs < 1) throw new IllegalStateException("Routes and hubs must be at least 1");
+            if (minStopsPerRoute < 2 || maxStopsPerRoute < minStopsPerRoute) {
+                throw new IllegalStateException("Stops per route must be at least 2, and max >= min");
+            }
+            if (exceptionRate < 0 || exceptionRate > 1 || recurringExceptionRate < 0 || recurringExceptionRate > 1) {
+                throw new IllegalStateException("Exception rates must be between 0 and 1");
+            }
+            if (referenceDate == null) throw new IllegalStateException("Reference date must be set");
+            return new GeneratorConfig(this);
+        }
+    }
+
+    // --- Gettere ---
+    public int getRoutes() { return routes; }
+    public int getHubs() { return hubs; }
+    public int getMinStopsPerRoute() { return minStopsPerRoute; }
+    public int getMaxStopsPerRoute() { return maxStopsPerRoute; }
+    public long getSeed() { return seed; }
+    /** Unntakene legges rundt denne datoen, og sesongene gjelder året den ligger i. */
+    public LocalDate getReferenceDate() { return referenceDate; }
+    public int getExceptionWindowDays() { return exceptionWindowDays; }
+    /** Sannsynlighet for et datert unntak per rute og dag i vinduet. */
+    public double getExceptionRate() { return exceptionRate; }
+    /** Sannsynlighet for at en rute har et fast avvik én ukedag. */
+    public double getRecurringExceptionRate() { return recurringExceptionRate; }
+}
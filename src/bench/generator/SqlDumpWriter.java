@@ -0,0 +1,85 @@
+package generator;
+
+import domain.model.*;
+import domain.model.environment.DistanceBetweenStops;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Skriver et generert rutenett som INSERT-setninger med eksplisitte id-er.
+ *
+ * Tabell- og kolonnenavnene er de samme som i MySQL-adapterne, og verdiene skrives slik at
+ * både MySQL og H2 (MODE=MySQL) godtar dem. Skjemaet må finnes fra før.
+ */
+public class SqlDumpWriter {
+
+    /** Antall rader per INSERT, for å holde setningene under max_allowed_packet. */
+    private static final int ROWS_PER_INSERT = 500;
+
+    private final Writer out;
+
+    public SqlDumpWriter(Writer out) {
+        this.out = out;
+    }
+
+    public void write(GeneratedTimetable timetable) throws IOException {
+        out.write("-- Syntetisk rutenett: " + timetable + "\n");
+        insert("season", "id, seasonType, validYear, startDate, endDate", timetable.seasons, season -> values(
+                season.getId(), season.getSeasonType(), season.getValidYear(), season.getStartDate(), season.getEndDate()));
+        insert("stops", "id, name, latitude, longitude, isActive", timetable.stops, stop -> values(
+                stop.getId(), stop.getName(), stop.getLatitude(), stop.getLongitude(), stop.isActive()));
+        insert("route", "id, num, fromStopId, toStopId, isActive", timetable.routes, route -> values(
+                route.getId(), route.getRouteNum(), route.getFromStop().getId(), route.getToStop().getId(), route.isActive()));
+        insert("routeStops", "id, routeId, stopId, routeOrder, timeFromStart, distanceFromPrevious", timetable.routeStops, rs -> values(
+                rs.getId(), rs.getRoute().getId(), rs.getStop().getId(), rs.getRouteOrder(), rs.getTimeFromStart(), rs.getDistanceFromPrevious()));
+        insert("stopDistance", "id, fromStopId, toStopId, distance, tollgate", timetable.distances, d -> values(
+                d.getId(), d.getFromStop().getId(), d.getToStop().getId(), d.getDistance(), d.isTollgate()));
+        insert("frequency", "id, routeId, weekday, seasonId, firstDeparture, lastDeparture, intervalMinutes", timetable.frequencies, f -> values(
+                f.getId(), f.getRoute().getId(), f.getWeekday().name(), f.getSeason().getId(),
+                f.getFirstDeparture(), f.getLastDeparture(), f.getIntervalMinutes()));
+        insert("exceptionEntry", "id, routeId, stopId, validDate, weekday, seasonId, departureTime, type, isActive, operationMessageId",
+                timetable.exceptions, ex -> values(
+                        ex.getId(), ex.getRoute().getId(),
+                        ex.getStop() != null ? ex.getStop().getId() : null,
+                        ex.getValidDate(),
+                        ex.getWeekday() != null ? ex.getWeekday().name() : null,
+                        ex.getSeason() != null ? ex.getSeason().getId() : null,
+                        ex.getDepartureTime(), ex.getType().name(), ex.isActive(), null));
+        out.flush();
+    }
+
+    private <T> void insert(String table, String columns, List<T> rows, Function<T, String> toValues) throws IOException {
+        for (int start = 0; start < rows.size(); start += ROWS_PER_INSERT) {
+            out.write("INSERT INTO " + table + " (" + columns + ") VALUES\n");
+            int end = Math.min(rows.size(), start + ROWS_PER_INSERT);
+            for (int i = start; i < end; i++) {
+                out.write("  " + toValues.apply(rows.get(i)) + (i + 1 < end ? ",\n" : ";\n"));
+            }
+        }
+    }
+
+    private static String values(Object... values) {
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(literal(values[i]));
+        }
+        return sb.append(')').toString();
+    }
+
+    private static String literal(Object value) {
+        if (value == null) return "NULL";
+        if (value instanceof Boolean b) return b ? "TRUE" : "FALSE";
+        if (value instanceof Integer || value instanceof Long) return value.toString();
+        if (value instanceof Double d) return String.format(Locale.ROOT, "%.6f", d);
+        if (value instanceof LocalDate) return "'" + value + "'";
+        if (value instanceof LocalTime t) return String.format("'%02d:%02d:%02d'", t.getHour(), t.getMinute(), t.getSecond());
+        return "'" + value.toString().replace("'", "''") + "'";
+    }
+}
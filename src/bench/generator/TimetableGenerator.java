@@ -0,0 +1,190 @@
+package generator;
+
+import domain.model.*;
+import domain.model.environment.DistanceBetweenStops;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Lager et syntetisk rutenett etter en {@link GeneratorConfig}. Samme konfigurasjon gir alltid
+ * samme nett.
+ *
+ * Rutene går fra ett av noen få knutepunkter ut til egne stopp, slik at knutepunktene
+ * betjenes av mange ruter, som i Oslofjorden. Året deles i vinter, sommer og høst, med
+ * tettere avganger om sommeren og glissere i helgene. Rundt referansedatoen legges en
+ * blanding av innstillinger, forsinkelser, ekstraavganger og utelatte stopp.
+ *
+ * Fra kommandolinjen skrives nettet som SQL:
+ * mvn -Pbench test-compile exec:exec -Dbench.main=generator.TimetableGenerator
+ *     -Dbench.args="--routes 1000 --seed 7 --out target/timetable-1000.sql"
+ */
+public class TimetableGenerator {
+
+    private static final int[] INTERVALS = {15, 20, 30, 60};
+
+    private final GeneratorConfig config;
+
+    public TimetableGenerator(GeneratorConfig config) {
+        this.config = config;
+    }
+
+    public GeneratedTimetable generate() {
+        GeneratedTimetable result = new GeneratedTimetable();
+        Random random = new Random(config.getSeed());
+        int year = config.getReferenceDate().getYear();
+
+        Season winter = addSeason(result, "Vinter", year, LocalDate.of(year, 1, 1), LocalDate.of(year, 5, 31));
+        Season summer = addSeason(result, "Sommer", year, LocalDate.of(year, 6, 1), LocalDate.of(year, 8, 31));
+        Season autumn = addSeason(result, "Høst", year, LocalDate.of(year, 9, 1), LocalDate.of(year, 12, 31));
+
+        List<Stops> hubs = new ArrayList<>();
+        for (int i = 0; i < config.getHubs(); i++) hubs.add(addStop(result, "Knutepunkt " + (i + 1), random));
+
+        int stopSpread = config.getMaxStopsPerRoute() - config.getMinStopsPerRoute() + 1;
+        for (int r = 0; r < config.getRoutes(); r++) {
+            int stopCount = config.getMinStopsPerRoute() + random.nextInt(stopSpread);
+            List<Stops> stops = new ArrayList<>();
+            stops.add(hubs.get(random.nextInt(hubs.size())));
+            for (int s = 1; s < stopCount; s++) stops.add(addStop(result, "Rute " + (r + 1) + " stopp " + s, random));
+
+            Route route = new Route(result.routes.size() + 1, 100 + r, stops.get(0), stops.get(stopCount - 1), true);
+            result.routes.add(route);
+
+            addRouteStops(result, route, stops, random);
+            int interval = INTERVALS[random.nextInt(INTERVALS.length)];
+            LocalTime first = LocalTime.of(5 + random.nextInt(3), random.nextInt(4) * 15);
+            LocalTime last = LocalTime.of(20 + random.nextInt(3), 0);
+            addFrequencies(result, route, winter, first, last, interval);
+            addFrequencies(result, route, summer, first, last.plusHours(1), Math.max(10, interval / 2));
+            addFrequencies(result, route, autumn, first, last, interval);
+            addExceptions(result, route, stops, seasonOn(config.getReferenceDate(), winter, summer, autumn), random);
+        }
+        return result;
+    }
+
+    private static Season addSeason(GeneratedTimetable result, String type, int year, LocalDate start, LocalDate end) {
+        Season season = new Season(result.seasons.size() + 1, type, year, start, end);
+        result.seasons.add(season);
+        return season;
+    }
+
+    private static Stops addStop(GeneratedTimetable result, String name, Random random) {
+        Stops stop = new Stops(result.stops.size() + 1, name,
+                59.0 + random.nextDouble() * 0.9, 10.3 + random.nextDouble() * 0.6, true);
+        result.stops.add(stop);
+        return stop;
+    }
+
+    private static void addRouteStops(GeneratedTimetable result, Route route, List<Stops> stops, Random random) {
+        int minutes = 0;
+        double totalKm = 0;
+        for (int i = 0; i < stops.size(); i++) {
+            double km = i == 0 ? 0 : 1 + random.nextDouble() * 8;
+            if (i > 0) minutes += 5 + random.nextInt(16);
+            totalKm += km;
+            result.routeStops.add(new RouteStops(result.routeStops.size() + 1, route, stops.get(i), i + 1, minutes, km));
+
+            // Veistrekningen båten erstatter, litt lengre enn sjøveien
+            if (i > 0) {
+                addDistance(result, stops.get(i - 1), stops.get(i), km * (1.5 + random.nextDouble()), random.nextInt(4) == 0);
+            }
+        }
+        addDistance(result, stops.get(0), stops.get(stops.size() - 1), totalKm * 1.4, random.nextBoolean());
+    }
+
+    private static void addDistance(GeneratedTimetable result, Stops from, Stops to, double km, boolean tollgate) {
+        result.distances.add(new DistanceBetweenStops(result.distances.size() + 1, from, to, km, tollgate));
+    }
+
+    private static void addFrequencies(GeneratedTimetable result, Route route, Season season,
+                                       LocalTime first, LocalTime last, int interval) {
+        for (Weekday weekday : Weekday.values()) {
+            boolean weekend = weekday == Weekday.SATURDAY || weekday == Weekday.SUNDAY;
+            result.frequencies.add(new Frequency(result.frequencies.size() + 1, route, weekday, season,
+                    first, last, weekend ? interval * 2 : interval));
+        }
+    }
+
+    private void addExceptions(GeneratedTimetable result, Route route, List<Stops> stops, Season season, Random random) {
+        int window = config.getExceptionWindowDays();
+        for (int day = -window; day <= window; day++) {
+            if (random.nextDouble() >= config.getExceptionRate()) continue;
+            ExceptionType type = pickType(random);
+            ExceptionEntry.Builder builder = new ExceptionEntry.Builder()
+                    .setId(result.exceptions.size() + 1)
+                    .setRoute(route)
+                    .setValidDate(config.getReferenceDate().plusDays(day))
+                    .setDepartureTime(LocalTime.of(7 + random.nextInt(12), random.nextInt(4) * 15))
+                    .setType(type);
+            if (type == ExceptionType.OMITTED) builder.setStop(stops.get(1 + random.nextInt(stops.size() - 1)));
+            result.exceptions.add(builder.build());
+        }
+        if (random.nextDouble() < config.getRecurringExceptionRate()) {
+            result.exceptions.add(new ExceptionEntry.Builder()
+                    .setId(result.exceptions.size() + 1)
+                    .setRoute(route)
+                    .setWeekday(Weekday.values()[random.nextInt(7)])
+                    .setSeason(season)
+                    .setDepartureTime(LocalTime.of(12, 0))
+                    .setType(ExceptionType.DELAYED)
+                    .build());
+        }
+    }
+
+    private static ExceptionType pickType(Random random) {
+        int roll = random.nextInt(100);
+        if (roll < 50) return ExceptionType.CANCELLED;
+        if (roll < 75) return ExceptionType.DELAYED;
+        if (roll < 90) return ExceptionType.EXTRA;
+        return ExceptionType.OMITTED;
+    }
+
+    private static Season seasonOn(LocalDate date, Season... seasons) {
+        for (Season season : seasons) {
+            if (season.isActiveOn(date)) return season;
+        }
+        return seasons[0];
+    }
+
+    // --- Kommandolinje ---
+
+    public static void main(String[] args) throws IOException {
+        GeneratorConfig.Builder builder = new GeneratorConfig.Builder();
+        Path out = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--routes" -> builder.setRoutes(Integer.parseInt(value));
+                case "--hubs" -> builder.setHubs(Integer.parseInt(value));
+                case "--seed" -> builder.setSeed(Long.parseLong(value));
+                case "--date" -> builder.setReferenceDate(LocalDate.parse(value));
+                case "--exception-rate" -> builder.setExceptionRate(Double.parseDouble(value));
+                case "--out" -> out = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        GeneratedTimetable timetable = new TimetableGenerator(builder.build()).generate();
+        if (out == null) {
+            Writer writer = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+            new SqlDumpWriter(writer).write(timetable);
+            writer.flush();
+        } else {
+            if (out.getParent() != null) Files.createDirectories(out.getParent());
+            try (Writer writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+                new SqlDumpWriter(writer).write(timetable);
+            }
+            System.err.println("Wrote " + timetable + " to " + out);
+        }
+    }
+}
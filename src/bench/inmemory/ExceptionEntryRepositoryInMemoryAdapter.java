@@ -0,0 +1,153 @@
+package inmemory;
+
+import domain.model.ExceptionEntry;
+import domain.model.Route;
+import domain.model.Season;
+import domain.model.Stops;
+import domain.model.Weekday;
+import port.outbound.ExceptionEntryRepositoryPort;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Et unntak gjelder en dato hvis validDate er datoen, eller hvis ukedagen er den samme,
+ * som i MySQL-adapteret.
+ */
+public class ExceptionEntryRepositoryInMemoryAdapter extends InMemoryCrudAdapter<ExceptionEntry>
+        implements ExceptionEntryRepositoryPort {
+
+    public ExceptionEntryRepositoryInMemoryAdapter() {
+        super(ExceptionEntry::getId, ExceptionEntry::setId);
+    }
+
+    @Override
+    public List<ExceptionEntry> findByRoute(Route route) {
+        return where(forRoute(route));
+    }
+
+    @Override
+    public List<ExceptionEntry> findByRouteAndDate(Route route, LocalDate date) {
+        return where(forRoute(route).and(onDate(date)));
+    }
+
+    @Override
+    public List<ExceptionEntry> findByRouteAndWeekday(Route route, Weekday weekday) {
+        return where(forRoute(route).and(onWeekday(weekday)));
+    }
+
+    @Override
+    public List<ExceptionEntry> findByStop(Stops stop) {
+        return where(forStop(stop));
+    }
+
+    @Override
+    public List<ExceptionEntry> findByRouteAndStop(Route route, Stops stop) {
+        return where(forRoute(route).and(forStop(stop)));
+    }
+
+    @Override
+    public List<ExceptionEntry> findByStopAndDate(Stops stop, LocalDate date) {
+        return where(forStop(stop).and(onDate(date)));
+    }
+
+    @Override
+    public List<ExceptionEntry> findByStopAndWeekday(Stops stop, Weekday weekday) {
+        return where(forStop(stop).and(onWeekday(weekday)));
+    }
+
+    @Override
+    public List<ExceptionEntry> findAllOnDate(LocalDate date) {
+        return where(onDate(date));
+    }
+
+    @Override
+    public List<ExceptionEntry> findAllActiveOnDate(LocalDate date) {
+        return where(onDate(date).and(ExceptionEntry::isActive));
+    }
+
+    @Override
+    public List<ExceptionEntry> findAllInactiveOnDate(LocalDate date) {
+        return where(onDate(date).and(ex -> !ex.isActive()));
+    }
+
+    @Override
+    public List<ExceptionEntry> findAllOnWeekday(Weekday weekday) {
+        return where(onWeekday(weekday));
+    }
+
+    @Override
+    public List<ExceptionEntry> findAllActiveOnWeekday(Weekday weekday) {
+        return where(onWeekday(weekday).and(ExceptionEntry::isActive));
+    }
+
+    @Override
+    public List<ExceptionEntry> findAllInactiveOnWeekday(Weekday weekday) {
+        return where(onWeekday(weekday).and(ex -> !ex.isActive()));
+    }
+
+    @Override
+    public List<ExceptionEntry> findActiveForRouteAndDate(Route route, LocalDate date) {
+        return where(forRoute(route).and(onDate(date)).and(ExceptionEntry::isActive));
+    }
+
+    @Override
+    public List<ExceptionEntry> findInactiveForRouteAndDate(Route route, LocalDate date) {
+        return where(forRoute(route).and(onDate(date)).and(ex -> !ex.isActive()));
+    }
+
+    @Override
+    public List<ExceptionEntry> findActiveForStopAndDate(Stops stop, LocalDate date) {
+        return where(forStop(stop).and(onDate(date)).and(ExceptionEntry::isActive));
+    }
+
+    @Override
+    public List<ExceptionEntry> findInactiveForStopAndDate(Stops stop, LocalDate date) {
+        return where(forStop(stop).and(onDate(date)).and(ex -> !ex.isActive()));
+    }
+
+    @Override
+    public List<ExceptionEntry> findActiveForRouteAndWeekday(Route route, Weekday weekday) {
+        return where(forRoute(route).and(onWeekday(weekday)).and(ExceptionEntry::isActive));
+    }
+
+    @Override
+    public List<ExceptionEntry> findInactiveForRouteAndWeekday(Route route, Weekday weekday) {
+        return where(forRoute(route).and(onWeekday(weekday)).and(ex -> !ex.isActive()));
+    }
+
+    @Override
+    public List<ExceptionEntry> findActiveForStopAndWeekday(Stops stop, Weekday weekday) {
+        return where(forStop(stop).and(onWeekday(weekday)).and(ExceptionEntry::isActive));
+    }
+
+    @Override
+    public List<ExceptionEntry> findInactiveForStopAndWeekday(Stops stop, Weekday weekday) {
+        return where(forStop(stop).and(onWeekday(weekday)).and(ex -> !ex.isActive()));
+    }
+
+    @Override
+    public List<ExceptionEntry> findBySeason(Season season) {
+        return where(ex -> ex.getSeason() != null && ex.getSeason().getId() == season.getId());
+    }
+
+    // --- Filtre ---
+
+    private static Predicate<ExceptionEntry> forRoute(Route route) {
+        return ex -> ex.getRoute() != null && ex.getRoute().getId() == route.getId();
+    }
+
+    private static Predicate<ExceptionEntry> forStop(Stops stop) {
+        return ex -> ex.getStop() != null && ex.getStop().getId() == stop.getId();
+    }
+
+    private static Predicate<ExceptionEntry> onDate(LocalDate date) {
+        Weekday weekday = Weekday.fromLocalDate(date);
+        return ex -> date.equals(ex.getValidDate()) || ex.getWeekday() == weekday;
+    }
+
+    private static Predicate<ExceptionEntry> onWeekday(Weekday weekday) {
+        return ex -> ex.getWeekday() == weekday;
+    }
+}
@@ -0,0 +1,83 @@
+package inmemory;
+
+import domain.model.Frequency;
+import domain.model.Route;
+import domain.model.Season;
+import domain.model.Weekday;
+import port.outbound.FrequencyRepositoryPort;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class FrequencyRepositoryInMemoryAdapter extends InMemoryCrudAdapter<Frequency> implements FrequencyRepositoryPort {
+
+    public FrequencyRepositoryInMemoryAdapter() {
+        super(Frequency::getId, Frequency::setId);
+    }
+
+    @Override
+    public List<Frequency> findByRoute(Route route) {
+        return where(f -> sameRoute(f, route));
+    }
+
+    @Override
+    public List<Frequency> findByRouteAndDate(Route route, LocalDate date) {
+        return findByRouteAndWeekday(route, Weekday.fromLocalDate(date));
+    }
+
+    @Override
+    public List<Frequency> findByRouteAndWeekday(Route route, Weekday weekday) {
+        return where(f -> (route == null || sameRoute(f, route)) && f.getWeekday() == weekday);
+    }
+
+    @Override
+    public List<Frequency> findAllOnDate(LocalDate date) {
+        return findAllOnWeekday(Weekday.fromLocalDate(date));
+    }
+
+    @Override
+    public List<Frequency> findAllActiveOnDate(LocalDate date) {
+        return findAllActiveOnWeekday(Weekday.fromLocalDate(date));
+    }
+
+    @Override
+    public List<Frequency> findAllInactiveOnDate(LocalDate date) {
+        return findAllInactiveOnWeekday(Weekday.fromLocalDate(date));
+    }
+
+    @Override
+    public List<Frequency> findAllOnWeekday(Weekday weekday) {
+        return where(f -> f.getWeekday() == weekday);
+    }
+
+    @Override
+    public List<Frequency> findAllActiveOnWeekday(Weekday weekday) {
+        return where(f -> f.getWeekday() == weekday && f.getRoute().isActive());
+    }
+
+    @Override
+    public List<Frequency> findAllInactiveOnWeekday(Weekday weekday) {
+        return where(f -> f.getWeekday() == weekday && !f.getRoute().isActive());
+    }
+
+    @Override
+    public List<Frequency> findActiveForRouteAndDate(Route route, LocalDate date) {
+        Weekday weekday = Weekday.fromLocalDate(date);
+        return where(f -> sameRoute(f, route) && f.getWeekday() == weekday && f.getRoute().isActive());
+    }
+
+    @Override
+    public List<Frequency> findInactiveForRouteAndDate(Route route, LocalDate date) {
+        Weekday weekday = Weekday.fromLocalDate(date);
+        return where(f -> sameRoute(f, route) && f.getWeekday() == weekday && !f.getRoute().isActive());
+    }
+
+    @Override
+    public List<Frequency> findBySeason(Season season) {
+        return where(f -> f.getSeason() != null && f.getSeason().getId() == season.getId());
+    }
+
+    private static boolean sameRoute(Frequency f, Route route) {
+        return f.getRoute().getId() == route.getId();
+    }
+}
@@ -0,0 +1,80 @@
+package inmemory;
+
+import port.outbound.CRUDRepositoryPort;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Felles CRUD for portene som holder radene i minnet.
+ *
+ * Brukes av benchmarkene og lasttestene i stedet for MySQL, slik at målingene viser
+ * ruteplanmotoren og ikke databasen. Id-er deles ut fortløpende, og readAll() gir radene
+ * i innsettingsrekkefølge.
+ */
+abstract class InMemoryCrudAdapter<T> implements CRUDRepositoryPort<T> {
+
+    private final Map<Integer, T> rows = new LinkedHashMap<>();
+    private final ToIntFunction<T> getId;
+    private final ObjIntConsumer<T> setId;
+    private int nextId = 1;
+
+    InMemoryCrudAdapter(ToIntFunction<T> getId, ObjIntConsumer<T> setId) {
+        this.getId = getId;
+        this.setId = setId;
+    }
+
+    @Override
+    public synchronized void create(T entity) {
+        int id = getId.applyAsInt(entity);
+        if (id <= 0) {
+            id = nextId;
+            setId.accept(entity, id);
+        }
+        nextId = Math.max(nextId, id + 1);
+        rows.put(id, entity);
+    }
+
+    @Override
+    public synchronized Optional<T> readById(int id) {
+        return Optional.ofNullable(rows.get(id));
+    }
+
+    @Override
+    public synchronized List<T> readAll() {
+        return new ArrayList<>(rows.values());
+    }
+
+    @Override
+    public synchronized void update(T entity) {
+        rows.replace(getId.applyAsInt(entity), entity);
+    }
+
+    @Override
+    public void delete(T entity) {
+        deleteById(getId.applyAsInt(entity));
+    }
+
+    @Override
+    public synchronized void deleteById(int id) {
+        rows.remove(id);
+    }
+
+    public synchronized int size() {
+        return rows.size();
+    }
+
+    protected synchronized List<T> where(Predicate<T> filter) {
+        List<T> result = new ArrayList<>();
+        for (T row : rows.values()) {
+            if (filter.test(row)) result.add(row);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,48 @@
+package inmemory;
+
+import service.EnvironmentService;
+import service.ScheduleService;
+import service.StopResolver;
+import service.timetable.DepartureIndexCache;
+import service.timetable.TimetableSnapshotProvider;
+
+/**
+ * Alle portene ruteplanen trenger, holdt i minnet, og tjenestene koblet sammen på samme måte
+ * som i Spring-konteksten: ScheduleService og EnvironmentService deler øyeblikksbildet.
+ */
+public class InMemoryTimetable {
+
+    public final StopsRepositoryInMemoryAdapter stops = new StopsRepositoryInMemoryAdapter();
+    public final RouteRepositoryInMemoryAdapter routes = new RouteRepositoryInMemoryAdapter();
+    public final RouteStopsRepositoryInMemoryAdapter routeStops = new RouteStopsRepositoryInMemoryAdapter();
+    public final SeasonRepositoryInMemoryAdapter seasons = new SeasonRepositoryInMemoryAdapter();
+    public final FrequencyRepositoryInMemoryAdapter frequencies = new FrequencyRepositoryInMemoryAdapter();
+    public final ExceptionEntryRepositoryInMemoryAdapter exceptions = new ExceptionEntryRepositoryInMemoryAdapter();
+    public final StopDistanceRepositoryInMemoryAdapter distances = new StopDistanceRepositoryInMemoryAdapter();
+
+    /**
+     * Lager nye tjenester over portene. Cachene er tomme, så første kall bygger dem.
+     */
+    public Services services() {
+        TimetableSnapshotProvider snapshotProvider =
+                new TimetableSnapshotProvider(routes, routeStops, frequencies, exceptions);
+        DepartureIndexCache departureIndex = new DepartureIndexCache(snapshotProvider);
+        EnvironmentService environmentService = new EnvironmentService(distances, snapshotProvider);
+        ScheduleService scheduleService = new ScheduleService(routes, routeStops, frequencies, exceptions,
+                stops, environmentService, departureIndex, new StopResolver(stops));
+        return new Services(scheduleService, environmentService, departureIndex);
+    }
+
+    public static final class Services {
+        public final ScheduleService scheduleService;
+        public final EnvironmentService environmentService;
+        public final DepartureIndexCache departureIndex;
+
+        private Services(ScheduleService scheduleService, EnvironmentService environmentService,
+                         DepartureIndexCache departureIndex) {
+            this.scheduleService = scheduleService;
+            this.environmentService = environmentService;
+            this.departureIndex = departureIndex;
+        }
+    }
+}
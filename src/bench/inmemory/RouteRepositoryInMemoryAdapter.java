@@ -0,0 +1,24 @@
+package inmemory;
+
+import domain.model.Route;
+import port.outbound.RouteRepositoryPort;
+
+import java.util.List;
+import java.util.Optional;
+
+public class RouteRepositoryInMemoryAdapter extends InMemoryCrudAdapter<Route> implements RouteRepositoryPort {
+
+    public RouteRepositoryInMemoryAdapter() {
+        super(Route::getId, Route::setId);
+    }
+
+    @Override
+    public Optional<Route> findByRouteName(String routeName) {
+        return where(route -> String.valueOf(route.getRouteNum()).equals(routeName)).stream().findFirst();
+    }
+
+    @Override
+    public List<Route> findAllActive() {
+        return where(Route::isActive);
+    }
+}
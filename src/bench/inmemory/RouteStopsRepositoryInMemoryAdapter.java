@@ -0,0 +1,30 @@
+package inmemory;
+
+import domain.model.Route;
+import domain.model.RouteStops;
+import domain.model.Stops;
+import port.outbound.RouteStopsRepositoryPort;
+
+import java.util.List;
+
+public class RouteStopsRepositoryInMemoryAdapter extends InMemoryCrudAdapter<RouteStops> implements RouteStopsRepositoryPort {
+
+    public RouteStopsRepositoryInMemoryAdapter() {
+        super(RouteStops::getId, RouteStops::setId);
+    }
+
+    @Override
+    public List<RouteStops> findAllActive() {
+        return where(rs -> rs.getRoute().isActive() && rs.getStop().isActive());
+    }
+
+    @Override
+    public List<RouteStops> findByRoute(Route route) {
+        return where(rs -> rs.getRoute().getId() == route.getId());
+    }
+
+    @Override
+    public List<RouteStops> findByStop(Stops stop) {
+        return where(rs -> rs.getStop().getId() == stop.getId());
+    }
+}
@@ -0,0 +1,19 @@
+package inmemory;
+
+import domain.model.Season;
+import port.outbound.SeasonRepositoryPort;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class SeasonRepositoryInMemoryAdapter extends InMemoryCrudAdapter<Season> implements SeasonRepositoryPort {
+
+    public SeasonRepositoryInMemoryAdapter() {
+        super(Season::getId, Season::setId);
+    }
+
+    @Override
+    public List<Season> findActiveByDate(LocalDate date) {
+        return where(season -> season.isActiveOn(date));
+    }
+}
@@ -0,0 +1,18 @@
+package inmemory;
+
+import domain.model.environment.DistanceBetweenStops;
+import port.outbound.StopDistanceRepositoryPort;
+
+public class StopDistanceRepositoryInMemoryAdapter extends InMemoryCrudAdapter<DistanceBetweenStops>
+        implements StopDistanceRepositoryPort {
+
+    public StopDistanceRepositoryInMemoryAdapter() {
+        super(DistanceBetweenStops::getId, DistanceBetweenStops::setId);
+    }
+
+    @Override
+    public DistanceBetweenStops findByFromAndTo(int fromStopId, int destinationStopId) {
+        return where(d -> d.getFromStop().getId() == fromStopId && d.getToStop().getId() == destinationStopId)
+                .stream().findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,31 @@
+package inmemory;
+
+import domain.model.Stops;
+import port.outbound.StopsRepositoryPort;
+import service.StopSpatialIndex;
+
+import java.util.List;
+import java.util.Optional;
+
+public class StopsRepositoryInMemoryAdapter extends InMemoryCrudAdapter<Stops> implements StopsRepositoryPort {
+
+    public StopsRepositoryInMemoryAdapter() {
+        super(Stops::getId, Stops::setId);
+    }
+
+    @Override
+    public Optional<Stops> findByName(String stopName) {
+        return where(stop -> stop.getName().equalsIgnoreCase(stopName)).stream().findFirst();
+    }
+
+    @Override
+    public List<Stops> findAllActive() {
+        return where(Stops::isActive);
+    }
+
+    @Override
+    public List<Stops> findNear(double latitude, double longitude, double radiusKm) {
+        return where(stop -> stop.isActive()
+                && StopSpatialIndex.haversine(latitude, longitude, stop.getLatitude(), stop.getLongitude()) <= radiusKm);
+    }
+}
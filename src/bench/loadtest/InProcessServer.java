@@ -0,0 +1,102 @@
+package loadtest;
+
+import app.SpringBoot;
+import generator.GeneratedTimetable;
+import inmemory.InMemoryTimetable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import port.outbound.*;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+
+/**
+ * Starter hele webappen i samme JVM, med portene i minnet fylt fra et generert rutenett.
+ *
+ * Kontrollerne, tjenestene og cachene er de ekte, så målingene viser alt unntatt databasen.
+ * MySQL-adapterne lages fortsatt, men tjenestene får portene i minnet som @Primary. En
+ * tilkobling mot databasen feiler, slik at det synes hvis noe likevel går dit.
+ */
+public final class InProcessServer implements AutoCloseable {
+
+    private static GeneratedTimetable seed;
+
+    private final ConfigurableApplicationContext context;
+
+    private InProcessServer(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    public static synchronized InProcessServer start(GeneratedTimetable timetable) {
+        seed = timetable;
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBoot.class, InMemoryPorts.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.allow-bean-definition-overriding=true",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "spring.autoconfigure.exclude="
+                                + "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration")
+                .run();
+        return new InProcessServer(context);
+    }
+
+    public String baseUrl() {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        return "http://localhost:" + port;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    @Configuration
+    static class InMemoryPorts {
+
+        private final InMemoryTimetable timetable = seed.toInMemory();
+
+        /** Erstatter Hikari-poolen fra DatabaseConfig. */
+        @Bean
+        public DataSource dataSource() {
+            return new UnavailableDataSource();
+        }
+
+        @Bean @Primary public StopsRepositoryPort inMemoryStops() { return timetable.stops; }
+        @Bean @Primary public RouteRepositoryPort inMemoryRoutes() { return timetable.routes; }
+        @Bean @Primary public RouteStopsRepositoryPort inMemoryRouteStops() { return timetable.routeStops; }
+        @Bean @Primary public SeasonRepositoryPort inMemorySeasons() { return timetable.seasons; }
+        @Bean @Primary public FrequencyRepositoryPort inMemoryFrequencies() { return timetable.frequencies; }
+        @Bean @Primary public ExceptionEntryRepositoryPort inMemoryExceptions() { return timetable.exceptions; }
+        @Bean @Primary public StopDistanceRepositoryPort inMemoryDistances() { return timetable.distances; }
+    }
+
+    private static final class UnavailableDataSource implements DataSource {
+        @Override
+        public Connection getConnection() throws SQLException {
+            throw new SQLException("No database in the in-process load test");
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+
+        @Override public PrintWriter getLogWriter() { return null; }
+        @Override public void setLogWriter(PrintWriter out) { }
+        @Override public void setLoginTimeout(int seconds) { }
+        @Override public int getLoginTimeout() { return 0; }
+        @Override public Logger getParentLogger() { return Logger.getGlobal(); }
+        @Override public <T> T unwrap(Class<T> iface) throws SQLException { throw new SQLException("Not a wrapper"); }
+        @Override public boolean isWrapperFor(Class<?> iface) { return false; }
+    }
+}
@@ -0,0 +1,235 @@
+package loadtest;
+
+import generator.GeneratedTimetable;
+import generator.GeneratorConfig;
+import generator.TimetableGenerator;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lastgenerator med fast ankomstrate mot HTTP-endepunktene.
+ *
+ * Forespørslene sendes etter en fast plan, uavhengig av hvor fort serveren svarer (åpen
+ * modell). Svartiden måles fra det planlagte sendetidspunktet, ikke fra når forespørselen
+ * faktisk ble sendt, slik at køen som bygger seg opp når serveren henger etter kommer med i
+ * tallene (korrigert for coordinated omission). Ratene kjøres i stigende trinn, og rapporten
+ * viser hvor gjennomstrømningen flater ut.
+ *
+ * Mot en kjørende server:
+ * mvn -Pbench test-compile exec:exec -Dbench.main=loadtest.LoadTest
+ *     -Dbench.args="--url http://localhost:8080 --mix mix.jsonl --rates 50,100,200,400"
+ * I samme JVM, mot et generert rutenett i minnet: --in-process --routes 100
+ */
+public class LoadTest {
+
+    /** Høyeste svartid histogrammene holder, og antall gjeldende siffer. */
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final String baseUrl;
+    private final List<RecordedRequest> mix;
+    private final Duration stepDuration;
+    private final Duration warmup;
+    private final int maxInFlight;
+    private final HttpClient client;
+
+    public LoadTest(String baseUrl, List<RecordedRequest> mix, Duration stepDuration, Duration warmup, int maxInFlight) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.mix = List.copyOf(mix);
+        this.stepDuration = stepDuration;
+        this.warmup = warmup;
+        this.maxInFlight = maxInFlight;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.min(maxInFlight, 64), daemon()))
+                .build();
+    }
+
+    /**
+     * Kjører ett trinn per rate, med oppvarming før hvert trinn.
+     */
+    public List<StepResult> run(int... ratesPerSecond) throws InterruptedException {
+        List<StepResult> results = new ArrayList<>();
+        for (int rate : ratesPerSecond) {
+            if (!warmup.isZero()) runStep(rate, warmup);
+            results.add(runStep(rate, stepDuration));
+        }
+        return results;
+    }
+
+    /**
+     * Sender forespørsler med fast rate i gitt tid og venter til alle har svart.
+     */
+    public StepResult runStep(int ratePerSecond, Duration duration) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long total = duration.toNanos() / intervalNanos;
+        RecordedRequest[] schedule = weightedSchedule(new Random(ratePerSecond));
+
+        Histogram overall = new ConcurrentHistogram(MAX_LATENCY_NANOS, SIGNIFICANT_DIGITS);
+        Map<String, Histogram> byEndpoint = new ConcurrentHashMap<>();
+        AtomicLong errors = new AtomicLong();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        CountDownLatch done = new CountDownLatch((int) total);
+
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            // Er grensen nådd, venter planen her, men klokken for forespørselen går fra intended
+            inFlight.acquire();
+            RecordedRequest request = schedule[(int) (i % schedule.length)];
+            client.sendAsync(toHttpRequest(request), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long latency = Math.min(System.nanoTime() - intended, MAX_LATENCY_NANOS);
+                        overall.recordValue(latency);
+                        byEndpoint.computeIfAbsent(request.endpoint(),
+                                key -> new ConcurrentHistogram(MAX_LATENCY_NANOS, SIGNIFICANT_DIGITS)).recordValue(latency);
+                        if (failure != null || response.statusCode() >= 400) errors.incrementAndGet();
+                        inFlight.release();
+                        done.countDown();
+                    });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+
+        return new StepResult(ratePerSecond, total, errors.get(), elapsed, overall, new TreeMap<>(byEndpoint));
+    }
+
+    private HttpRequest toHttpRequest(RecordedRequest request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + request.getPath()))
+                .timeout(Duration.ofSeconds(30));
+        if (request.getBody() != null) {
+            builder.header("Content-Type", "application/json")
+                    .method(request.getMethod(), HttpRequest.BodyPublishers.ofString(request.getBody()));
+        } else {
+            builder.method(request.getMethod(), HttpRequest.BodyPublishers.noBody());
+        }
+        return builder.build();
+    }
+
+    /** Blandingen utvidet etter vekt og stokket, slik at rekkefølgen blir den samme for hver rate. */
+    private RecordedRequest[] weightedSchedule(Random random) {
+        List<RecordedRequest> expanded = new ArrayList<>();
+        for (RecordedRequest request : mix) {
+            for (int i = 0; i < request.getWeight(); i++) expanded.add(request);
+        }
+        Collections.shuffle(expanded, random);
+        return expanded.toArray(new RecordedRequest[0]);
+    }
+
+    private static ThreadFactory daemon() {
+        return runnable -> {
+            Thread thread = new Thread(runnable, "load-test-client");
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // --- Rapport ---
+
+    /**
+     * Skriver en tabell per trinn, og raten der gjennomstrømningen eller p99 slutter å holde.
+     */
+    public static void printReport(List<StepResult> results, double sloMillis, PrintStream out) {
+        out.printf("%10s %10s %8s %9s %9s %9s %9s %9s%n",
+                "target/s", "actual/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        StepResult saturated = null;
+        StepResult lastGood = null;
+        for (StepResult step : results) {
+            Histogram h = step.getOverall();
+            out.printf("%10d %10.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    step.getTargetRate(), step.getActualRate(), step.getErrors(),
+                    millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(90)),
+                    millis(h.getValueAtPercentile(99)), millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue()));
+            for (Map.Entry<String, Histogram> endpoint : step.getByEndpoint().entrySet()) {
+                Histogram e = endpoint.getValue();
+                out.printf("    %-40s n=%-8d p50 %8.2f  p99 %8.2f  max %8.2f%n", endpoint.getKey(), e.getTotalCount(),
+                        millis(e.getValueAtPercentile(50)), millis(e.getValueAtPercentile(99)), millis(e.getMaxValue()));
+            }
+            if (saturated == null && step.isSaturated(sloMillis)) saturated = step;
+            if (saturated == null) lastGood = step;
+        }
+        if (saturated == null) {
+            out.println("No saturation up to " + results.get(results.size() - 1).getTargetRate() + " req/s (p99 SLO " + sloMillis + " ms)");
+        } else {
+            out.println("Saturates at " + saturated.getTargetRate() + " req/s"
+                    + (lastGood != null ? "; last sustainable rate " + lastGood.getTargetRate() + " req/s" : "")
+                    + " (p99 SLO " + sloMillis + " ms)");
+        }
+    }
+
+    /** Skriver fulle persentilfordelinger (.hgrm) som kan plottes med HdrHistogram-verktøyene. */
+    public static void writeHistograms(List<StepResult> results, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (StepResult step : results) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("rate-" + step.getTargetRate() + ".hgrm")))) {
+                step.getOverall().outputPercentileDistribution(out, 1_000_000.0);
+            }
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    // --- Kommandolinje ---
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--in-process")) options.put("in-process", "true");
+            else if (i + 1 < args.length) options.put(args[i].substring(2), args[++i]);
+        }
+
+        int[] rates = Arrays.stream(options.getOrDefault("rates", "50,100,200,400,800").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        Duration step = Duration.ofSeconds(Long.parseLong(options.getOrDefault("seconds", "30")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5")));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "256"));
+        double slo = Double.parseDouble(options.getOrDefault("slo-ms", "500"));
+
+        InProcessServer server = null;
+        try {
+            String url = options.get("url");
+            List<RecordedRequest> mix;
+            if (options.containsKey("in-process")) {
+                GeneratedTimetable timetable = new TimetableGenerator(new GeneratorConfig.Builder()
+                        .setRoutes(Integer.parseInt(options.getOrDefault("routes", "100")))
+                        .setReferenceDate(LocalDate.now())
+                        .build()).generate();
+                server = InProcessServer.start(timetable);
+                url = server.baseUrl();
+                mix = options.containsKey("mix") ? RecordedRequest.readJsonl(Path.of(options.get("mix"))) : MixBuilder.from(timetable);
+            } else {
+                if (url == null || !options.containsKey("mix")) {
+                    throw new IllegalArgumentException("Use --url <base> --mix <file.jsonl>, or --in-process");
+                }
+                mix = RecordedRequest.readJsonl(Path.of(options.get("mix")));
+            }
+
+            LoadTest test = new LoadTest(url, mix, step, warmup, maxInFlight);
+            List<StepResult> results = test.run(rates);
+            printReport(results, slo, System.out);
+            if (options.containsKey("hgrm")) writeHistograms(results, Path.of(options.get("hgrm")));
+        } finally {
+            if (server != null) server.close();
+        }
+    }
+}
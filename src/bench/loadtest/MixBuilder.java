@@ -0,0 +1,46 @@
+package loadtest;
+
+import domain.model.Route;
+import domain.model.RouteStops;
+import generator.GeneratedTimetable;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Lager en blanding som ligner trafikken fra forsiden: mest søk mellom stopp som faktisk
+ * betjenes, noen fulle ruteplaner og oppslag i stopp- og rutelistene.
+ */
+final class MixBuilder {
+
+    private static final int SEARCHES = 64;
+
+    private MixBuilder() {
+    }
+
+    static List<RecordedRequest> from(GeneratedTimetable timetable) {
+        Random random = new Random(1);
+        String today = LocalDate.now().toString();
+        List<Route> routes = timetable.getRoutes();
+        List<RecordedRequest> mix = new ArrayList<>();
+
+        for (int i = 0; i < SEARCHES; i++) {
+            Route route = routes.get(random.nextInt(routes.size()));
+            List<RouteStops> stops = timetable.getRouteStops().stream()
+                    .filter(rs -> rs.getRoute() == route)
+                    .toList();
+            int from = random.nextInt(stops.size() - 1);
+            int to = from + 1 + random.nextInt(stops.size() - from - 1);
+            String body = "{\"fromStop\":\"" + stops.get(from).getStop().getName() + "\","
+                    + "\"toStop\":\"" + stops.get(to).getStop().getName() + "\","
+                    + "\"travelDate\":\"" + today + "\",\"travelTime\":\"08:00\",\"timeMode\":\"DEPART\"}";
+            mix.add(new RecordedRequest("POST", "/api/departures/search", body, 6));
+        }
+        mix.add(new RecordedRequest("GET", "/api/departures/full-schedule?date=" + today, null, 8));
+        mix.add(new RecordedRequest("GET", "/api/stops", null, 16));
+        mix.add(new RecordedRequest("GET", "/api/routes", null, 8));
+        return mix;
+    }
+}
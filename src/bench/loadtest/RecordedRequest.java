@@ -0,0 +1,64 @@
+package loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Én forespørsel i en innspilt blanding, med vekt for hvor ofte den skal spilles av.
+ *
+ * Blandingen leses fra JSONL, én forespørsel per linje:
+ * {"method":"POST","path":"/api/departures/search","weight":6,"body":{"fromStop":"Gamlebyen",...}}
+ * "${today}" i sti eller body byttes ut med dagens dato.
+ */
+public class RecordedRequest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final String method;
+    private final String path;
+    private final String body;
+    private final int weight;
+
+    public RecordedRequest(String method, String path, String body, int weight) {
+        if (weight < 1) throw new IllegalArgumentException("Weight must be at least 1");
+        this.method = method;
+        this.path = path;
+        this.body = body;
+        this.weight = weight;
+    }
+
+    public static List<RecordedRequest> readJsonl(Path file) throws IOException {
+        String today = LocalDate.now().toString();
+        List<RecordedRequest> requests = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) continue;
+            JsonNode node = JSON.readTree(line.replace("${today}", today));
+            requests.add(new RecordedRequest(
+                    node.path("method").asText("GET"),
+                    node.path("path").asText(),
+                    node.hasNonNull("body") ? JSON.writeValueAsString(node.get("body")) : null,
+                    node.path("weight").asInt(1)));
+        }
+        if (requests.isEmpty()) throw new IllegalArgumentException("No requests in " + file);
+        return requests;
+    }
+
+    /** Nøkkelen målingene grupperes på, uten spørrestrengen. */
+    public String endpoint() {
+        int query = path.indexOf('?');
+        return method + " " + (query < 0 ? path : path.substring(0, query));
+    }
+
+    public String getMethod() { return method; }
+    public String getPath() { return path; }
+    public String getBody() { return body; }
+    public int getWeight() { return weight; }
+}
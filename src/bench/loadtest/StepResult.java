@@ -0,0 +1,46 @@
+package loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resultatet av ett trinn med fast rate. Svartidene er i nanosekunder.
+ */
+public class StepResult {
+
+    private final int targetRate;
+    private final long requests;
+    private final long errors;
+    private final long elapsedNanos;
+    private final Histogram overall;
+    private final Map<String, Histogram> byEndpoint;
+
+    StepResult(int targetRate, long requests, long errors, long elapsedNanos,
+               Histogram overall, Map<String, Histogram> byEndpoint) {
+        this.targetRate = targetRate;
+        this.requests = requests;
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+        this.overall = overall;
+        this.byEndpoint = byEndpoint;
+    }
+
+    /**
+     * Et trinn er mettet når serveren ikke holder følge med raten (under 95 %), når p99 går over
+     * SLO-en, eller når mer enn 1 % av forespørslene feiler.
+     */
+    public boolean isSaturated(double sloMillis) {
+        double p99Millis = overall.getValueAtPercentile(99) / 1_000_000.0;
+        return getActualRate() < targetRate * 0.95 || p99Millis > sloMillis || errors > requests / 100;
+    }
+
+    // --- Gettere ---
+    public int getTargetRate() { return targetRate; }
+    public long getRequests() { return requests; }
+    public long getErrors() { return errors; }
+    public double getActualRate() { return requests / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1)); }
+    public Histogram getOverall() { return overall; }
+    public Map<String, Histogram> getByEndpoint() { return byEndpoint; }
+}
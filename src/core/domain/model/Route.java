@@ -15,6 +15,10 @@ import java.util.List;
 @Entity
 public class Route {
 
+    /** Sluttstoppet legges alltid til i getStops() med disse anslåtte verdiene, ikke målte. */
+    public static final int ASSUMED_TERMINAL_MINUTES = 5;
+    public static final double ASSUMED_TERMINAL_DISTANCE = 20;
+
     // --- Felt ---
 
     @Id
@@ -76,7 +80,7 @@ public class Route {
      * Bygger og returnerer listen over RouteStop:
      * - Første stopp: fromStop
      * - Deretter mellomliggende stopp fra allRouteStops
-     * - Til slutt toStop
+     * - Til slutt toStop, med anslått tid og avstand fra forrige stopp
      */
     public List<RouteStops> getStops() {
         if (stops == null) {
@@ -101,8 +105,8 @@ public class Route {
                         this,
                         toStop,
                         order,
-                        last.getTimeFromStart() + 5,
-                        20
+                        last.getTimeFromStart() + ASSUMED_TERMINAL_MINUTES,
+                        ASSUMED_TERMINAL_DISTANCE
                 ));
             }
         }
@@ -0,0 +1,120 @@
+package domain.model.environment;
+
+import java.util.Properties;
+
+/**
+ * Uforanderlig sett med satser for miljøberegningen, med versjonsnummer.
+ *
+ * Avledede satser (gjennomsnittlig bompasseringspris og utslipp per km) regnes ut én gang når
+ * profilen lages, med samme formler som i {@link EnvironmentVariables}. En ny profil erstatter
+ * den gamle i sin helhet, så lesere ser aldri en blanding av gamle og nye satser.
+ */
+public final class RateProfile {
+
+    private final long version;
+    private final double standardRatePrKm;
+    private final double ferryRate;
+    private final double averageCostThruTollgate;
+    private final double averageEmissionPrKm;
+
+    private RateProfile(long version, double standardRatePrKm, double ferryRate,
+                        double averageCostThruTollgate, double averageEmissionPrKm) {
+        this.version = version;
+        this.standardRatePrKm = standardRatePrKm;
+        this.ferryRate = ferryRate;
+        this.averageCostThruTollgate = averageCostThruTollgate;
+        this.averageEmissionPrKm = averageEmissionPrKm;
+    }
+
+    /**
+     * Profil med verdiene som står i {@link EnvironmentVariables} nå. Versjon 0.
+     */
+    public static RateProfile fromEnvironmentVariables() {
+        return new RateProfile(0,
+                EnvironmentVariables.standardRatePrKm,
+                EnvironmentVariables.ferryRate,
+                EnvironmentVariables.averageCostThruTollgate,
+                EnvironmentVariables.averageEmissionPrKm);
+    }
+
+    /**
+     * Bygger en profil fra nøkler med samme navn som feltene i {@link EnvironmentVariables}.
+     * Manglende nøkler får verdien derfra. De avledede satsene regnes ut fra grunnsatsene,
+     * med mindre de er oppgitt direkte. Versjon 0.
+     */
+    public static RateProfile fromProperties(Properties properties) {
+        double percentageElectric = get(properties, "percentageElectric", EnvironmentVariables.percentageElectric);
+        double percentageGasoline = get(properties, "percentageGasoline", EnvironmentVariables.percentageGasoline);
+        double percentageDiesel = get(properties, "percentageDiesel", EnvironmentVariables.percentageDiesel);
+        double percentageFuel = percentageDiesel + percentageGasoline;
+
+        double fuelWithoutChip = get(properties, "fuelWithoutChip", EnvironmentVariables.fuelWithoutChip);
+        double electricWithoutChip = get(properties, "electricWithoutChip", EnvironmentVariables.electricWithoutChip);
+        double fuelWithChip = get(properties, "fuelWithChip", EnvironmentVariables.fuelWithChip);
+        double electricWithChip = get(properties, "electricWithChip", EnvironmentVariables.electricWithChip);
+        double passWithChip = get(properties, "passWithChip", EnvironmentVariables.passWithChip);
+        double passWithoutChip = get(properties, "passWithoutChip", EnvironmentVariables.passWithoutChip);
+
+        double emissionElectric = get(properties, "emissionElectric", EnvironmentVariables.emissionElectric);
+        double emissionGasoline = get(properties, "emissionGasoline", EnvironmentVariables.emissionGasoline);
+        double emissionDiesel = get(properties, "emissionDiesel", EnvironmentVariables.emissionDiesel);
+
+        double withChip = (percentageElectric * electricWithChip) + (percentageFuel * fuelWithChip);
+        double withoutChip = (percentageElectric * electricWithoutChip) + (percentageFuel * fuelWithoutChip);
+        double averageCostThruTollgate = (withChip * passWithChip) + (withoutChip * passWithoutChip);
+        double averageEmissionPrKm = (emissionDiesel * percentageDiesel) + (emissionGasoline * percentageGasoline)
+                + (emissionElectric * percentageElectric);
+
+        return new RateProfile(0,
+                get(properties, "standardRatePrKm", EnvironmentVariables.standardRatePrKm),
+                get(properties, "ferryRate", EnvironmentVariables.ferryRate),
+                get(properties, "averageCostThruTollgate", averageCostThruTollgate),
+                get(properties, "averageEmissionPrKm", averageEmissionPrKm));
+    }
+
+    private static double get(Properties properties, String key, double fallback) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) return fallback;
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid rate for " + key + ": " + value, e);
+        }
+    }
+
+    public RateProfile withVersion(long version) {
+        return new RateProfile(version, standardRatePrKm, ferryRate, averageCostThruTollgate, averageEmissionPrKm);
+    }
+
+    // --- Beregninger (samme formler som DistanceBetweenStops) ---
+
+    public double tollgateCostSaved(boolean tollgate) {
+        return tollgate ? averageCostThruTollgate : 0;
+    }
+
+    public double distanceCostSaved(double distance) {
+        return distance * standardRatePrKm;
+    }
+
+    public double costSaved(double distance, boolean tollgate) {
+        return Math.round((tollgateCostSaved(tollgate) + distanceCostSaved(distance)) - ferryRate);
+    }
+
+    public double emissionSaved(double distance) {
+        return Math.round(distance * averageEmissionPrKm);
+    }
+
+    // --- Gettere ---
+
+    public long getVersion() { return version; }
+    public double getStandardRatePrKm() { return standardRatePrKm; }
+    public double getFerryRate() { return ferryRate; }
+    public double getAverageCostThruTollgate() { return averageCostThruTollgate; }
+    public double getAverageEmissionPrKm() { return averageEmissionPrKm; }
+
+    @Override
+    public String toString() {
+        return "RateProfile[v" + version + ", " + standardRatePrKm + " kr/km, ferge " + ferryRate
+                + " kr, bom " + averageCostThruTollgate + " kr, " + averageEmissionPrKm + " g/km]";
+    }
+}
@@ -0,0 +1,29 @@
+package dto;
+
+import java.util.List;
+
+public class DepartureChangeDTO {
+    private String changeType;
+    private List<Integer> routeIds;
+    private List<DepartureResponseDTO> departures;
+
+    public DepartureChangeDTO() {}
+
+    public DepartureChangeDTO(String changeType, List<Integer> routeIds, List<DepartureResponseDTO> departures) {
+        this.changeType = changeType;
+        this.routeIds = routeIds;
+        this.departures = departures;
+    }
+
+    // --- Gettere / Settere ---
+    // Tom liste betyr at endringen kan gjelde alle ruter
+    public String getChangeType() { return changeType; }
+    public void setChangeType(String changeType) { this.changeType = changeType; }
+
+    public List<Integer> getRouteIds() { return routeIds; }
+    public void setRouteIds(List<Integer> routeIds) { this.routeIds = routeIds; }
+
+    // Dagens avganger fra nå for stopparet, eller null for abonnement på en rute
+    public List<DepartureResponseDTO> getDepartures() { return departures; }
+    public void setDepartures(List<DepartureResponseDTO> departures) { this.departures = departures; }
+}
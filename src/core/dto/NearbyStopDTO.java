@@ -0,0 +1,35 @@
+package dto;
+
+public class NearbyStopDTO {
+    private int id;
+    private String name;
+    private double latitude;
+    private double longitude;
+    private double distanceKm;
+
+    public NearbyStopDTO() {}
+
+    public NearbyStopDTO(int id, String name, double latitude, double longitude, double distanceKm) {
+        this.id = id;
+        this.name = name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.distanceKm = distanceKm;
+    }
+
+    // --- Gettere / Settere ---
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public double getLatitude() { return latitude; }
+    public void setLatitude(double latitude) { this.latitude = latitude; }
+
+    public double getLongitude() { return longitude; }
+    public void setLongitude(double longitude) { this.longitude = longitude; }
+
+    public double getDistanceKm() { return distanceKm; }
+    public void setDistanceKm(double distanceKm) { this.distanceKm = distanceKm; }
+}
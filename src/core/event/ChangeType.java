@@ -0,0 +1,10 @@
+package event;
+
+/**
+ * Hva slags skriveoperasjon som utløste en endringshendelse.
+ */
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
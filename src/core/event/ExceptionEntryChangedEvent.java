@@ -0,0 +1,58 @@
+package event;
+
+import domain.model.ExceptionEntry;
+import domain.model.Weekday;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Et unntak er opprettet, endret eller slettet.
+ *
+ * Et unntak berører enten sin validDate eller alle datoer med samme ukedag.
+ */
+public class ExceptionEntryChangedEvent implements TimetableChangeEvent {
+
+    private final ChangeType changeType;
+    private final List<ExceptionEntry> affected;
+    private final boolean scopeKnown;
+
+    public ExceptionEntryChangedEvent(ChangeType changeType, ExceptionEntry before, ExceptionEntry after) {
+        this(changeType,
+                before != null ? List.of(before) : List.of(),
+                after != null ? List.of(after) : List.of());
+    }
+
+    /**
+     * Én hendelse for en hel batch, slik at øyeblikksbildet bygges på nytt én gang.
+     */
+    public ExceptionEntryChangedEvent(ChangeType changeType, List<ExceptionEntry> before, List<ExceptionEntry> after) {
+        this.changeType = changeType;
+        List<ExceptionEntry> list = new ArrayList<>(before);
+        list.addAll(after);
+        this.affected = List.copyOf(list);
+        this.scopeKnown = !affected.isEmpty();
+    }
+
+    @Override
+    public ChangeType getChangeType() { return changeType; }
+
+    public List<ExceptionEntry> getAffected() { return affected; }
+
+    @Override
+    public boolean touches(LocalDate date) {
+        if (!scopeKnown) return true;
+        Weekday weekday = Weekday.fromLocalDate(date);
+        for (ExceptionEntry ex : affected) {
+            if (date.equals(ex.getValidDate()) || ex.getWeekday() == weekday) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ExceptionEntryChangedEvent[" + changeType + ", " + affected.stream().map(ExceptionEntry::getId).map(Objects::toString).toList() + "]";
+    }
+}
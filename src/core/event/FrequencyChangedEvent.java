@@ -0,0 +1,66 @@
+package event;
+
+import domain.model.Frequency;
+import domain.model.Season;
+import domain.model.Weekday;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * En frekvens er opprettet, endret eller slettet.
+ *
+ * Inneholder både gammel og ny versjon når de er kjent, slik at datoer som
+ * frekvensen flyttes bort fra også regnes som berørt.
+ */
+public class FrequencyChangedEvent implements TimetableChangeEvent {
+
+    private final ChangeType changeType;
+    private final List<Frequency> affected;
+    private final boolean scopeKnown;
+
+    public FrequencyChangedEvent(ChangeType changeType, Frequency before, Frequency after) {
+        this(changeType,
+                before != null ? List.of(before) : List.of(),
+                after != null ? List.of(after) : List.of());
+    }
+
+    /**
+     * Én hendelse for en hel batch, slik at øyeblikksbildet bygges på nytt én gang.
+     */
+    public FrequencyChangedEvent(ChangeType changeType, List<Frequency> before, List<Frequency> after) {
+        this.changeType = changeType;
+        List<Frequency> list = new ArrayList<>(before);
+        list.addAll(after);
+        this.affected = List.copyOf(list);
+        this.scopeKnown = !affected.isEmpty();
+    }
+
+    @Override
+    public ChangeType getChangeType() { return changeType; }
+
+    public List<Frequency> getAffected() { return affected; }
+
+    @Override
+    public boolean touches(LocalDate date) {
+        if (!scopeKnown) return true;
+        Weekday weekday = Weekday.fromLocalDate(date);
+        for (Frequency freq : affected) {
+            if (freq.getWeekday() == weekday && seasonCovers(freq.getSeason(), date)) return true;
+        }
+        return false;
+    }
+
+    private static boolean seasonCovers(Season season, LocalDate date) {
+        if (season == null) return true;
+        if (season.getStartDate() != null && date.isBefore(season.getStartDate())) return false;
+        return season.getEndDate() == null || !date.isAfter(season.getEndDate());
+    }
+
+    @Override
+    public String toString() {
+        return "FrequencyChangedEvent[" + changeType + ", " + affected.stream().map(Frequency::getId).map(Objects::toString).toList() + "]";
+    }
+}
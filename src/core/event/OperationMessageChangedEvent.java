@@ -0,0 +1,54 @@
+package event;
+
+import domain.model.OperationMessage;
+
+import java.time.LocalDate;
+
+/**
+ * En driftsmelding er opprettet, endret, slettet eller har fått ny status.
+ *
+ * Meldingsteksten ligger i de ferdig beregnede dagene via unntakene som peker på den.
+ * Hendelsen vet ikke hvilke unntak det er, så alle datoer regnes som berørt.
+ */
+public class OperationMessageChangedEvent implements TimetableChangeEvent {
+
+    private final ChangeType changeType;
+    private final int messageId;
+    private final int routeId;
+    private final OperationMessage message;
+
+    public OperationMessageChangedEvent(ChangeType changeType, int messageId, OperationMessage message) {
+        this(changeType, messageId, message != null && message.getRoute() != null ? message.getRoute().getId() : 0, message);
+    }
+
+    /**
+     * Brukes ved sletting og statusendring, der meldingen selv ikke følger med.
+     */
+    public OperationMessageChangedEvent(ChangeType changeType, int messageId, int routeId, OperationMessage message) {
+        this.changeType = changeType;
+        this.messageId = messageId;
+        this.routeId = routeId;
+        this.message = message;
+    }
+
+    @Override
+    public ChangeType getChangeType() { return changeType; }
+
+    public int getMessageId() { return messageId; }
+
+    /** Ruten meldingen gjelder, eller 0 hvis den er ukjent. */
+    public int getRouteId() { return routeId; }
+
+    /** Ny versjon av meldingen, eller null ved sletting og statusendring. */
+    public OperationMessage getMessage() { return message; }
+
+    @Override
+    public boolean touches(LocalDate date) {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "OperationMessageChangedEvent[" + changeType + ", " + messageId + "]";
+    }
+}
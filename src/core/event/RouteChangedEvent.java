@@ -0,0 +1,42 @@
+package event;
+
+import domain.model.Route;
+
+import java.time.LocalDate;
+
+/**
+ * En rute er opprettet, endret eller slettet.
+ *
+ * Avgangstidene hører til frekvensene, så ingen ferdig beregnede dager berøres. Rutelisten
+ * og paroppslagene i øyeblikksbildet må likevel bygges på nytt.
+ */
+public class RouteChangedEvent implements TimetableChangeEvent {
+
+    private final ChangeType changeType;
+    private final int routeId;
+    private final Route route;
+
+    public RouteChangedEvent(ChangeType changeType, int routeId, Route route) {
+        this.changeType = changeType;
+        this.routeId = routeId;
+        this.route = route;
+    }
+
+    @Override
+    public ChangeType getChangeType() { return changeType; }
+
+    public int getRouteId() { return routeId; }
+
+    /** Ny versjon av ruten, eller null ved sletting. */
+    public Route getRoute() { return route; }
+
+    @Override
+    public boolean touches(LocalDate date) {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "RouteChangedEvent[" + changeType + ", " + routeId + "]";
+    }
+}
@@ -0,0 +1,43 @@
+package event;
+
+import domain.model.RouteStops;
+
+import java.time.LocalDate;
+
+/**
+ * Et stopp i en rute er lagt til, endret eller fjernet.
+ *
+ * Endringen påvirker hvilke ruter som betjener et stoppar og tidene ved hvert stopp, men
+ * ikke avgangstidene fra første stopp. Ingen ferdig beregnede dager berøres, men
+ * øyeblikksbildet med stopptabeller og paroppslag må bygges på nytt.
+ */
+public class RouteStopsChangedEvent implements TimetableChangeEvent {
+
+    private final ChangeType changeType;
+    private final int routeStopsId;
+    private final RouteStops routeStops;
+
+    public RouteStopsChangedEvent(ChangeType changeType, int routeStopsId, RouteStops routeStops) {
+        this.changeType = changeType;
+        this.routeStopsId = routeStopsId;
+        this.routeStops = routeStops;
+    }
+
+    @Override
+    public ChangeType getChangeType() { return changeType; }
+
+    public int getRouteStopsId() { return routeStopsId; }
+
+    /** Ny versjon av rutestoppet, eller null ved sletting. */
+    public RouteStops getRouteStops() { return routeStops; }
+
+    @Override
+    public boolean touches(LocalDate date) {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "RouteStopsChangedEvent[" + changeType + ", " + routeStopsId + "]";
+    }
+}
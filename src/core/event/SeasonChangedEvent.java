@@ -0,0 +1,50 @@
+package event;
+
+import domain.model.Season;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * En sesong er opprettet, endret eller slettet.
+ *
+ * Berører alle datoer innenfor sesongens periode, både før og etter endringen.
+ */
+public class SeasonChangedEvent implements TimetableChangeEvent {
+
+    private final ChangeType changeType;
+    private final List<Season> affected;
+    private final boolean scopeKnown;
+
+    public SeasonChangedEvent(ChangeType changeType, Season before, Season after) {
+        this.changeType = changeType;
+        List<Season> list = new ArrayList<>();
+        if (before != null) list.add(before);
+        if (after != null) list.add(after);
+        this.affected = List.copyOf(list);
+        this.scopeKnown = !affected.isEmpty();
+    }
+
+    @Override
+    public ChangeType getChangeType() { return changeType; }
+
+    public List<Season> getAffected() { return affected; }
+
+    @Override
+    public boolean touches(LocalDate date) {
+        if (!scopeKnown) return true;
+        for (Season season : affected) {
+            boolean afterStart = season.getStartDate() == null || !date.isBefore(season.getStartDate());
+            boolean beforeEnd = season.getEndDate() == null || !date.isAfter(season.getEndDate());
+            if (afterStart && beforeEnd) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "SeasonChangedEvent[" + changeType + ", " + affected.stream().map(Season::getId).map(Objects::toString).toList() + "]";
+    }
+}
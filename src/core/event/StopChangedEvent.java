@@ -0,0 +1,33 @@
+package event;
+
+import domain.model.Stops;
+
+/**
+ * Et stoppested er opprettet, endret eller slettet.
+ *
+ * Påvirker ikke rutetabellen, men navneoppslag og forslag for stoppesteder må bygges på nytt.
+ */
+public class StopChangedEvent {
+
+    private final ChangeType changeType;
+    private final int stopId;
+    private final Stops stop;
+
+    public StopChangedEvent(ChangeType changeType, int stopId, Stops stop) {
+        this.changeType = changeType;
+        this.stopId = stopId;
+        this.stop = stop;
+    }
+
+    public ChangeType getChangeType() { return changeType; }
+
+    public int getStopId() { return stopId; }
+
+    /** Ny versjon av stoppestedet, eller null ved sletting. */
+    public Stops getStop() { return stop; }
+
+    @Override
+    public String toString() {
+        return "StopChangedEvent[" + changeType + ", " + stopId + "]";
+    }
+}
@@ -0,0 +1,26 @@
+package event;
+
+/**
+ * En avstand mellom to stopp er opprettet, endret eller slettet.
+ *
+ * Påvirker ikke rutetabellen, men miljøbesparelsene per stoppar må beregnes på nytt.
+ */
+public class StopDistanceChangedEvent {
+
+    private final ChangeType changeType;
+    private final int stopDistanceId;
+
+    public StopDistanceChangedEvent(ChangeType changeType, int stopDistanceId) {
+        this.changeType = changeType;
+        this.stopDistanceId = stopDistanceId;
+    }
+
+    public ChangeType getChangeType() { return changeType; }
+
+    public int getStopDistanceId() { return stopDistanceId; }
+
+    @Override
+    public String toString() {
+        return "StopDistanceChangedEvent[" + changeType + ", " + stopDistanceId + "]";
+    }
+}
@@ -0,0 +1,21 @@
+package event;
+
+import java.time.LocalDate;
+
+/**
+ * Felles grensesnitt for endringer som påvirker ruteplanen.
+ *
+ * Publiseres av repository-adapterne etter en vellykket skriving, altså etter at raden er
+ * committet. Batch-skrivinger publiserer én hendelse etter at hele transaksjonen er committet.
+ * Ruter, frekvenser, unntak, sesonger, rutestopp og driftsmeldinger har hver sin type.
+ * Lyttere bruker touches() for å avgjøre hvilke datoer som må beregnes på nytt.
+ */
+public interface TimetableChangeEvent {
+
+    ChangeType getChangeType();
+
+    /**
+     * Returnerer true hvis endringen kan påvirke avgangene på en gitt dato.
+     */
+    boolean touches(LocalDate date);
+}
@@ -4,16 +4,38 @@ import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public interface CRUDRepositoryPort<T> {
     void create(T entity);
 
+    /**
+     * Oppretter alle entitetene og setter id på hver av dem. Adaptere for tabeller med store
+     * importer skriver dem i én transaksjon; standardvarianten kaller create() for hver.
+     */
+    default void createAll(List<T> entities) {
+        entities.forEach(this::create);
+    }
+
     Optional<T> readById(int id);
     List<T> readAll();
 
+    /**
+     * Går gjennom alle rader uten å samle dem i en liste. Adaptere for tabeller som vokser
+     * over tid strømmer radene fra databasen; standardvarianten leser via readAll().
+     */
+    default void forEachAll(Consumer<? super T> action) {
+        readAll().forEach(action);
+    }
+
     void update(T entity);
 
+    /** Oppdaterer alle entitetene. Se createAll(). */
+    default void updateAll(List<T> entities) {
+        entities.forEach(this::update);
+    }
+
     void delete(T entity);
     void deleteById(int id);
 }
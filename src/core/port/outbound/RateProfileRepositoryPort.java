@@ -0,0 +1,12 @@
+package port.outbound;
+
+import domain.model.environment.RateProfile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface RateProfileRepositoryPort {
+    /** Leser gjeldende satser fra kilden, eller tom hvis kilden ikke finnes. */
+    Optional<RateProfile> load();
+}
@@ -2,12 +2,23 @@ package service;
 
 import domain.model.*;
 import dto.DepartureDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import port.outbound.*;
+import service.timetable.CompiledDay;
+import service.timetable.DepartureEffect;
+import service.timetable.DepartureIndexCache;
+import service.timetable.RouteStopTable;
+import service.timetable.TimetableSnapshot;
+import service.timetable.TimetableSnapshotProvider;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public abstract class BaseScheduleService {
@@ -16,150 +27,109 @@ public abstract class BaseScheduleService {
     protected final RouteStopsRepositoryPort routeStopsRepo;
     protected final FrequencyRepositoryPort frequencyRepo;
     protected final ExceptionEntryRepositoryPort exceptionRepo;
+    protected final TimetableSnapshotProvider snapshotProvider;
+    protected final DepartureIndexCache departureIndex;
 
-    public List<Route> allRoutes = new ArrayList<>();
-    protected Map<Integer, List<Frequency>> scheduleMap = new HashMap<>();
+    // Uten Spring brukes det globale registeret, som ikke lagrer noe før et register legges til
+    protected MeterRegistry meterRegistry = Metrics.globalRegistry;
+    private final Map<Integer, Counter> servedByRoute = new ConcurrentHashMap<>();
 
     protected BaseScheduleService(RouteRepositoryPort routeRepo,
                                   RouteStopsRepositoryPort routeStopsRepo,
                                   FrequencyRepositoryPort frequencyRepo,
                                   ExceptionEntryRepositoryPort exceptionRepo) {
+        this(routeRepo, routeStopsRepo, frequencyRepo, exceptionRepo,
+                new DepartureIndexCache(new TimetableSnapshotProvider(routeRepo, routeStopsRepo, frequencyRepo, exceptionRepo)));
+    }
+
+    protected BaseScheduleService(RouteRepositoryPort routeRepo,
+                                  RouteStopsRepositoryPort routeStopsRepo,
+                                  FrequencyRepositoryPort frequencyRepo,
+                                  ExceptionEntryRepositoryPort exceptionRepo,
+                                  DepartureIndexCache departureIndex) {
         this.routeRepo = routeRepo;
         this.routeStopsRepo = routeStopsRepo;
         this.frequencyRepo = frequencyRepo;
         this.exceptionRepo = exceptionRepo;
+        this.departureIndex = departureIndex;
+        this.snapshotProvider = departureIndex.getSnapshotProvider();
     }
 
 
-    // --- Bygger ruteplan for en gitt dato ---
-    protected void buildSchedule(LocalDate referenceDate) {
-        allRoutes = routeRepo.readAll();
-        List<RouteStops> allRouteStops = routeStopsRepo.readAll();
-
-        for (Route route : allRoutes) {
-            List<RouteStops> routeStops = new ArrayList<>();
-            for (RouteStops rs : allRouteStops) {
-                if (rs.getRoute() != null && rs.getRoute().getId() == route.getId()) {
-                    routeStops.add(rs);
-                }
-            }
-            routeStops.sort(Comparator.comparingInt(RouteStops::getRouteOrder));
-            for (int i = 0; i < routeStops.size(); i++) routeStops.get(i).setRouteOrder(i + 1);
-            route.setAllRouteStops(routeStops);
-        }
+    // --- Hent avganger ---
 
-        Weekday weekday = Weekday.fromLocalDate(referenceDate);
-        scheduleMap.clear();
+    /**
+     * Finner avganger mellom to stopp på en dato. Er travelTime satt, tas bare avganger fra
+     * fromStop på eller etter travelTime med. DTO-er lages kun for avgangene som returneres.
+     */
+    protected List<DepartureDTO> findDepartures(Stops fromStop, Stops toStop,
+                                                LocalDate travelDate, LocalTime travelTime) {
+        if (fromStop == null || toStop == null) return Collections.emptyList();
 
-        for (Route route : allRoutes) {
-            List<Frequency> activeFrequencies = frequencyRepo.findActiveForRouteAndDate(route, referenceDate);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<DepartureDTO> departures = collectDepartures(fromStop, toStop, travelDate, travelTime);
+        sample.stop(meterRegistry.timer("ferry.schedule.find", "window", travelTime != null ? "from-time" : "whole-day"));
+        return departures;
+    }
 
-            // Filtrer frekvenser utenfor aktiv sesong
-            activeFrequencies.removeIf(freq -> freq.getSeason() != null &&
-                    (freq.getSeason().getStartDate() != null && referenceDate.isBefore(freq.getSeason().getStartDate())
-                            || freq.getSeason().getEndDate() != null && referenceDate.isAfter(freq.getSeason().getEndDate()))
-            );
+    private List<DepartureDTO> collectDepartures(Stops fromStop, Stops toStop,
+                                                 LocalDate travelDate, LocalTime travelTime) {
+        // Planen for dagen hentes fra øyeblikksbildet og den ferdig beregnede dagen, uten databasekall
+        TimetableSnapshot snapshot = snapshotProvider.current();
+        CompiledDay day = departureIndex.get(travelDate);
 
-            if (activeFrequencies.isEmpty()) {
-                activeFrequencies = frequencyRepo.findByRouteAndWeekday(route, weekday);
-                activeFrequencies.removeIf(freq -> freq.getSeason() != null &&
-                        (freq.getSeason().getStartDate() != null && referenceDate.isBefore(freq.getSeason().getStartDate())
-                                || freq.getSeason().getEndDate() != null && referenceDate.isAfter(freq.getSeason().getEndDate()))
-                );
-            }
+        int earliest = travelTime != null ? CompiledDay.toMinuteOfDayRoundedUp(travelTime) : 0;
 
-            Map<LocalTime, Frequency> uniqueFreq = new HashMap<>();
-            for (Frequency freq : activeFrequencies) {
-                for (LocalTime dep : freq.getDepartureTimes()) {
-                    uniqueFreq.putIfAbsent(dep, freq);
-                }
-            }
-            scheduleMap.put(route.getId(), new ArrayList<>(uniqueFreq.values()));
-        }
-    }
+        List<DepartureDTO> departures = new ArrayList<>();
 
-    // --- Hent avganger ---
-    protected List<DepartureDTO> findDepartures(Stops fromStop, Stops toStop,
-                                                LocalDate travelDate, LocalTime travelTime) {
-        if (fromStop == null || toStop == null) return Collections.emptyList();
+        // Bare rutene som betjener stopparet i riktig rekkefølge
+        for (Route route : snapshot.getRoutesServing(fromStop.getId(), toStop.getId())) {
+            RouteStopTable stopTable = snapshot.getStopTable(route.getId());
+            if (!stopTable.servesInOrder(fromStop.getId(), toStop.getId())) continue;
+            int before = departures.size();
 
-        // Bygg planen for dagen
-        buildSchedule(travelDate);
+            int fromOffset = stopTable.getMinutesFromStart(fromStop.getId());
+            int toOffset = stopTable.getMinutesFromStart(toStop.getId());
+            int[] minutes = day.getDepartureMinutes(route.getId());
 
-        Weekday weekday = Weekday.fromLocalDate(travelDate);
-        List<DepartureDTO> departures = new ArrayList<>();
+            // De seneste avgangene passerer fromStop etter midnatt. Tabellen søkes derfor
+            // i to sorterte utsnitt: avganger før og etter midnatt ved fromStop.
+            int shift = Math.floorMod(fromOffset, CompiledDay.MINUTES_PER_DAY);
+            int wrapAt = CompiledDay.lowerBound(minutes, 0, minutes.length, CompiledDay.MINUTES_PER_DAY - shift);
+            int sameDay = CompiledDay.lowerBound(minutes, 0, wrapAt, earliest - shift);
+            int nextDay = CompiledDay.lowerBound(minutes, wrapAt, minutes.length, earliest - shift + CompiledDay.MINUTES_PER_DAY);
 
-        for (Route route : allRoutes) {
-            final Route currentRoute = route;
-            final LocalDate dateForLambda = travelDate;
-
-            if (!routeHasStopsInOrder(currentRoute, fromStop, toStop)) continue;
-
-            List<Frequency> routeFrequencies = scheduleMap.getOrDefault(currentRoute.getId(), Collections.emptyList());
-
-            Set<ExceptionEntry> activeExceptions = new HashSet<>();
-            activeExceptions.addAll(exceptionRepo.findActiveForRouteAndDate(currentRoute, travelDate));
-            activeExceptions.addAll(exceptionRepo.findActiveForRouteAndWeekday(currentRoute, weekday));
-            activeExceptions.addAll(exceptionRepo.findActiveForStopAndDate(fromStop, travelDate).stream()
-                    .filter(ex -> ex.getRoute() != null
-                            && ex.getRoute().getId() == currentRoute.getId()
-                            && isExceptionActiveForDateAndSeason(ex, dateForLambda))
-                    .collect(Collectors.toList()));
-            activeExceptions.addAll(exceptionRepo.findActiveForStopAndWeekday(fromStop, weekday).stream()
-                    .filter(ex -> ex.getRoute() != null
-                            && ex.getRoute().getId() == currentRoute.getId()
-                            && isExceptionActiveForDateAndSeason(ex, dateForLambda))
-                    .collect(Collectors.toList()));
-
-            Set<LocalTime> addedDepartures = new HashSet<>();
-
-            for (Frequency freq : routeFrequencies) {
-                for (LocalTime firstStopDeparture : freq.getDepartureTimes()) {
-                    int fromOffset = getMinutesFromStart(currentRoute, fromStop);
-                    int toOffset = getMinutesFromStart(currentRoute, toStop);
-
-                    LocalTime plannedDeparture = firstStopDeparture.plusMinutes(fromOffset);
-                    LocalTime arrivalTime = firstStopDeparture.plusMinutes(toOffset);
-
-                    if (addedDepartures.contains(plannedDeparture)) continue;
-
-                    boolean skip = activeExceptions.stream()
-                            .anyMatch(ex -> ex.affectsStop(fromStop)
-                                    && ex.getDepartureTime().equals(firstStopDeparture)
-                                    && (ex.isCancelled() || ex.isOmitted()));
-                    if (skip) continue;
-
-
-                    String operationMessage = activeExceptions.stream()
-                            .filter(ex -> ex.getDepartureTime().equals(firstStopDeparture))
-                            .map(ex -> ex.getOperationMessage() != null ? ex.getOperationMessage().getMessage() : null)
-                            .filter(Objects::nonNull)
-                            .findFirst().orElse(null);
-
-                    departures.add(createDepartureDTO(currentRoute, fromStop, toStop,
-                            travelDate, plannedDeparture, arrivalTime, false, operationMessage));
-                    addedDepartures.add(plannedDeparture);
-                }
-            }
+            addScheduledDepartures(departures, day, route, fromStop, toStop, travelDate,
+                    minutes, sameDay, wrapAt, fromOffset, toOffset);
+            addScheduledDepartures(departures, day, route, fromStop, toStop, travelDate,
+                    minutes, nextDay, minutes.length, fromOffset, toOffset);
 
             // Ekstraavganger
-            for (ExceptionEntry ex : activeExceptions) {
-                if (!ex.isExtra() || !ex.affectsStop(fromStop)) continue;
-                if (ex.getRoute() == null || ex.getRoute().getId() != currentRoute.getId()) continue;
-
-                int fromOffset = getMinutesFromStart(currentRoute, fromStop);
-                int toOffset = getMinutesFromStart(currentRoute, toStop);
+            BitSet addedExtras = null;
+            for (ExceptionEntry ex : day.getExtras(route.getId())) {
+                if (!ex.affectsStop(fromStop)) continue;
 
+                int firstStopMinute = CompiledDay.toMinuteOfDay(ex.getDepartureTime());
                 LocalTime plannedDeparture = ex.getDepartureTime().plusMinutes(fromOffset);
                 LocalTime arrivalTime = ex.getDepartureTime().plusMinutes(toOffset);
 
-                if (addedDepartures.contains(plannedDeparture)) continue;
+                if (travelTime != null && plannedDeparture.isBefore(travelTime)) continue;
+
+                // Dekkes allerede av en ordinær avgang som ikke er innstilt
+                DepartureEffect effect = day.getEffect(route.getId(), firstStopMinute);
+                if (Arrays.binarySearch(minutes, firstStopMinute) >= 0
+                        && !effect.isCancelledAt(fromStop.getId())) continue;
 
-                departures.add(createDepartureDTO(currentRoute, fromStop, toStop,
-                        travelDate, plannedDeparture, arrivalTime, true,
+                if (addedExtras == null) addedExtras = new BitSet(CompiledDay.MINUTES_PER_DAY);
+                if (addedExtras.get(firstStopMinute)) continue;
+
+                departures.add(createDepartureDTO(route, fromStop, toStop,
+                        travelDate, plannedDeparture, arrivalTime, true, effect.isDelayedAt(fromStop.getId()),
                         ex.getOperationMessage() != null ? ex.getOperationMessage().getMessage() : null));
-                addedDepartures.add(plannedDeparture);
+                addedExtras.set(firstStopMinute);
             }
+
+            if (departures.size() > before) servedBy(route).increment(departures.size() - before);
         }
 
         departures.sort(Comparator.comparing(DepartureDTO::getPlannedDeparture));
@@ -167,34 +137,37 @@ public abstract class BaseScheduleService {
         return departures;
     }
 
-    private boolean isExceptionActiveForDateAndSeason(ExceptionEntry ex, LocalDate date) {
-        if (ex.getSeason() == null) return true;
-        LocalDate start = ex.getSeason().getStartDate();
-        LocalDate end = ex.getSeason().getEndDate();
-        return (start == null || !date.isBefore(start)) && (end == null || !date.isAfter(end));
-    }
-
-    protected boolean routeHasStopsInOrder(Route route, Stops fromStop, Stops toStop) {
-        List<RouteStops> stops = route.getStops();
-        int fromIndex = -1, toIndex = -1;
-        for (int i = 0; i < stops.size(); i++) {
-            if (stops.get(i).getStop().getId() == fromStop.getId()) fromIndex = i;
-            if (stops.get(i).getStop().getId() == toStop.getId()) toIndex = i;
+    private void addScheduledDepartures(List<DepartureDTO> departures, CompiledDay day, Route route,
+                                        Stops fromStop, Stops toStop, LocalDate travelDate,
+                                        int[] minutes, int start, int end,
+                                        int fromOffset, int toOffset) {
+        for (int i = start; i < end; i++) {
+            int firstStopMinute = minutes[i];
+
+            // Ett oppslag gir kansellering, forsinkelse og melding for avgangen
+            DepartureEffect effect = day.getEffect(route.getId(), firstStopMinute);
+            if (effect != null && effect.isCancelledAt(fromStop.getId())) continue;
+
+            LocalTime firstStopDeparture = CompiledDay.toLocalTime(firstStopMinute);
+            departures.add(createDepartureDTO(route, fromStop, toStop, travelDate,
+                    firstStopDeparture.plusMinutes(fromOffset),
+                    firstStopDeparture.plusMinutes(toOffset),
+                    false,
+                    effect != null && effect.isDelayedAt(fromStop.getId()),
+                    effect != null ? effect.getMessage() : null));
         }
-        return fromIndex >= 0 && toIndex >= 0 && fromIndex < toIndex;
     }
 
-    protected int getMinutesFromStart(Route route, Stops stop) {
-        return route.getStops().stream()
-                .filter(rs -> rs.getStop().getId() == stop.getId())
-                .findFirst()
-                .map(RouteStops::getTimeFromStart)
-                .orElse(0);
+    // Én teller per rute, slik at oppslaget i registeret ikke gjøres for hvert søk
+    private Counter servedBy(Route route) {
+        return servedByRoute.computeIfAbsent(route.getId(), id -> meterRegistry.counter(
+                "ferry.departures.served", "route", String.valueOf(route.getRouteNum())));
     }
 
     protected DepartureDTO createDepartureDTO(Route route, Stops fromStop, Stops toStop,
                                               LocalDate travelDate, LocalTime plannedDeparture,
-                                              LocalTime arrivalTime, boolean isExtra, String operationMessage) {
+                                              LocalTime arrivalTime, boolean isExtra, boolean isDelayed,
+                                              String operationMessage) {
         DepartureDTO dto = new DepartureDTO(
                 route.getId(),
                 fromStop.getId(),
@@ -205,7 +178,7 @@ public abstract class BaseScheduleService {
                 plannedDeparture,
                 arrivalTime,
                 isExtra,
-                false,
+                isDelayed,
                 false,
                 false,
                 0,
@@ -215,4 +188,12 @@ public abstract class BaseScheduleService {
         return dto;
     }
 
+    // --- Konfigurasjon ---
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        servedByRoute.clear();
+    }
+
 }
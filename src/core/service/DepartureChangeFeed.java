@@ -0,0 +1,332 @@
+package service;
+
+import domain.model.ExceptionEntry;
+import domain.model.Route;
+import domain.model.Stops;
+import domain.model.TimeMode;
+import dto.DepartureChangeDTO;
+import dto.DepartureRequestDTO;
+import dto.DepartureResponseDTO;
+import event.ExceptionEntryChangedEvent;
+import event.OperationMessageChangedEvent;
+import event.TimetableChangeEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import service.timetable.TimetableSnapshot;
+import service.timetable.TimetableSnapshotProvider;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sender endringer i dagens avganger til abonnenter, i stedet for at klientene spør på nytt.
+ *
+ * Et abonnement gjelder enten et stoppar eller en rute. Når et unntak eller en driftsmelding
+ * endres, får abonnentene som berøres en melding. Stopparene får i tillegg dagens avganger
+ * fra nå, beregnet én gang per stoppar uansett hvor mange som lytter. Utsendingen skjer på en
+ * egen tråd, slik at skrivingen som utløste endringen ikke venter på klientene.
+ *
+ * Hver abonnent har en egen kort kø som tømmes av en felles trådpool, én oppgave per abonnent
+ * om gangen. En treg klient holder derfor bare igjen sine egne meldinger. Blir køen full,
+ * avsluttes abonnementet i stedet for at meldinger hoper seg opp.
+ */
+@Component
+public class DepartureChangeFeed {
+
+    private static final long HEARTBEAT_SECONDS = 30;
+    private static final int DELIVERY_THREADS = 4;
+    /** Så mange meldinger kan vente på én klient før den regnes som for treg. */
+    private static final int MAX_PENDING = 16;
+
+    /**
+     * Mottaker for ett abonnement. Kaster mottakeren, avsluttes abonnementet.
+     */
+    public interface Listener {
+        void onChange(DepartureChangeDTO change) throws Exception;
+
+        /** Holder forbindelsen åpen gjennom proxyer når det ikke skjer noe. */
+        void onHeartbeat() throws Exception;
+
+        /** Abonnementet er avsluttet fra vår side (treg klient eller nedstenging). */
+        default void onClose() {
+        }
+    }
+
+    /** Én melding i køen til en abonnent. */
+    private interface Message {
+        void sendTo(Listener listener) throws Exception;
+    }
+
+    private final ScheduleService scheduleService;
+    private final TimetableSnapshotProvider snapshotProvider;
+    private final Executor sender;
+    private final Executor delivery;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService heartbeat;
+    private volatile boolean closed;
+
+    // for testing
+    private Clock clock = Clock.systemDefaultZone();
+
+    @Autowired
+    public DepartureChangeFeed(ScheduleService scheduleService, TimetableSnapshotProvider snapshotProvider) {
+        this(scheduleService, snapshotProvider,
+                Executors.newSingleThreadExecutor(daemon("departure-feed")),
+                Executors.newFixedThreadPool(DELIVERY_THREADS, daemon("departure-feed-delivery")));
+
+        heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("departure-feed-heartbeat"));
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeats, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public DepartureChangeFeed(ScheduleService scheduleService, TimetableSnapshotProvider snapshotProvider,
+                               Executor executor) {
+        this(scheduleService, snapshotProvider, executor, executor);
+    }
+
+    /**
+     * @param sender   beregner hva som skal sendes etter en endring
+     * @param delivery tømmer køene til abonnentene
+     */
+    public DepartureChangeFeed(ScheduleService scheduleService, TimetableSnapshotProvider snapshotProvider,
+                               Executor sender, Executor delivery) {
+        this.scheduleService = scheduleService;
+        this.snapshotProvider = snapshotProvider;
+        this.sender = sender;
+        this.delivery = delivery;
+    }
+
+    /**
+     * Stopper utsendingen og avslutter alle åpne abonnementer, slik at klientene kobles fra ryddig.
+     */
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        if (heartbeat != null) heartbeat.shutdownNow();
+        if (sender instanceof ExecutorService service) service.shutdownNow();
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+        if (delivery instanceof ExecutorService service) service.shutdownNow();
+    }
+
+    // --- Abonnement ---
+
+    /**
+     * Abonnerer på avgangene mellom to stopp. Gjeldende avganger sendes med en gang.
+     */
+    public Subscription subscribeStopPair(Stops fromStop, Stops toStop, Listener listener) {
+        Subscription subscription = new Subscription(fromStop, toStop, 0, listener);
+        subscriptions.add(subscription);
+        if (!submit(() -> deliver(List.of(subscription), new DepartureChangeDTO(
+                "INITIAL", List.of(), departuresFor(fromStop, toStop))))) {
+            subscription.close();
+        }
+        return subscription;
+    }
+
+    /**
+     * Abonnerer på endringer som gjelder en rute.
+     */
+    public Subscription subscribeRoute(int routeId, Listener listener) {
+        Subscription subscription = new Subscription(null, null, routeId, listener);
+        subscriptions.add(subscription);
+        if (closed) subscription.close();
+        return subscription;
+    }
+
+    public int getSubscriberCount() { return subscriptions.size(); }
+
+    // --- Endringer ---
+
+    /**
+     * Kjører etter cachene for ruteplanen, slik at avgangene som sendes er beregnet fra det nye bildet.
+     * Kjører i tråden som skrev endringen, så feil her skal aldri nå skrivingen.
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onTimetableChange(TimetableChangeEvent event) {
+        Set<Integer> routeIds;
+        if (event instanceof ExceptionEntryChangedEvent exceptionEvent) {
+            routeIds = routeIdsOf(exceptionEvent);
+        } else if (event instanceof OperationMessageChangedEvent messageEvent) {
+            routeIds = messageEvent.getRouteId() != 0 ? Set.of(messageEvent.getRouteId()) : Set.of();
+        } else {
+            return;
+        }
+        if (subscriptions.isEmpty() || !event.touches(LocalDate.now(clock))) return;
+
+        String changeType = event.getChangeType().name();
+        submit(() -> publish(changeType, routeIds));
+    }
+
+    // Usann hvis strømmen er stengt, f.eks. mens konteksten lukkes
+    private boolean submit(Runnable task) {
+        if (closed) return false;
+        try {
+            sender.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            System.err.println("Departure feed is shut down, change not sent: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void publish(String changeType, Set<Integer> routeIds) {
+        TimetableSnapshot snapshot = snapshotProvider.current();
+        List<Integer> routeIdList = List.copyOf(routeIds);
+
+        // Abonnentene på samme stoppar får samme liste, så den beregnes bare én gang
+        Map<List<Integer>, List<Subscription>> byPair = new HashMap<>();
+        List<Subscription> byRoute = new ArrayList<>();
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.isAffectedBy(routeIds, snapshot)) continue;
+            if (subscription.routeId != 0) byRoute.add(subscription);
+            else byPair.computeIfAbsent(subscription.pairKey(), key -> new ArrayList<>()).add(subscription);
+        }
+
+        deliver(byRoute, new DepartureChangeDTO(changeType, routeIdList, null));
+        for (List<Subscription> group : byPair.values()) {
+            Subscription first = group.get(0);
+            deliver(group, new DepartureChangeDTO(changeType, routeIdList,
+                    departuresFor(first.fromStop, first.toStop)));
+        }
+    }
+
+    private List<DepartureResponseDTO> departuresFor(Stops fromStop, Stops toStop) {
+        return scheduleService.getDepartures(new DepartureRequestDTO(
+                fromStop.getName(), toStop.getName(), null, null, TimeMode.NOW));
+    }
+
+    private void deliver(List<Subscription> targets, DepartureChangeDTO change) {
+        for (Subscription subscription : targets) {
+            subscription.enqueue(listener -> listener.onChange(change));
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (Subscription subscription : subscriptions) {
+            subscription.enqueue(Listener::onHeartbeat);
+        }
+    }
+
+    /** Tom mengde betyr at ruten er ukjent, og at alle abonnenter kan være berørt. */
+    private static Set<Integer> routeIdsOf(ExceptionEntryChangedEvent event) {
+        Set<Integer> routeIds = new HashSet<>();
+        for (ExceptionEntry ex : event.getAffected()) {
+            if (ex.getRoute() != null) routeIds.add(ex.getRoute().getId());
+        }
+        return routeIds;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // for testing
+    public void setClock(Clock clock) { this.clock = clock; }
+
+    /**
+     * Ett abonnement. cancel() kalles når klienten kobler fra.
+     */
+    public final class Subscription {
+        private final Stops fromStop;
+        private final Stops toStop;
+        private final int routeId;
+        private final Listener listener;
+        private final BlockingQueue<Message> pending = new ArrayBlockingQueue<>(MAX_PENDING);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean cancelled;
+
+        private Subscription(Stops fromStop, Stops toStop, int routeId, Listener listener) {
+            this.fromStop = fromStop;
+            this.toStop = toStop;
+            this.routeId = routeId;
+            this.listener = listener;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            pending.clear();
+        }
+
+        // Avslutter fra vår side, og ber mottakeren lukke forbindelsen
+        private void close() {
+            if (cancelled) return;
+            cancel();
+            try {
+                listener.onClose();
+            } catch (RuntimeException e) {
+                // Forbindelsen er allerede borte
+            }
+        }
+
+        private void enqueue(Message message) {
+            if (cancelled) return;
+            if (!pending.offer(message)) {
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        // Høyst én oppgave per abonnent, så meldingene kommer i rekkefølge
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) return;
+            try {
+                delivery.execute(this::drain);
+            } catch (RuntimeException e) {
+                // Poolen er stengt
+                draining.set(false);
+                close();
+            }
+        }
+
+        private void drain() {
+            Message message;
+            while (!cancelled && (message = pending.poll()) != null) {
+                try {
+                    message.sendTo(listener);
+                } catch (Exception e) {
+                    cancel();
+                }
+            }
+            draining.set(false);
+            // En melding kan ha kommet etter siste poll, men før draining ble nullstilt
+            if (!cancelled && !pending.isEmpty()) scheduleDrain();
+        }
+
+        private List<Integer> pairKey() {
+            return List.of(fromStop.getId(), toStop.getId());
+        }
+
+        private boolean isAffectedBy(Set<Integer> routeIds, TimetableSnapshot snapshot) {
+            if (routeIds.isEmpty()) return true;
+            if (routeId != 0) return routeIds.contains(routeId);
+            for (Route route : snapshot.getRoutesServing(fromStop.getId(), toStop.getId())) {
+                if (routeIds.contains(route.getId())) return true;
+            }
+            return false;
+        }
+    }
+}
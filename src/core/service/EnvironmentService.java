@@ -2,40 +2,218 @@ package service;
 
 import domain.model.environment.DistanceBetweenStops;
 import domain.model.environment.EnvironmentVariables;
+import domain.model.environment.RateProfile;
 import dto.EnvironmentDTO;
+import event.StopDistanceChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import port.outbound.RateProfileRepositoryPort;
 import port.outbound.StopDistanceRepositoryPort;
 import org.springframework.stereotype.Service;
+import service.environment.SavingsMatrix;
+import service.timetable.TimetableSnapshotProvider;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class EnvironmentService {
 
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(10);
+
     private final StopDistanceRepositoryPort stopDistanceRepository;
+    private final TimetableSnapshotProvider snapshotProvider;
+    private final RateProfileRepositoryPort rateRepository;
+
+    // Besparelser for alle stoppar, beregnet ved første oppslag. Matrisen bærer satsene den er
+    // beregnet med, så en leser ser alltid satser og besparelser fra samme profil.
+    private final AtomicReference<SavingsMatrix> matrix = new AtomicReference<>();
+    // Par som heller ikke finnes i databasen, slik at de ikke slås opp igjen før neste bygging
+    private final Set<Long> missingPairs = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicLong rateVersions = new AtomicLong();
+    private volatile RateProfile rates;
+
+    private Duration maxAge = DEFAULT_MAX_AGE;
+    private Clock clock = Clock.systemDefaultZone();
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
 
     public EnvironmentService(StopDistanceRepositoryPort stopDistanceRepository) {
+        this(stopDistanceRepository, null, null);
+    }
+
+    public EnvironmentService(StopDistanceRepositoryPort stopDistanceRepository,
+                              TimetableSnapshotProvider snapshotProvider) {
+        this(stopDistanceRepository, snapshotProvider, null);
+    }
+
+    /**
+     * Med øyeblikksbildet av rutene dekker matrisen også alle par langs en rute, ikke bare
+     * parene som har en egen rad i stopDistance. Satsene leses fra rateRepository, eller fra
+     * {@link EnvironmentVariables} hvis den mangler eller er tom.
+     */
+    @Autowired
+    public EnvironmentService(StopDistanceRepositoryPort stopDistanceRepository,
+                              TimetableSnapshotProvider snapshotProvider,
+                              RateProfileRepositoryPort rateRepository) {
         this.stopDistanceRepository = stopDistanceRepository;
+        this.snapshotProvider = snapshotProvider;
+        this.rateRepository = rateRepository;
     }
 
     /**
      * Beregn miljøbesparelser mellom to stop IDs.
+     *
+     * Slås opp i den ferdig beregnede matrisen. Par som mangler der (for eksempel avstander
+     * lagt inn etter at matrisen ble bygget) hentes fra databasen, men bare én gang per bygging.
      */
     public EnvironmentDTO calculateSavings(int fromStopId, int toStopId) {
-        DistanceBetweenStops route = stopDistanceRepository.findByFromAndTo(fromStopId, toStopId);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String source = "matrix";
+        try {
+            SavingsMatrix savings = getSavingsMatrix();
+            if (savings.contains(fromStopId, toStopId)) {
+                return new EnvironmentDTO(savings.getCostSaved(fromStopId, toStopId),
+                        savings.getEmissionSaved(fromStopId, toStopId));
+            }
+            source = "database";
+            return lookupMissing(savings, fromStopId, toStopId);
+        } catch (RuntimeException e) {
+            source = "missing";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("ferry.environment.savings", "source", source));
+        }
+    }
 
+    private EnvironmentDTO lookupMissing(SavingsMatrix savings, int fromStopId, int toStopId) {
+        long pair = ((long) fromStopId << 32) | (toStopId & 0xffffffffL);
+        DistanceBetweenStops route = missingPairs.contains(pair) ? null
+                : stopDistanceRepository.findByFromAndTo(fromStopId, toStopId);
 
         if (route == null) {
+            missingPairs.add(pair);
             throw new RuntimeException("Route not found: " + fromStopId + " -> " + toStopId);
         }
-        DistanceBetweenStops calculationRoute = new DistanceBetweenStops(route.getFromStop(),route.getToStop(), route.getDistance(), route.isTollgate());
 
-        double tollSaved = calculationRoute.tollgateCostSaved();
-                // route.isTollgate() ? EnvironmentVariables.averageCostThruTollgate : 0;
-        double distanceSaved = calculationRoute.distanceCostSaved();
-                // route.getDistance() * EnvironmentVariables.standardRatePrKm;
-        double totalCostSaved = calculationRoute.getCostSaved();
-                // Math.round(tollSaved + distanceSaved - EnvironmentVariables.ferryRate);
-        double emissionSaved = calculationRoute.emissionSaved();
-                // Math.round(route.getDistance() * EnvironmentVariables.averageEmissionPrKm);
+        // Samme satser som matrisen, også når den byttes ut mens vi regner
+        RateProfile profile = savings.getRates();
+        return new EnvironmentDTO(profile.costSaved(route.getDistance(), route.isTollgate()),
+                profile.emissionSaved(route.getDistance()));
+    }
+
+    // --- Matrise ---
+
+    /**
+     * Returnerer gjeldende matrise. Bygges på nytt hvis den mangler, er utløpt eller ble
+     * beregnet fra et eldre øyeblikksbilde. Er den bare utløpt, bygger én tråd den nye mens
+     * de andre fortsetter med den gamle.
+     */
+    public SavingsMatrix getSavingsMatrix() {
+        SavingsMatrix current = matrix.get();
+        if (current != null && isFresh(current)) return current;
+
+        if (current != null) {
+            if (!rebuildLock.tryLock()) return current;
+        } else {
+            rebuildLock.lock();
+        }
+        try {
+            current = matrix.get();
+            if (current != null && isFresh(current)) return current;
+            return rebuild(getRates());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private SavingsMatrix rebuild(RateProfile profile) {
+        SavingsMatrix next = SavingsMatrix.of(stopDistanceRepository.readAll(),
+                snapshotProvider != null ? snapshotProvider.current() : null,
+                profile, Instant.now(clock));
+        matrix.set(next);
+        missingPairs.clear();
+        return next;
+    }
+
+    @EventListener
+    public void onStopDistanceChange(StopDistanceChangedEvent event) {
+        invalidate();
+    }
+
+    /**
+     * Forkaster matrisen slik at neste oppslag beregner den på nytt.
+     */
+    public void invalidate() {
+        matrix.set(null);
+        missingPairs.clear();
+    }
+
+    private boolean isFresh(SavingsMatrix savings) {
+        return !savings.getBuiltAt().plus(maxAge).isBefore(Instant.now(clock))
+                && (snapshotProvider == null || savings.getSnapshotVersion() == snapshotProvider.current().getVersion());
+    }
+
+    // --- Satser ---
+
+    /**
+     * Gjeldende satser. Leses fra kilden ved første bruk.
+     */
+    public RateProfile getRates() {
+        RateProfile profile = rates;
+        if (profile != null) return profile;
+
+        rebuildLock.lock();
+        try {
+            if (rates == null) {
+                Optional<RateProfile> loaded = rateRepository != null ? rateRepository.load() : Optional.empty();
+                rates = loaded.orElseGet(RateProfile::fromEnvironmentVariables)
+                        .withVersion(rateVersions.incrementAndGet());
+            }
+            return rates;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Leser satsene på nytt fra kilden og beregner matrisen med dem før den byttes ut.
+     * Lesere bruker den gamle matrisen til den nye er ferdig, og blokkeres ikke.
+     *
+     * @return den nye profilen, eller tom hvis kilden ikke finnes
+     */
+    public Optional<RateProfile> reloadRates() {
+        Optional<RateProfile> loaded = rateRepository != null ? rateRepository.load() : Optional.empty();
+        if (loaded.isEmpty()) return Optional.empty();
 
-        return new EnvironmentDTO(totalCostSaved, emissionSaved);
+        rebuildLock.lock();
+        try {
+            RateProfile next = loaded.get().withVersion(rateVersions.incrementAndGet());
+            rebuild(next);
+            rates = next;
+            return Optional.of(next);
+        } finally {
+            rebuildLock.unlock();
+        }
     }
+
+    // --- Konfigurasjon ---
+
+    public void setMaxAge(Duration maxAge) { this.maxAge = maxAge; }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) { this.meterRegistry = meterRegistry; }
+
+    // for testing
+    public void setClock(Clock clock) { this.clock = clock; }
 }
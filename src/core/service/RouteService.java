@@ -3,6 +3,8 @@ package service;
 import domain.model.Route;
 import domain.model.RouteStops;
 import domain.model.Stops;
+import domain.model.util.MathUtil;
+import dto.NearbyStopDTO;
 import dto.RouteDTO;
 import dto.RouteStopDTO;
 import dto.StopDTO;
@@ -19,13 +21,19 @@ public class RouteService {
     private final RouteRepositoryPort routeRepo;
     private final RouteStopsRepositoryPort routeStopsRepo;
     private final StopsRepositoryPort stopsRepo;
+    private final StopResolver stopResolver;
+    private final StopSpatialIndex stopIndex;
 
     public RouteService(RouteRepositoryPort routeRepo,
                         RouteStopsRepositoryPort routeStopsRepo,
-                        StopsRepositoryPort stopsRepo) {
+                        StopsRepositoryPort stopsRepo,
+                        StopResolver stopResolver,
+                        StopSpatialIndex stopIndex) {
         this.routeRepo = routeRepo;
         this.routeStopsRepo = routeStopsRepo;
         this.stopsRepo = stopsRepo;
+        this.stopResolver = stopResolver;
+        this.stopIndex = stopIndex;
     }
 
     // --- Hent alle stopp som DTO ---
@@ -35,6 +43,30 @@ public class RouteService {
                 .toList();
     }
 
+    // --- Forslag til stopp for autoutfylling ---
+    public List<StopDTO> suggestStopsDTO(String query, int limit) {
+        return stopResolver.suggest(query, limit).stream()
+                .map(this::toStopDTO)
+                .toList();
+    }
+
+    // --- Nærmeste stopp til en posisjon ---
+    // Med radius: alle stopp innenfor radiusKm. Uten: de limit nærmeste.
+    public List<NearbyStopDTO> findNearbyStopsDTO(double latitude, double longitude, Double radiusKm, int limit) {
+        List<StopSpatialIndex.Nearby> hits = radiusKm != null
+                ? stopIndex.withinRadius(latitude, longitude, radiusKm, limit)
+                : stopIndex.nearest(latitude, longitude, limit);
+
+        return hits.stream()
+                .map(hit -> new NearbyStopDTO(
+                        hit.getStop().getId(),
+                        hit.getStop().getName(),
+                        hit.getStop().getLatitude(),
+                        hit.getStop().getLongitude(),
+                        MathUtil.round(hit.getDistanceKm(), 3)))
+                .toList();
+    }
+
     // --- Hent alle ruter med stopp som DTO ---
     public List<RouteDTO> getAllRoutesDTO() {
         List<Route> routes = routeRepo.findAllActive();
@@ -4,9 +4,16 @@ import domain.model.*;
 import dto.DepartureDTO;
 import dto.DepartureRequestDTO;
 import dto.DepartureResponseDTO;
+import dto.EnvironmentDTO;
 import dto.ScheduleDTO;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import port.outbound.*;
+import service.timetable.CompiledDay;
+import service.timetable.DepartureIndexCache;
+import service.timetable.FullDayTimetable;
+import service.timetable.FullDayTimetableCache;
 
 import java.time.Clock;
 import java.time.LocalDate;
@@ -18,9 +25,9 @@ import java.util.stream.Collectors;
 public class ScheduleService extends BaseScheduleService {
 
     private final StopsRepositoryPort stopsRepo;
+    private final StopResolver stopResolver;
     private final EnvironmentService environmentService;
-
-    public List<Route> allRoutes;
+    private final FullDayTimetableCache fullDayTimetables;
 
     // for testing
     private Clock clock = Clock.systemDefaultZone();
@@ -33,28 +40,50 @@ public class ScheduleService extends BaseScheduleService {
                            StopsRepositoryPort stopsRepo, EnvironmentService environmentService) {
         super(routeRepo, routeStopsRepo, frequencyRepo, exceptionRepo);
         this.stopsRepo = stopsRepo;
+        this.stopResolver = new StopResolver(stopsRepo);
         this.environmentService = environmentService;
+        this.fullDayTimetables = new FullDayTimetableCache(this.departureIndex);
     }
 
-    public List<DepartureResponseDTO> getDepartures(DepartureRequestDTO request) {
-        List<Stops> allStops = stopsRepo.readAll();
+    @Autowired
+    public ScheduleService(RouteRepositoryPort routeRepo,
+                           RouteStopsRepositoryPort routeStopsRepo,
+                           FrequencyRepositoryPort frequencyRepo,
+                           ExceptionEntryRepositoryPort exceptionRepo,
+                           StopsRepositoryPort stopsRepo, EnvironmentService environmentService,
+                           DepartureIndexCache departureIndex, StopResolver stopResolver) {
+        super(routeRepo, routeStopsRepo, frequencyRepo, exceptionRepo, departureIndex);
+        this.stopsRepo = stopsRepo;
+        this.stopResolver = stopResolver;
+        this.environmentService = environmentService;
+        this.fullDayTimetables = new FullDayTimetableCache(this.departureIndex);
+    }
 
-        Stops fromStop = allStops.stream()
-                .filter(s -> s.getName().trim().equalsIgnoreCase(request.getFromStop().trim()))
-                .findFirst()
-                .orElse(null);
+    /**
+     * Søk mellom to stopp. Tiden måles per søketype (DEPART, ARRIVAL, NOW) og om noe ble funnet.
+     */
+    public List<DepartureResponseDTO> getDepartures(DepartureRequestDTO request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<DepartureResponseDTO> response = search(request);
+        sample.stop(meterRegistry.timer("ferry.schedule.search",
+                "kind", String.valueOf(request.getTimeMode()),
+                "result", response.isEmpty() ? "empty" : "found"));
+        return response;
+    }
 
-        Stops toStop = allStops.stream()
-                .filter(s -> s.getName().trim().equalsIgnoreCase(request.getToStop().trim()))
-                .findFirst()
-                .orElse(null);
+    private List<DepartureResponseDTO> search(DepartureRequestDTO request) {
+        // Navnene slås opp i en ferdig bygget tabell i stedet for å lese alle stopp
+        Stops fromStop = stopResolver.resolve(request.getFromStop()).orElse(null);
+        Stops toStop = stopResolver.resolve(request.getToStop()).orElse(null);
 
         if (fromStop == null) {
             System.err.println("From stop not found: " + request.getFromStop());
+            meterRegistry.counter("ferry.schedule.unknown-stop", "side", "from").increment();
             return Collections.emptyList();
         }
         if (toStop == null) {
             System.err.println("To stop not found: " + request.getToStop());
+            meterRegistry.counter("ferry.schedule.unknown-stop", "side", "to").increment();
             return Collections.emptyList();
         }
 
@@ -67,8 +96,10 @@ public class ScheduleService extends BaseScheduleService {
             time = LocalTime.now(clock);
         }
 
+        // Ved ankomsttid er det ankomsten som filtreres, så alle avganger hentes
+        LocalTime earliestDeparture = request.getTimeMode() == TimeMode.ARRIVAL ? null : time;
         List<DepartureDTO> departures = findDepartures(fromStop, toStop,
-                date, time);
+                date, earliestDeparture);
 
 
         if (request.getTimeMode() == TimeMode.DEPART || request.getTimeMode() == TimeMode.NOW) {
@@ -95,70 +126,38 @@ public class ScheduleService extends BaseScheduleService {
         }
 
         List<DepartureResponseDTO> response = new ArrayList<>();
+        if (departures.isEmpty()) return response;
+
+        // Hent miljødata. Alle avgangene har samme stoppar, så det holder med ett oppslag
+        EnvironmentDTO savings;
+        try {
+            savings = environmentService.calculateSavings(fromStop.getId(), toStop.getId());
+        } catch (RuntimeException e) {
+            savings = null; // <- her settes det null hvis route == null
+        }
 
         for (DepartureDTO dto : departures) {
             DepartureResponseDTO respDTO = new DepartureResponseDTO(dto, request.getTimeMode());
-
-            // Hent miljødata
-            try {
-                respDTO.setEnvironmentSavings(environmentService.calculateSavings(fromStop.getId(), toStop.getId()));
-            } catch (RuntimeException e) {
-                respDTO.setEnvironmentSavings(null); // <- her settes det null hvis route == null
-            }
-
-
+            respDTO.setEnvironmentSavings(savings);
             response.add(respDTO);
         }
         return response;
     }
 
     public List<ScheduleDTO> getFullSchedule(LocalDate date) {
-        // Bygg planen for dagen
-        buildSchedule(date);
-
-        Map<String, ScheduleDTO> scheduleMap = new HashMap<>();
-
-        LocalTime now = LocalTime.now(clock);
-
-        for (Route route : allRoutes) {
-            Stops fromStop = route.getFromStop();
-            Stops toStop = route.getToStop();
-
-            if (fromStop == null || toStop == null) continue;
-
-            // Hent alle avganger fra ruten, kun fra første stopp
-            List<DepartureDTO> departures = findDepartures(fromStop, toStop, date, null)
-                    .stream()
-                    .filter(dep -> {
-                        LocalTime depTime = dep.getPlannedDeparture();
-                        return !date.isEqual(LocalDate.now(clock)) || !depTime.isBefore(now);
-                    })
-                    .collect(Collectors.toList());
-
-            if (departures.isEmpty()) continue;
-
-            // Lag nøkkel per rute/retning
-            String key = route.getRouteNum() + "_" + fromStop.getName() + "_" + toStop.getName();
-
-            ScheduleDTO dto = scheduleMap.computeIfAbsent(key, k ->
-                    new ScheduleDTO(route.getRouteNum(), fromStop.getName(), toStop.getName(), new ArrayList<>())
-            );
-
-
-            // Legg til kun avgangstidene fra første stopp
-            for (DepartureDTO dep : departures) {
-                dto.getPlannedDepartures().add(dep.getPlannedDeparture());
-            }
-
-            // Sorter stigende
-            dto.getPlannedDepartures().sort(Comparator.naturalOrder());
-        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean today = date.isEqual(LocalDate.now(clock));
 
-        List<ScheduleDTO> list = new ArrayList<>(scheduleMap.values());
+        // Dagens tabell bygges én gang per dato; for i dag kuttes den ved nåværende minutt
+        FullDayTimetable timetable = fullDayTimetables.get(date);
 
-        list.sort(Comparator.comparingInt(ScheduleDTO::getRouteNumber).reversed());
+        int fromMinute = today
+                ? CompiledDay.toMinuteOfDayRoundedUp(LocalTime.now(clock))
+                : 0;
 
-        return list;
+        List<ScheduleDTO> schedule = timetable.toSchedule(fromMinute);
+        sample.stop(meterRegistry.timer("ferry.schedule.full", "day", today ? "today" : "other"));
+        return schedule;
     }
 
 
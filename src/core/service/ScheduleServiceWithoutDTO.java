@@ -2,8 +2,10 @@ package service;
 
 import domain.model.*;
 import dto.DepartureDTO;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import port.outbound.*;
+import service.timetable.DepartureIndexCache;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -19,9 +21,18 @@ public class ScheduleServiceWithoutDTO extends BaseScheduleService {
         super(routeRepo, routeStopsRepo, frequencyRepo, exceptionRepo);
     }
 
+    @Autowired
+    public ScheduleServiceWithoutDTO(RouteRepositoryPort routeRepo,
+                                     RouteStopsRepositoryPort routeStopsRepo,
+                                     FrequencyRepositoryPort frequencyRepo,
+                                     ExceptionEntryRepositoryPort exceptionRepo,
+                                     DepartureIndexCache departureIndex) {
+        super(routeRepo, routeStopsRepo, frequencyRepo, exceptionRepo, departureIndex);
+    }
+
     public List<DepartureDTO> getDepartures(Stops fromStop, Stops toStop,
                                             LocalDate travelDate, LocalTime travelTime,
                                             TimeMode timeMode) {
-        return findDepartures(fromStop, toStop, travelDate, travelTime);
+        return findDepartures(fromStop, toStop, travelDate, timeMode == TimeMode.ARRIVAL ? null : travelTime);
     }
 }
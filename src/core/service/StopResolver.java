@@ -0,0 +1,237 @@
+package service;
+
+import domain.model.Stops;
+import event.StopChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import port.outbound.StopsRepositoryPort;
+
+import java.text.Normalizer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Slår opp stoppesteder på navn uten å lese stopptabellen for hvert søk.
+ *
+ * Navnene normaliseres (små bokstaver, æ/ø/å skrives som ae/oe/aa og aksenter fjernes), slik at
+ * "Værste" og "Vaerste" gir samme treff. Oppslagstabellen bygges ved første bruk og bygges på
+ * nytt når et stopp endres, eller når den er eldre enn maxAge. En endring merker bare tabellen
+ * som utdatert; den bygges på nytt ved neste oppslag.
+ */
+@Component
+public class StopResolver {
+
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(10);
+    private static final int MAX_SUGGESTIONS = 20;
+
+    // Kompileres én gang; normalize() kjøres for hvert navn som slås opp
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final StopsRepositoryPort stopsRepo;
+    private final AtomicReference<Index> current = new AtomicReference<>();
+    private final Object rebuildLock = new Object();
+    // Settes av invalidate() uten lås, og nullstilles før en bygging leser stoppene
+    private volatile boolean stale;
+
+    private Duration maxAge = DEFAULT_MAX_AGE;
+    private Clock clock = Clock.systemDefaultZone();
+
+    public StopResolver(StopsRepositoryPort stopsRepo) {
+        this.stopsRepo = stopsRepo;
+    }
+
+    // --- Oppslag ---
+
+    /**
+     * Finner stoppet med nøyaktig dette navnet etter normalisering.
+     */
+    public Optional<Stops> resolve(String name) {
+        if (name == null) return Optional.empty();
+        return Optional.ofNullable(index().byName.get(normalize(name)));
+    }
+
+    /**
+     * Forslag til aktive stopp for et autoutfyllingsfelt. Navn som begynner med teksten
+     * (eller har et ord som gjør det) kommer først, deretter navn med en liten skrivefeil.
+     */
+    public List<Stops> suggest(String query, int limit) {
+        String key = normalize(query == null ? "" : query);
+        int max = Math.min(Math.max(limit, 0), MAX_SUGGESTIONS);
+        if (key.isEmpty() || max == 0) return Collections.emptyList();
+
+        Index index = index();
+        Set<Stops> result = new LinkedHashSet<>();
+
+        // Prefikstreff, sortert på navn
+        for (List<Stops> stops : index.byPrefix.subMap(key, true, key + Character.MAX_VALUE, false).values()) {
+            for (Stops stop : stops) {
+                result.add(stop);
+                if (result.size() == max) return new ArrayList<>(result);
+            }
+        }
+
+        // Skrivefeil: teksten sammenlignes med starten av hvert navn
+        int maxDistance = key.length() < 3 ? 0 : key.length() <= 5 ? 1 : 2;
+        if (maxDistance == 0) return new ArrayList<>(result);
+
+        List<Map.Entry<Integer, Stops>> fuzzy = new ArrayList<>();
+        for (int i = 0; i < index.activeKeys.length; i++) {
+            Stops stop = index.activeStops[i];
+            if (result.contains(stop)) continue;
+            int distance = prefixDistance(key, index.activeKeys[i], maxDistance);
+            if (distance <= maxDistance) fuzzy.add(Map.entry(distance, stop));
+        }
+        fuzzy.sort(Map.Entry.comparingByKey());
+
+        for (Map.Entry<Integer, Stops> entry : fuzzy) {
+            result.add(entry.getValue());
+            if (result.size() == max) break;
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Normaliserer et stoppnavn for oppslag.
+     */
+    public static String normalize(String name) {
+        String folded = name.trim().toLowerCase(Locale.ROOT)
+                .replace("æ", "ae")
+                .replace("ø", "oe")
+                .replace("å", "aa");
+        folded = COMBINING_MARKS.matcher(Normalizer.normalize(folded, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(folded).replaceAll(" ").trim();
+    }
+
+    // --- Oppdatering ---
+
+    @EventListener
+    public void onStopChange(StopChangedEvent event) {
+        invalidate();
+    }
+
+    /**
+     * Leser alle stopp på nytt og bytter ut oppslagstabellen.
+     */
+    public void refresh() {
+        rebuild();
+    }
+
+    /**
+     * Merker tabellen som utdatert slik at neste oppslag bygger en ny.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    private Index index() {
+        Index index = current.get();
+        if (index != null && !stale && !isExpired(index)) return index;
+
+        synchronized (rebuildLock) {
+            index = current.get();
+            if (index != null && !stale && !isExpired(index)) return index;
+            return rebuild();
+        }
+    }
+
+    // Kom en endring mens stoppene ble lest, tas tabellen ikke i bruk. Kalleren får
+    // den likevel, og neste oppslag bygger på nytt.
+    private Index rebuild() {
+        synchronized (rebuildLock) {
+            stale = false;
+            Index built = new Index(stopsRepo.readAll(), Instant.now(clock));
+            if (!stale) current.set(built);
+            return built;
+        }
+    }
+
+    private boolean isExpired(Index index) {
+        return index.builtAt.plus(maxAge).isBefore(Instant.now(clock));
+    }
+
+    // --- Hjelpemetoder ---
+
+    /**
+     * Minste redigeringsavstand mellom key og en start av name med lengde key ± 1.
+     * Returnerer maxDistance + 1 så snart avstanden ikke kan bli liten nok.
+     */
+    static int prefixDistance(String key, String name, int maxDistance) {
+        int n = key.length();
+        int m = Math.min(name.length(), n + maxDistance);
+        int[] previous = new int[m + 1];
+        int[] row = new int[m + 1];
+        for (int j = 0; j <= m; j++) previous[j] = j;
+
+        for (int i = 1; i <= n; i++) {
+            row[0] = i;
+            int rowMin = row[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = key.charAt(i - 1) == name.charAt(j - 1) ? 0 : 1;
+                row[j] = Math.min(Math.min(row[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, row[j]);
+            }
+            if (rowMin > maxDistance) return maxDistance + 1;
+            int[] swap = previous;
+            previous = row;
+            row = swap;
+        }
+
+        // Beste avstand mot en start av navnet som ikke er for mye kortere eller lengre
+        int best = maxDistance + 1;
+        for (int j = Math.max(0, n - maxDistance); j <= m; j++) best = Math.min(best, previous[j]);
+        return best;
+    }
+
+    /**
+     * Uforanderlig oppslagstabell bygget fra alle stopp.
+     */
+    private static final class Index {
+
+        private final Instant builtAt;
+        private final Map<String, Stops> byName = new HashMap<>();
+        private final TreeMap<String, List<Stops>> byPrefix = new TreeMap<>();
+        private final String[] activeKeys;
+        private final Stops[] activeStops;
+
+        private Index(List<Stops> stops, Instant builtAt) {
+            this.builtAt = builtAt;
+
+            List<Stops> active = new ArrayList<>();
+            for (Stops stop : stops) {
+                if (stop.getName() == null) continue;
+                String key = normalize(stop.getName());
+
+                // Første stopp med navnet vinner, som ved et lineært søk
+                byName.putIfAbsent(key, stop);
+                if (!stop.isActive()) continue;
+                active.add(stop);
+
+                // Hele navnet og hvert ord i det kan matches som prefiks
+                byPrefix.computeIfAbsent(key, k -> new ArrayList<>()).add(stop);
+                for (int i = key.indexOf(' '); i >= 0; i = key.indexOf(' ', i + 1)) {
+                    byPrefix.computeIfAbsent(key.substring(i + 1), k -> new ArrayList<>()).add(stop);
+                }
+            }
+
+            active.sort(Comparator.comparing(Stops::getName));
+            activeKeys = new String[active.size()];
+            activeStops = new Stops[active.size()];
+            for (int i = 0; i < active.size(); i++) {
+                activeStops[i] = active.get(i);
+                activeKeys[i] = normalize(active.get(i).getName());
+            }
+        }
+    }
+
+    // --- Konfigurasjon ---
+
+    public void setMaxAge(Duration maxAge) { this.maxAge = maxAge; }
+
+    // for testing
+    public void setClock(Clock clock) { this.clock = clock; }
+}
@@ -0,0 +1,263 @@
+package service;
+
+import domain.model.Stops;
+import event.StopChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import port.outbound.StopsRepositoryPort;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Finner aktive stopp nær en posisjon uten å spørre databasen.
+ *
+ * Stoppene legges i et rutenett med fliser på TILE_DEGREES grader. Et søk leser bare flisene
+ * rundt posisjonen og sorterer treffene på avstand langs jordoverflaten (haversine). Nettet
+ * bygges ved første bruk og bygges på nytt når et stopp endres, eller når det er eldre enn maxAge.
+ * En endring merker bare nettet som utdatert; det bygges på nytt ved neste oppslag.
+ */
+@Component
+public class StopSpatialIndex {
+
+    static final double TILE_DEGREES = 0.02;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = 111.0;
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(10);
+
+    private final StopsRepositoryPort stopsRepo;
+    private final AtomicReference<Grid> current = new AtomicReference<>();
+    private final Object rebuildLock = new Object();
+    // Settes av invalidate() uten lås, og nullstilles før en bygging leser stoppene
+    private volatile boolean stale;
+
+    private Duration maxAge = DEFAULT_MAX_AGE;
+    private Clock clock = Clock.systemDefaultZone();
+
+    public StopSpatialIndex(StopsRepositoryPort stopsRepo) {
+        this.stopsRepo = stopsRepo;
+    }
+
+    // --- Oppslag ---
+
+    /**
+     * Aktive stopp innenfor radiusKm, nærmeste først. Høyst limit treff.
+     */
+    public List<Nearby> withinRadius(double latitude, double longitude, double radiusKm, int limit) {
+        if (radiusKm < 0 || limit <= 0) return Collections.emptyList();
+        Grid grid = grid();
+
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        double lonSpan = radiusKm / (KM_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(latitude))));
+
+        List<Nearby> hits = new ArrayList<>();
+        double tiles = (2 * latSpan / TILE_DEGREES + 2) * (2 * lonSpan / TILE_DEGREES + 2);
+
+        if (tiles > grid.tiles.size()) {
+            // Større område enn nettet: like billig å gå gjennom alle stopp
+            for (int i = 0; i < grid.stops.length; i++) {
+                addIfWithin(hits, grid, i, latitude, longitude, radiusKm);
+            }
+        } else {
+            for (int latTile = tileOf(latitude - latSpan); latTile <= tileOf(latitude + latSpan); latTile++) {
+                for (int lonTile = tileOf(longitude - lonSpan); lonTile <= tileOf(longitude + lonSpan); lonTile++) {
+                    for (int i : grid.tile(latTile, lonTile)) {
+                        addIfWithin(hits, grid, i, latitude, longitude, radiusKm);
+                    }
+                }
+            }
+        }
+
+        hits.sort(Comparator.comparingDouble(Nearby::getDistanceKm));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    /**
+     * De k nærmeste aktive stoppene, nærmeste først.
+     *
+     * Søket går utover i ringer av fliser. Etter ring r er alt innenfor r fliser fra posisjonen
+     * lest, så søket stopper når det k-te treffet ligger nærmere enn det.
+     */
+    public List<Nearby> nearest(double latitude, double longitude, int k) {
+        Grid grid = grid();
+        if (k <= 0 || grid.stops.length == 0) return Collections.emptyList();
+
+        int centerLat = tileOf(latitude);
+        int centerLon = tileOf(longitude);
+        PriorityQueue<Nearby> best = new PriorityQueue<>(
+                Comparator.comparingDouble(Nearby::getDistanceKm).reversed());
+        int seen = 0;
+
+        for (int ring = 0; ; ring++) {
+            if ((long) (2 * ring + 1) * (2 * ring + 1) > 4L * grid.tiles.size() + 8) {
+                // Ringene dekker langt flere fliser enn nettet har: les resten direkte
+                best.clear();
+                for (int i = 0; i < grid.stops.length; i++) {
+                    best.add(new Nearby(grid.stops[i], haversine(latitude, longitude, grid.latitudes[i], grid.longitudes[i])));
+                    if (best.size() > k) best.poll();
+                }
+                break;
+            }
+
+            for (int latTile = centerLat - ring; latTile <= centerLat + ring; latTile++) {
+                for (int lonTile = centerLon - ring; lonTile <= centerLon + ring; lonTile++) {
+                    // Bare kanten av ringen; det indre er lest før
+                    if (Math.abs(latTile - centerLat) != ring && Math.abs(lonTile - centerLon) != ring) continue;
+
+                    for (int i : grid.tile(latTile, lonTile)) {
+                        seen++;
+                        best.add(new Nearby(grid.stops[i], haversine(latitude, longitude, grid.latitudes[i], grid.longitudes[i])));
+                        if (best.size() > k) best.poll();
+                    }
+                }
+            }
+
+            if (seen == grid.stops.length) break;
+            if (best.size() == k && best.peek().getDistanceKm() <= coveredKm(latitude, ring)) break;
+        }
+
+        List<Nearby> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Nearby::getDistanceKm));
+        return result;
+    }
+
+    private static void addIfWithin(List<Nearby> hits, Grid grid, int i,
+                                    double latitude, double longitude, double radiusKm) {
+        double distance = haversine(latitude, longitude, grid.latitudes[i], grid.longitudes[i]);
+        if (distance <= radiusKm) hits.add(new Nearby(grid.stops[i], distance));
+    }
+
+    /** Avstand som garantert er lest etter ring r, målt mot den smaleste flisen i ringen. */
+    private static double coveredKm(double latitude, int ring) {
+        double widestLat = Math.min(89.9, Math.abs(latitude) + (ring + 1) * TILE_DEGREES);
+        double narrowest = Math.min(1.0, Math.cos(Math.toRadians(widestLat)));
+        return ring * TILE_DEGREES * KM_PER_DEGREE * narrowest;
+    }
+
+    /** Avstand i km langs jordoverflaten. */
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private static int tileOf(double degrees) {
+        return (int) Math.floor(degrees / TILE_DEGREES);
+    }
+
+    // --- Oppdatering ---
+
+    @EventListener
+    public void onStopChange(StopChangedEvent event) {
+        invalidate();
+    }
+
+    /**
+     * Leser alle aktive stopp på nytt og bytter ut nettet.
+     */
+    public void refresh() {
+        rebuild();
+    }
+
+    /**
+     * Merker nettet som utdatert slik at neste oppslag bygger et nytt.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    private Grid grid() {
+        Grid grid = current.get();
+        if (grid != null && !stale && !isExpired(grid)) return grid;
+
+        synchronized (rebuildLock) {
+            grid = current.get();
+            if (grid != null && !stale && !isExpired(grid)) return grid;
+            return rebuild();
+        }
+    }
+
+    // Kom en endring mens stoppene ble lest, tas nettet ikke i bruk. Kalleren får
+    // det likevel, og neste oppslag bygger på nytt.
+    private Grid rebuild() {
+        synchronized (rebuildLock) {
+            stale = false;
+            Grid built = new Grid(stopsRepo.findAllActive(), Instant.now(clock));
+            if (!stale) current.set(built);
+            return built;
+        }
+    }
+
+    private boolean isExpired(Grid grid) {
+        return grid.builtAt.plus(maxAge).isBefore(Instant.now(clock));
+    }
+
+    /**
+     * Uforanderlig rutenett. Koordinatene ligger i egne tabeller, og hver flis er en liste
+     * med indekser inn i dem.
+     */
+    private static final class Grid {
+
+        private static final int[] EMPTY = new int[0];
+
+        private final Instant builtAt;
+        private final Stops[] stops;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final Map<Long, int[]> tiles = new HashMap<>();
+
+        private Grid(List<Stops> active, Instant builtAt) {
+            this.builtAt = builtAt;
+            this.stops = active.toArray(new Stops[0]);
+            this.latitudes = new double[stops.length];
+            this.longitudes = new double[stops.length];
+
+            Map<Long, List<Integer>> byTile = new HashMap<>();
+            for (int i = 0; i < stops.length; i++) {
+                latitudes[i] = stops[i].getLatitude();
+                longitudes[i] = stops[i].getLongitude();
+                byTile.computeIfAbsent(key(tileOf(latitudes[i]), tileOf(longitudes[i])), k -> new ArrayList<>()).add(i);
+            }
+            for (Map.Entry<Long, List<Integer>> entry : byTile.entrySet()) {
+                tiles.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+
+        private int[] tile(int latTile, int lonTile) {
+            return tiles.getOrDefault(key(latTile, lonTile), EMPTY);
+        }
+
+        private static long key(int latTile, int lonTile) {
+            return ((long) latTile << 32) | (lonTile & 0xffffffffL);
+        }
+    }
+
+    /**
+     * Et stopp og avstanden til det.
+     */
+    public static final class Nearby {
+        private final Stops stop;
+        private final double distanceKm;
+
+        Nearby(Stops stop, double distanceKm) {
+            this.stop = stop;
+            this.distanceKm = distanceKm;
+        }
+
+        public Stops getStop() { return stop; }
+        public double getDistanceKm() { return distanceKm; }
+    }
+
+    // --- Konfigurasjon ---
+
+    public void setMaxAge(Duration maxAge) { this.maxAge = maxAge; }
+
+    // for testing
+    public void setClock(Clock clock) { this.clock = clock; }
+}
@@ -0,0 +1,128 @@
+package service.environment;
+
+import domain.model.environment.DistanceBetweenStops;
+
+import java.util.*;
+
+/**
+ * Veinettet mellom stoppene, bygget fra avstandene i stopDistance.
+ *
+ * Hver rad er en kant i sin retning. Finnes ingen rad for motsatt retning, kan raden også
+ * kjøres baklengs, med samme avstand og bom. Veiavstanden mellom to stopp er raden for
+ * nøyaktig dette paret hvis den finnes, ellers korteste vei gjennom grafen. Veien regnes som
+ * bompengebelagt hvis én av kantene på den har bom.
+ */
+public final class DistanceGraph {
+
+    private final Map<Long, Leg> direct = new HashMap<>();
+    private final Map<Integer, List<Edge>> edges = new HashMap<>();
+
+    private DistanceGraph() {
+    }
+
+    public static DistanceGraph of(List<DistanceBetweenStops> distances) {
+        DistanceGraph graph = new DistanceGraph();
+        for (DistanceBetweenStops d : distances) {
+            // Første rad for paret vinner, som ved findByFromAndTo
+            graph.direct.putIfAbsent(key(d.getFromStop().getId(), d.getToStop().getId()),
+                    new Leg(d.getDistance(), d.isTollgate()));
+        }
+
+        for (Map.Entry<Long, Leg> entry : graph.direct.entrySet()) {
+            int from = fromOf(entry.getKey());
+            int to = toOf(entry.getKey());
+            Leg leg = entry.getValue();
+            graph.addEdge(from, to, leg);
+
+            // Bommen avhenger av retningen, så raden brukes baklengs bare når motsatt rad mangler
+            if (!graph.direct.containsKey(key(to, from))) graph.addEdge(to, from, leg);
+        }
+        return graph;
+    }
+
+    private void addEdge(int from, int to, Leg leg) {
+        edges.computeIfAbsent(from, k -> new ArrayList<>()).add(new Edge(to, leg.distance, leg.tollgate));
+    }
+
+    /**
+     * Veiavstand fra source til hvert stopp som kan nås. Direkte rader går foran
+     * korteste vei, slik at avstander som er lagt inn for hånd alltid brukes.
+     */
+    public Map<Integer, Leg> roadsFrom(int source) {
+        Map<Integer, Leg> best = new HashMap<>();
+        PriorityQueue<Map.Entry<Integer, Leg>> queue = new PriorityQueue<>(
+                Comparator.comparingDouble(e -> e.getValue().distance));
+
+        best.put(source, new Leg(0, false));
+        queue.add(Map.entry(source, best.get(source)));
+
+        while (!queue.isEmpty()) {
+            Map.Entry<Integer, Leg> next = queue.poll();
+            int stop = next.getKey();
+            Leg leg = next.getValue();
+            if (best.get(stop) != leg) continue; // foreldet innslag
+
+            for (Edge edge : edges.getOrDefault(stop, List.of())) {
+                double distance = leg.distance + edge.distance;
+                Leg known = best.get(edge.to);
+                if (known != null && known.distance <= distance) continue;
+
+                Leg candidate = new Leg(distance, leg.tollgate || edge.tollgate);
+                best.put(edge.to, candidate);
+                queue.add(Map.entry(edge.to, candidate));
+            }
+        }
+
+        best.remove(source);
+        for (Map.Entry<Integer, Leg> entry : best.entrySet()) {
+            Leg exact = direct.get(key(source, entry.getKey()));
+            if (exact != null) entry.setValue(exact);
+        }
+        return best;
+    }
+
+    /** Raden for nøyaktig dette paret, eller null. */
+    public Leg direct(int fromStopId, int toStopId) {
+        return direct.get(key(fromStopId, toStopId));
+    }
+
+    public Collection<Long> directPairs() {
+        return direct.keySet();
+    }
+
+    static long key(int fromStopId, int toStopId) {
+        return ((long) fromStopId << 32) | (toStopId & 0xffffffffL);
+    }
+
+    static int fromOf(long key) { return (int) (key >> 32); }
+
+    static int toOf(long key) { return (int) key; }
+
+    /**
+     * Veiavstand i km og om veien går gjennom en bom.
+     */
+    public static final class Leg {
+        private final double distance;
+        private final boolean tollgate;
+
+        Leg(double distance, boolean tollgate) {
+            this.distance = distance;
+            this.tollgate = tollgate;
+        }
+
+        public double getDistance() { return distance; }
+        public boolean isTollgate() { return tollgate; }
+    }
+
+    private static final class Edge {
+        final int to;
+        final double distance;
+        final boolean tollgate;
+
+        Edge(int to, double distance, boolean tollgate) {
+            this.to = to;
+            this.distance = distance;
+            this.tollgate = tollgate;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package service.environment;
+
+import domain.model.environment.DistanceBetweenStops;
+import domain.model.environment.RateProfile;
+import service.timetable.RouteStopTable;
+import service.timetable.TimetableSnapshot;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ferdig beregnede miljøbesparelser for stoppar.
+ *
+ * Matrisen dekker alle par med en rad i stopDistance, og alle par der en rute går fra det
+ * ene stoppet til det andre og det finnes en vei mellom dem. For rutepar avledes veiavstanden
+ * fra {@link DistanceGraph}, og sjøavstanden er forskjellen i samlet avstand langs ruten.
+ * Finnes ingen vei, er paret ikke med i matrisen. Sjøavstanden til sluttstoppet er ukjent.
+ *
+ * Stoppene får et løpenummer, og verdiene lagres i tette tabeller der paret (fra, til)
+ * ligger på plass fra * antall + til. Et oppslag er dermed to tabelloppslag uten databasekall.
+ * Matrisen husker satsprofilen og versjonen av øyeblikksbildet den ble beregnet fra, slik at
+ * den kan bygges på nytt når noe av det endres.
+ */
+public final class SavingsMatrix {
+
+    /** Versjon når matrisen er bygget uten øyeblikksbilde, og bare dekker stopDistance. */
+    public static final long NO_SNAPSHOT = -1;
+
+    private final Instant builtAt;
+    private final long snapshotVersion;
+    private final RateProfile rates;
+    private final int[] ordinalByStopId;
+    private final int stopCount;
+    private final double[] roadDistance;
+    private final double[] seaDistance;
+    private final double[] costSaved;
+    private final double[] emissionSaved;
+
+    private SavingsMatrix(Instant builtAt, long snapshotVersion, RateProfile rates,
+                          int[] ordinalByStopId, int stopCount) {
+        this.builtAt = builtAt;
+        this.snapshotVersion = snapshotVersion;
+        this.rates = rates;
+        this.ordinalByStopId = ordinalByStopId;
+        this.stopCount = stopCount;
+
+        // Manglende par er NaN
+        int cells = stopCount * stopCount;
+        this.roadDistance = filledWithNaN(cells);
+        this.seaDistance = filledWithNaN(cells);
+        this.costSaved = filledWithNaN(cells);
+        this.emissionSaved = filledWithNaN(cells);
+    }
+
+    /**
+     * Beregner matrisen fra stopDistance alene.
+     */
+    public static SavingsMatrix of(List<DistanceBetweenStops> distances, RateProfile rates, Instant builtAt) {
+        return of(distances, null, rates, builtAt);
+    }
+
+    /**
+     * Beregner matrisen fra stopDistance og rutene i øyeblikksbildet, med satsene i profilen.
+     */
+    public static SavingsMatrix of(List<DistanceBetweenStops> distances, TimetableSnapshot snapshot,
+                                   RateProfile rates, Instant builtAt) {
+        DistanceGraph graph = DistanceGraph.of(distances);
+        List<RouteStopTable> tables = snapshot == null ? List.of()
+                : snapshot.getRoutes().stream()
+                        .map(route -> snapshot.getStopTable(route.getId()))
+                        .filter(table -> table != null)
+                        .toList();
+
+        // Løpenummer per stopp, i en tett tabell indeksert på stopp-id
+        int maxId = -1;
+        for (long pair : graph.directPairs()) {
+            maxId = Math.max(maxId, Math.max(DistanceGraph.fromOf(pair), DistanceGraph.toOf(pair)));
+        }
+        for (RouteStopTable table : tables) {
+            for (int stopId : table.getStopIds()) maxId = Math.max(maxId, stopId);
+        }
+        int[] ordinalByStopId = new int[maxId + 1];
+        Arrays.fill(ordinalByStopId, -1);
+
+        int stopCount = 0;
+        for (long pair : graph.directPairs()) {
+            for (int id : new int[]{DistanceGraph.fromOf(pair), DistanceGraph.toOf(pair)}) {
+                if (id >= 0 && ordinalByStopId[id] < 0) ordinalByStopId[id] = stopCount++;
+            }
+        }
+        for (RouteStopTable table : tables) {
+            for (int id : table.getStopIds()) {
+                if (ordinalByStopId[id] < 0) ordinalByStopId[id] = stopCount++;
+            }
+        }
+
+        SavingsMatrix matrix = new SavingsMatrix(builtAt,
+                snapshot == null ? NO_SNAPSHOT : snapshot.getVersion(), rates, ordinalByStopId, stopCount);
+
+        // Par med egen rad
+        for (long pair : graph.directPairs()) {
+            int from = DistanceGraph.fromOf(pair);
+            int to = DistanceGraph.toOf(pair);
+            DistanceGraph.Leg leg = graph.direct(from, to);
+            matrix.setRoad(from, to, leg.getDistance(), leg.isTollgate());
+        }
+
+        // Par langs rutene. Korteste vei beregnes én gang per startstopp.
+        for (RouteStopTable table : tables) {
+            int[] stopIds = table.getStopIds();
+            for (int i = 0; i < stopIds.length - 1; i++) {
+                int from = stopIds[i];
+                Map<Integer, DistanceGraph.Leg> roads = null;
+
+                for (int j = i + 1; j < stopIds.length; j++) {
+                    int to = stopIds[j];
+                    double sea = table.getCumulativeDistance(to) - table.getCumulativeDistance(from);
+                    if (!Double.isNaN(sea)) matrix.setSea(from, to, sea);
+                    if (matrix.contains(from, to)) continue;
+
+                    // Uten vei i grafen utelates paret, og slås opp i stopDistance ved behov
+                    if (roads == null) roads = graph.roadsFrom(from);
+                    DistanceGraph.Leg leg = roads.get(to);
+                    if (leg != null) matrix.setRoad(from, to, leg.getDistance(), leg.isTollgate());
+                }
+            }
+        }
+        return matrix;
+    }
+
+    private void setRoad(int fromStopId, int toStopId, double distance, boolean tollgate) {
+        int cell = cell(fromStopId, toStopId);
+        if (cell < 0 || !Double.isNaN(costSaved[cell])) return;
+
+        roadDistance[cell] = distance;
+        costSaved[cell] = rates.costSaved(distance, tollgate);
+        emissionSaved[cell] = rates.emissionSaved(distance);
+    }
+
+    private void setSea(int fromStopId, int toStopId, double distance) {
+        int cell = cell(fromStopId, toStopId);
+        if (cell < 0) return;
+
+        // Går flere ruter mellom stoppene, gjelder den korteste
+        if (Double.isNaN(seaDistance[cell]) || distance < seaDistance[cell]) seaDistance[cell] = distance;
+    }
+
+    // --- Oppslag ---
+
+    public boolean contains(int fromStopId, int toStopId) {
+        int cell = cell(fromStopId, toStopId);
+        return cell >= 0 && !Double.isNaN(costSaved[cell]);
+    }
+
+    /** Spart kostnad i kr, eller NaN hvis paret mangler. */
+    public double getCostSaved(int fromStopId, int toStopId) {
+        return valueAt(costSaved, fromStopId, toStopId);
+    }
+
+    /** Spart CO2 i gram, eller NaN hvis paret mangler. */
+    public double getEmissionSaved(int fromStopId, int toStopId) {
+        return valueAt(emissionSaved, fromStopId, toStopId);
+    }
+
+    /** Veiavstand i km som besparelsene er beregnet fra, eller NaN hvis paret mangler. */
+    public double getRoadDistance(int fromStopId, int toStopId) {
+        return valueAt(roadDistance, fromStopId, toStopId);
+    }
+
+    /** Korteste sjøavstand i km langs en rute, eller NaN hvis ingen rute går mellom stoppene. */
+    public double getSeaDistance(int fromStopId, int toStopId) {
+        return valueAt(seaDistance, fromStopId, toStopId);
+    }
+
+    private double valueAt(double[] values, int fromStopId, int toStopId) {
+        int cell = cell(fromStopId, toStopId);
+        return cell >= 0 ? values[cell] : Double.NaN;
+    }
+
+    private int cell(int fromStopId, int toStopId) {
+        int from = ordinal(fromStopId);
+        int to = ordinal(toStopId);
+        return from < 0 || to < 0 ? -1 : from * stopCount + to;
+    }
+
+    private int ordinal(int stopId) {
+        return stopId >= 0 && stopId < ordinalByStopId.length ? ordinalByStopId[stopId] : -1;
+    }
+
+    private static double[] filledWithNaN(int size) {
+        double[] values = new double[size];
+        Arrays.fill(values, Double.NaN);
+        return values;
+    }
+
+    // --- Gyldighet ---
+
+    /** Satsene matrisen er beregnet med. */
+    public RateProfile getRates() { return rates; }
+
+    public Instant getBuiltAt() { return builtAt; }
+
+    public long getSnapshotVersion() { return snapshotVersion; }
+
+    public int getStopCount() { return stopCount; }
+}
@@ -0,0 +1,134 @@
+package service.timetable;
+
+import domain.model.ExceptionEntry;
+import domain.model.Frequency;
+import domain.model.Route;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Ferdig beregnet ruteplan for én dato.
+ *
+ * Frekvensene er ekspandert til sorterte avgangstider fra første stopp, lagret som minutter
+ * etter midnatt i en int[]. Unntakene som gjelder datoen er slått sammen til en
+ * {@link DepartureEffect} per avgangsminutt, og ekstraavgangene er samlet per rute. Et søk
+ * etter neste avganger blir dermed et binærsøk og et utsnitt av tabellen, med ett oppslag
+ * per avgang for unntak.
+ * Versjonen viser hvilket {@link TimetableSnapshot} dagen er beregnet fra.
+ */
+public final class CompiledDay {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final int[] NO_DEPARTURES = new int[0];
+
+    private final LocalDate date;
+    private final long snapshotVersion;
+    private final Map<Integer, int[]> departuresByRoute;
+    private final Map<Integer, DepartureEffect[]> effectsByRoute;
+    private final Map<Integer, List<ExceptionEntry>> extrasByRoute;
+
+    private CompiledDay(LocalDate date, long snapshotVersion,
+                        Map<Integer, int[]> departuresByRoute,
+                        Map<Integer, DepartureEffect[]> effectsByRoute,
+                        Map<Integer, List<ExceptionEntry>> extrasByRoute) {
+        this.date = date;
+        this.snapshotVersion = snapshotVersion;
+        this.departuresByRoute = departuresByRoute;
+        this.effectsByRoute = effectsByRoute;
+        this.extrasByRoute = extrasByRoute;
+    }
+
+    /**
+     * Beregner dagen fra et øyeblikksbilde.
+     */
+    public static CompiledDay compile(TimetableSnapshot snapshot, LocalDate date) {
+        Map<Integer, int[]> departures = new HashMap<>();
+        Map<Integer, DepartureEffect[]> effects = new HashMap<>();
+        Map<Integer, List<ExceptionEntry>> extras = new HashMap<>();
+
+        for (Route route : snapshot.getRoutes()) {
+            BitSet minutes = new BitSet(MINUTES_PER_DAY);
+            for (Frequency freq : snapshot.getActiveFrequencies(route, date)) {
+                for (LocalTime time : freq.getDepartureTimes()) minutes.set(toMinuteOfDay(time));
+            }
+            if (!minutes.isEmpty()) departures.put(route.getId(), minutes.stream().toArray());
+
+            // Tabellen over virkninger lages bare for ruter som har unntak denne dagen
+            List<ExceptionEntry> routeExceptions = snapshot.getActiveExceptions(route, date);
+            if (routeExceptions.isEmpty()) continue;
+
+            DepartureEffect[] routeEffects = new DepartureEffect[MINUTES_PER_DAY];
+            List<ExceptionEntry> routeExtras = new ArrayList<>();
+            for (ExceptionEntry ex : routeExceptions) {
+                int minute = toMinuteOfDay(ex.getDepartureTime());
+                if (routeEffects[minute] == null) routeEffects[minute] = new DepartureEffect();
+                routeEffects[minute].add(ex);
+                if (ex.isExtra()) routeExtras.add(ex);
+            }
+            effects.put(route.getId(), routeEffects);
+            if (!routeExtras.isEmpty()) extras.put(route.getId(), List.copyOf(routeExtras));
+        }
+
+        return new CompiledDay(date, snapshot.getVersion(), Collections.unmodifiableMap(departures),
+                Collections.unmodifiableMap(effects), Collections.unmodifiableMap(extras));
+    }
+
+    // --- Gettere ---
+
+    public LocalDate getDate() { return date; }
+    public long getSnapshotVersion() { return snapshotVersion; }
+
+    /**
+     * Sorterte, unike avgangstider fra rutens første stopp, i minutter etter midnatt.
+     * Tabellen er delt og skal ikke endres.
+     */
+    public int[] getDepartureMinutes(int routeId) { return departuresByRoute.getOrDefault(routeId, NO_DEPARTURES); }
+
+    /** Samlet virkning av unntakene for avgangen, eller null hvis ingen unntak gjelder den. */
+    public DepartureEffect getEffect(int routeId, int firstStopMinute) {
+        DepartureEffect[] routeEffects = effectsByRoute.get(routeId);
+        return routeEffects != null ? routeEffects[firstStopMinute] : null;
+    }
+
+    /** Ekstraavganger for ruten denne dagen. */
+    public List<ExceptionEntry> getExtras(int routeId) { return extrasByRoute.getOrDefault(routeId, List.of()); }
+
+    // --- Hjelpemetoder ---
+
+    public static int toMinuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * Første hele minutt som ikke er før time, f.eks. 07:42:30 -> 07:43.
+     */
+    public static int toMinuteOfDayRoundedUp(LocalTime time) {
+        int minute = toMinuteOfDay(time);
+        return time.getSecond() > 0 || time.getNano() > 0 ? minute + 1 : minute;
+    }
+
+    public static LocalTime toLocalTime(int minuteOfDay) {
+        return LocalTime.of(minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    /**
+     * Første indeks i [from, to) med verdi >= minute, eller to hvis ingen finnes.
+     */
+    public static int lowerBound(int[] minutes, int from, int to, int minute) {
+        int lo = from, hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (minutes[mid] < minute) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompiledDay[%s, v%d, routes=%d]", date, snapshotVersion, departuresByRoute.size());
+    }
+}
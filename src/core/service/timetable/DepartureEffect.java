@@ -0,0 +1,55 @@
+package service.timetable;
+
+import domain.model.ExceptionEntry;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Samlet virkning av alle unntak for én avgang (rute og avgangsminutt fra første stopp).
+ *
+ * Bygges når dagen beregnes, slik at søket gjør ett oppslag per avgang i stedet for å gå
+ * gjennom alle unntakene. Et unntak uten stopp gjelder alle stopp i ruten.
+ */
+public final class DepartureEffect {
+
+    private boolean cancelledAtAllStops;
+    private final Set<Integer> cancelledStopIds = new HashSet<>();
+
+    private boolean delayedAtAllStops;
+    private final Set<Integer> delayedStopIds = new HashSet<>();
+
+    private String message;
+
+    DepartureEffect() {
+    }
+
+    /**
+     * Legger til et unntak. Meldingen fra det første unntaket som har en, gjelder.
+     */
+    void add(ExceptionEntry ex) {
+        if (ex.isCancelled() || ex.isOmitted()) {
+            if (ex.getStop() == null) cancelledAtAllStops = true;
+            else cancelledStopIds.add(ex.getStop().getId());
+        } else if (ex.isDelayed()) {
+            if (ex.getStop() == null) delayedAtAllStops = true;
+            else delayedStopIds.add(ex.getStop().getId());
+        }
+
+        if (message == null && ex.getOperationMessage() != null && ex.getOperationMessage().getMessage() != null) {
+            message = ex.getOperationMessage().getMessage();
+        }
+    }
+
+    /** True hvis avgangen er kansellert eller utelatt ved stoppet. */
+    public boolean isCancelledAt(int stopId) {
+        return cancelledAtAllStops || cancelledStopIds.contains(stopId);
+    }
+
+    public boolean isDelayedAt(int stopId) {
+        return delayedAtAllStops || delayedStopIds.contains(stopId);
+    }
+
+    /** Driftsmelding for avgangen, uansett hvilket stopp unntaket gjelder. */
+    public String getMessage() { return message; }
+}
@@ -0,0 +1,132 @@
+package service.timetable;
+
+import event.TimetableChangeEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU-cache med ferdig beregnede dager ({@link CompiledDay}).
+ *
+ * De fleste søk gjelder i dag og de nærmeste dagene, så bare et lite antall datoer holdes
+ * i minnet. Når en rute, frekvens, et unntak, en sesong eller en driftsmelding endres, merkes
+ * bildet som utdatert og bare datoene endringen berører forkastes. Resten er fortsatt gyldige
+ * når bildet bygges på nytt. Leses bildet inn på nytt fordi det er utløpt, beregnes alle dager
+ * på nytt.
+ */
+@Component
+public class DepartureIndexCache {
+
+    public static final int DEFAULT_CAPACITY = 14;
+
+    private final TimetableSnapshotProvider snapshotProvider;
+    private final Map<LocalDate, CompiledDay> days;
+    // Øker for hver endring, slik at en dag beregnet fra et utdatert bilde ikke lagres
+    private final AtomicLong changes = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Autowired
+    public DepartureIndexCache(TimetableSnapshotProvider snapshotProvider) {
+        this(snapshotProvider, DEFAULT_CAPACITY);
+    }
+
+    public DepartureIndexCache(TimetableSnapshotProvider snapshotProvider, int capacity) {
+        this.snapshotProvider = snapshotProvider;
+        this.days = new LinkedHashMap<>(capacity + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, CompiledDay> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returnerer dagen beregnet fra gjeldende øyeblikksbilde, og beregner den ved behov.
+     */
+    public CompiledDay get(LocalDate date) {
+        long changesBefore = changes.get();
+        TimetableSnapshot snapshot = snapshotProvider.current();
+        long validFrom = snapshotProvider.getFullReloadVersion();
+        synchronized (days) {
+            CompiledDay day = days.get(date);
+            if (day != null && day.getSnapshotVersion() >= validFrom) {
+                hits.incrementAndGet();
+                return day;
+            }
+        }
+
+        misses.incrementAndGet();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompiledDay compiled = CompiledDay.compile(snapshot, date);
+        sample.stop(meterRegistry.timer("ferry.timetable.day.compile"));
+        synchronized (days) {
+            // Kom en endring mens dagen ble beregnet, kan bildet ha vært utdatert. En eldre
+            // versjon skal heller aldri erstatte en nyere.
+            CompiledDay existing = days.get(date);
+            if (changes.get() == changesBefore
+                    && (existing == null || existing.getSnapshotVersion() < compiled.getSnapshotVersion())) {
+                days.put(date, compiled);
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Merker øyeblikksbildet som utdatert og forkaster bare datoene endringen berører. Bildet
+     * bygges ved neste oppslag, ikke i tråden som skrev endringen, og flere endringer etter
+     * hverandre gir én bygging. Kjører før andre lyttere, slik at de ser det nye bildet.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onTimetableChange(TimetableChangeEvent event) {
+        snapshotProvider.markStale();
+        changes.incrementAndGet();
+        synchronized (days) {
+            days.keySet().removeIf(event::touches);
+        }
+    }
+
+    public void invalidate(LocalDate date) {
+        synchronized (days) {
+            days.remove(date);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (days) {
+            days.clear();
+        }
+    }
+
+    // --- Konfigurasjon ---
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) { this.meterRegistry = meterRegistry; }
+
+    // --- Gettere ---
+
+    public TimetableSnapshotProvider getSnapshotProvider() { return snapshotProvider; }
+
+    public int size() {
+        synchronized (days) {
+            return days.size();
+        }
+    }
+
+    public long getHitCount() { return hits.get(); }
+    public long getMissCount() { return misses.get(); }
+}
@@ -0,0 +1,126 @@
+package service.timetable;
+
+import domain.model.ExceptionEntry;
+import domain.model.Route;
+import domain.model.Stops;
+import dto.ScheduleDTO;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Hele dagens rutetabell: avgangene fra første stopp for hver rute.
+ *
+ * Bygges i én gjennomgang av {@link CompiledDay}, uten søk per rute. Tabellen er uforanderlig
+ * og kan gjenbrukes gjennom hele dagen; toSchedule() kutter bare bort avgangene før et gitt
+ * minutt.
+ */
+public final class FullDayTimetable {
+
+    private final LocalDate date;
+    private final long snapshotVersion;
+    private final List<Line> lines;
+
+    private FullDayTimetable(LocalDate date, long snapshotVersion, List<Line> lines) {
+        this.date = date;
+        this.snapshotVersion = snapshotVersion;
+        this.lines = lines;
+    }
+
+    /**
+     * Bygger tabellen fra øyeblikksbildet og den beregnede dagen. Ruter med samme nummer og
+     * samme start- og sluttstopp slås sammen til én linje.
+     */
+    public static FullDayTimetable build(TimetableSnapshot snapshot, CompiledDay day) {
+        Map<String, LineBuilder> builders = new LinkedHashMap<>();
+
+        for (Route route : snapshot.getRoutes()) {
+            Stops fromStop = route.getFromStop();
+            Stops toStop = route.getToStop();
+            if (fromStop == null || toStop == null) continue;
+
+            RouteStopTable stopTable = snapshot.getStopTable(route.getId());
+            if (!stopTable.servesInOrder(fromStop.getId(), toStop.getId())) continue;
+            int offset = stopTable.getMinutesFromStart(fromStop.getId());
+
+            String key = route.getRouteNum() + "_" + fromStop.getName() + "_" + toStop.getName();
+            BitSet planned = builders.computeIfAbsent(key,
+                    k -> new LineBuilder(route.getRouteNum(), fromStop.getName(), toStop.getName())).planned;
+
+            for (int minute : day.getDepartureMinutes(route.getId())) {
+                DepartureEffect effect = day.getEffect(route.getId(), minute);
+                if (effect != null && effect.isCancelledAt(fromStop.getId())) continue;
+                planned.set((minute + offset) % CompiledDay.MINUTES_PER_DAY);
+            }
+
+            for (ExceptionEntry ex : day.getExtras(route.getId())) {
+                if (!ex.affectsStop(fromStop)) continue;
+                planned.set((CompiledDay.toMinuteOfDay(ex.getDepartureTime()) + offset) % CompiledDay.MINUTES_PER_DAY);
+            }
+        }
+
+        List<Line> lines = new ArrayList<>();
+        for (LineBuilder builder : builders.values()) {
+            if (builder.planned.isEmpty()) continue;
+            lines.add(new Line(builder.routeNumber, builder.fromStopName, builder.toStopName, builder.planned.stream().toArray()));
+        }
+        lines.sort(Comparator.comparingInt((Line line) -> line.routeNumber).reversed());
+
+        return new FullDayTimetable(day.getDate(), snapshot.getVersion(), List.copyOf(lines));
+    }
+
+    /**
+     * Rutetabellen som DTO-er, med bare avgangene på eller etter fromMinute.
+     * Linjer uten gjenværende avganger utelates.
+     */
+    public List<ScheduleDTO> toSchedule(int fromMinute) {
+        List<ScheduleDTO> result = new ArrayList<>(lines.size());
+        for (Line line : lines) {
+            int start = CompiledDay.lowerBound(line.minutes, 0, line.minutes.length, fromMinute);
+            if (start == line.minutes.length) continue;
+
+            ScheduleDTO dto = new ScheduleDTO(line.routeNumber, line.fromStopName, line.toStopName,
+                    new ArrayList<>(line.minutes.length - start));
+            for (int i = start; i < line.minutes.length; i++) {
+                dto.getPlannedDepartures().add(CompiledDay.toLocalTime(line.minutes[i]));
+            }
+            result.add(dto);
+        }
+        return result;
+    }
+
+    // --- Gettere ---
+
+    public LocalDate getDate() { return date; }
+    public long getSnapshotVersion() { return snapshotVersion; }
+
+    /**
+     * Én linje i rutetabellen: sorterte avgangsminutter fra første stopp.
+     */
+    private static final class Line {
+        final int routeNumber;
+        final String fromStopName;
+        final String toStopName;
+        final int[] minutes;
+
+        Line(int routeNumber, String fromStopName, String toStopName, int[] minutes) {
+            this.routeNumber = routeNumber;
+            this.fromStopName = fromStopName;
+            this.toStopName = toStopName;
+            this.minutes = minutes;
+        }
+    }
+
+    private static final class LineBuilder {
+        final int routeNumber;
+        final String fromStopName;
+        final String toStopName;
+        final BitSet planned = new BitSet(CompiledDay.MINUTES_PER_DAY);
+
+        LineBuilder(int routeNumber, String fromStopName, String toStopName) {
+            this.routeNumber = routeNumber;
+            this.fromStopName = fromStopName;
+            this.toStopName = toStopName;
+        }
+    }
+}
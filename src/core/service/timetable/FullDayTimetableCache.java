@@ -0,0 +1,48 @@
+package service.timetable;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU-cache med ferdige rutetabeller per dato.
+ *
+ * En tabell er gyldig så lenge øyeblikksbildet den er bygd fra er gjeldende. Gjennom dagen
+ * gjenbrukes den samme tabellen, og bare utsnittet fra nåværende minutt lages på nytt.
+ */
+public class FullDayTimetableCache {
+
+    private final DepartureIndexCache departureIndex;
+    private final Map<LocalDate, FullDayTimetable> timetables;
+
+    public FullDayTimetableCache(DepartureIndexCache departureIndex) {
+        this(departureIndex, DepartureIndexCache.DEFAULT_CAPACITY);
+    }
+
+    public FullDayTimetableCache(DepartureIndexCache departureIndex, int capacity) {
+        this.departureIndex = departureIndex;
+        this.timetables = new LinkedHashMap<>(capacity + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, FullDayTimetable> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public FullDayTimetable get(LocalDate date) {
+        TimetableSnapshot snapshot = departureIndex.getSnapshotProvider().current();
+        synchronized (timetables) {
+            FullDayTimetable cached = timetables.get(date);
+            if (cached != null && cached.getSnapshotVersion() == snapshot.getVersion()) return cached;
+        }
+
+        FullDayTimetable built = FullDayTimetable.build(snapshot, departureIndex.get(date));
+        synchronized (timetables) {
+            FullDayTimetable existing = timetables.get(date);
+            if (existing == null || existing.getSnapshotVersion() < built.getSnapshotVersion()) {
+                timetables.put(date, built);
+            }
+        }
+        return built;
+    }
+}
@@ -0,0 +1,101 @@
+package service.timetable;
+
+import domain.model.Route;
+import domain.model.RouteStops;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Oppslagstabell for stoppene i én rute, indeksert direkte på stopp-id.
+ *
+ * For hvert stopp lagres rekkefølge, minutter fra start og samlet avstand fra første stopp.
+ * Bygges én gang per rute når øyeblikksbildet lages, slik at søket slipper å gå gjennom
+ * stopplisten for hver avgang.
+ */
+public final class RouteStopTable {
+
+    private static final int ABSENT = -1;
+
+    private final int[] stopIds;
+    private final int[] order;
+    private final int[] minutesFromStart;
+    private final double[] cumulativeDistance;
+
+    private RouteStopTable(int[] stopIds, int[] order, int[] minutesFromStart, double[] cumulativeDistance) {
+        this.stopIds = stopIds;
+        this.order = order;
+        this.minutesFromStart = minutesFromStart;
+        this.cumulativeDistance = cumulativeDistance;
+    }
+
+    /**
+     * Bygger tabellen fra rutens ferdig sorterte stoppliste. Forekommer et stopp flere
+     * ganger, er det første forekomst som gjelder.
+     */
+    public static RouteStopTable of(Route route) {
+        List<RouteStops> stops = route.getStops();
+
+        int maxId = -1;
+        for (RouteStops rs : stops) maxId = Math.max(maxId, rs.getStop().getId());
+
+        int[] order = new int[maxId + 1];
+        int[] minutes = new int[maxId + 1];
+        double[] distance = new double[maxId + 1];
+        Arrays.fill(order, ABSENT);
+
+        int[] stopIds = new int[stops.size()];
+        int count = 0;
+
+        double total = 0;
+        for (int i = 0; i < stops.size(); i++) {
+            RouteStops rs = stops.get(i);
+            int stopId = rs.getStop().getId();
+            if (i > 0) total += rs.getDistanceFromPrevious();
+            if (stopId < 0 || order[stopId] != ABSENT) continue;
+
+            order[stopId] = i + 1;
+            minutes[stopId] = rs.getTimeFromStart();
+            // Avstanden til sluttstoppet er bare et anslag fra Route.getStops(), ikke målt
+            distance[stopId] = i > 0 && i == stops.size() - 1 ? Double.NaN : total;
+            stopIds[count++] = stopId;
+        }
+        return new RouteStopTable(Arrays.copyOf(stopIds, count), order, minutes, distance);
+    }
+
+    // --- Oppslag ---
+
+    /** Stoppene i ruten i kjørerekkefølge, hvert stopp én gang. Tabellen må ikke endres. */
+    public int[] getStopIds() {
+        return stopIds;
+    }
+
+    public boolean contains(int stopId) {
+        return getOrder(stopId) != ABSENT;
+    }
+
+    /** Posisjon i ruten (1 = første stopp), eller -1 hvis ruten ikke går innom stoppet. */
+    public int getOrder(int stopId) {
+        return stopId >= 0 && stopId < order.length ? order[stopId] : ABSENT;
+    }
+
+    /** Minutter fra rutens start, eller 0 hvis ruten ikke går innom stoppet. */
+    public int getMinutesFromStart(int stopId) {
+        return contains(stopId) ? minutesFromStart[stopId] : 0;
+    }
+
+    /**
+     * Samlet avstand i km fra første stopp, eller 0 hvis ruten ikke går innom stoppet.
+     * NaN for sluttstoppet, der avstanden ikke er kjent.
+     */
+    public double getCumulativeDistance(int stopId) {
+        return contains(stopId) ? cumulativeDistance[stopId] : 0;
+    }
+
+    /** True hvis ruten går innom begge stoppene, og fromStop kommer før toStop. */
+    public boolean servesInOrder(int fromStopId, int toStopId) {
+        int from = getOrder(fromStopId);
+        int to = getOrder(toStopId);
+        return from != ABSENT && to != ABSENT && from < to;
+    }
+}
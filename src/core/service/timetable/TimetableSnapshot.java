@@ -0,0 +1,172 @@
+package service.timetable;
+
+import domain.model.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Uforanderlig øyeblikksbilde av hele ruteplanen.
+ *
+ * Inneholder ruter (med ferdig sorterte stopp og oppslagstabell), frekvenser, sesonger og unntak,
+ * indeksert per rute. Bygges én gang av {@link TimetableSnapshotProvider} og leses
+ * deretter uten databasekall. Versjonsnummeret øker for hvert nytt bilde.
+ */
+public final class TimetableSnapshot {
+
+    // --- Felt ---
+
+    private final long version;
+    private final Instant builtAt;
+
+    private final List<Route> routes;
+    private final Map<Integer, Route> routesById;
+    private final Map<Integer, RouteStopTable> stopTablesByRoute;
+    private final Map<Long, List<Route>> routesByStopPair;
+    private final Map<Integer, List<Frequency>> frequenciesByRoute;
+    private final Map<Integer, List<ExceptionEntry>> exceptionsByRoute;
+    private final Map<Integer, Season> seasonsById;
+
+    // --- Konstruktør ---
+
+    /**
+     * Bygger og indekserer et nytt øyeblikksbilde fra rådata hentet fra repositoryene.
+     * Rutestoppene sorteres og knyttes til rutene på samme måte som tidligere buildSchedule.
+     */
+    public TimetableSnapshot(long version, Instant builtAt,
+                             List<Route> routes,
+                             List<RouteStops> routeStops,
+                             List<Frequency> frequencies,
+                             List<ExceptionEntry> exceptions) {
+        this.version = version;
+        this.builtAt = builtAt;
+
+        Map<Integer, List<RouteStops>> stopsByRoute = new HashMap<>();
+        for (RouteStops rs : routeStops) {
+            if (rs.getRoute() == null) continue;
+            stopsByRoute.computeIfAbsent(rs.getRoute().getId(), k -> new ArrayList<>()).add(rs);
+        }
+
+        Map<Integer, Route> byId = new LinkedHashMap<>();
+        Map<Integer, RouteStopTable> stopTables = new HashMap<>();
+        for (Route route : routes) {
+            List<RouteStops> ordered = stopsByRoute.getOrDefault(route.getId(), new ArrayList<>());
+            ordered.sort(Comparator.comparingInt(RouteStops::getRouteOrder));
+            for (int i = 0; i < ordered.size(); i++) ordered.get(i).setRouteOrder(i + 1);
+            route.setAllRouteStops(ordered);
+
+            // Bygg stopplisten nå, slik at ruten ikke endres når flere tråder leser den
+            route.getStops();
+            byId.put(route.getId(), route);
+            stopTables.put(route.getId(), RouteStopTable.of(route));
+        }
+        this.routes = List.copyOf(byId.values());
+        this.routesById = Collections.unmodifiableMap(byId);
+        this.stopTablesByRoute = Collections.unmodifiableMap(stopTables);
+        this.routesByStopPair = indexStopPairs(this.routes);
+
+        Map<Integer, Season> seasons = new HashMap<>();
+        Map<Integer, List<Frequency>> freqByRoute = new HashMap<>();
+        for (Frequency freq : frequencies) {
+            if (freq.getRoute() == null) continue;
+            freqByRoute.computeIfAbsent(freq.getRoute().getId(), k -> new ArrayList<>()).add(freq);
+            if (freq.getSeason() != null) seasons.putIfAbsent(freq.getSeason().getId(), freq.getSeason());
+        }
+        freqByRoute.replaceAll((id, list) -> List.copyOf(list));
+        this.frequenciesByRoute = Collections.unmodifiableMap(freqByRoute);
+
+        Map<Integer, List<ExceptionEntry>> exByRoute = new HashMap<>();
+        for (ExceptionEntry ex : exceptions) {
+            if (ex.getRoute() == null) continue;
+            exByRoute.computeIfAbsent(ex.getRoute().getId(), k -> new ArrayList<>()).add(ex);
+            if (ex.getSeason() != null) seasons.putIfAbsent(ex.getSeason().getId(), ex.getSeason());
+        }
+        exByRoute.replaceAll((id, list) -> List.copyOf(list));
+        this.exceptionsByRoute = Collections.unmodifiableMap(exByRoute);
+        this.seasonsById = Collections.unmodifiableMap(seasons);
+    }
+
+    // --- Spørringer ---
+
+    /**
+     * Frekvensene som gjelder for ruten på en gitt dato: riktig ukedag og innenfor sesongen.
+     * Tilsvarer findActiveForRouteAndDate med fallback til findByRouteAndWeekday.
+     */
+    public List<Frequency> getActiveFrequencies(Route route, LocalDate date) {
+        Weekday weekday = Weekday.fromLocalDate(date);
+        List<Frequency> result = new ArrayList<>();
+        for (Frequency freq : frequenciesByRoute.getOrDefault(route.getId(), List.of())) {
+            if (freq.getWeekday() != weekday) continue;
+            if (!isWithinSeason(freq.getSeason(), date)) continue;
+            result.add(freq);
+        }
+        return result;
+    }
+
+    /**
+     * Aktive unntak for ruten som gjelder datoen, enten via validDate eller ukedag.
+     * Tilsvarer unionen av de fire unntaksspørringene i findDepartures.
+     */
+    public List<ExceptionEntry> getActiveExceptions(Route route, LocalDate date) {
+        Weekday weekday = Weekday.fromLocalDate(date);
+        List<ExceptionEntry> result = new ArrayList<>();
+        for (ExceptionEntry ex : exceptionsByRoute.getOrDefault(route.getId(), List.of())) {
+            if (!ex.isActive()) continue;
+            if (date.equals(ex.getValidDate()) || ex.getWeekday() == weekday) result.add(ex);
+        }
+        return result;
+    }
+
+    /**
+     * Rutene som går innom fromStop og deretter toStop, i samme rekkefølge som getRoutes().
+     */
+    public List<Route> getRoutesServing(int fromStopId, int toStopId) {
+        return routesByStopPair.getOrDefault(stopPairKey(fromStopId, toStopId), List.of());
+    }
+
+    /**
+     * Bygger oppslaget (fromStopId, toStopId) -> ruter fra stopplisten til hver rute.
+     */
+    private static Map<Long, List<Route>> indexStopPairs(List<Route> routes) {
+        Map<Long, List<Route>> index = new HashMap<>();
+        for (Route route : routes) {
+            List<RouteStops> stops = route.getStops();
+            Set<Long> seen = new HashSet<>();
+            for (int i = 0; i < stops.size(); i++) {
+                for (int j = i + 1; j < stops.size(); j++) {
+                    long key = stopPairKey(stops.get(i).getStop().getId(), stops.get(j).getStop().getId());
+                    if (seen.add(key)) index.computeIfAbsent(key, k -> new ArrayList<>()).add(route);
+                }
+            }
+        }
+        index.replaceAll((key, list) -> List.copyOf(list));
+        return Collections.unmodifiableMap(index);
+    }
+
+    private static long stopPairKey(int fromStopId, int toStopId) {
+        return ((long) fromStopId << 32) | (toStopId & 0xFFFFFFFFL);
+    }
+
+    private static boolean isWithinSeason(Season season, LocalDate date) {
+        if (season == null) return true;
+        if (season.getStartDate() != null && date.isBefore(season.getStartDate())) return false;
+        return season.getEndDate() == null || !date.isAfter(season.getEndDate());
+    }
+
+    // --- Gettere ---
+
+    public long getVersion() { return version; }
+    public Instant getBuiltAt() { return builtAt; }
+    public List<Route> getRoutes() { return routes; }
+    public Optional<Route> getRoute(int routeId) { return Optional.ofNullable(routesById.get(routeId)); }
+    public RouteStopTable getStopTable(int routeId) { return stopTablesByRoute.get(routeId); }
+    public List<Frequency> getFrequencies(int routeId) { return frequenciesByRoute.getOrDefault(routeId, List.of()); }
+    public List<ExceptionEntry> getExceptions(int routeId) { return exceptionsByRoute.getOrDefault(routeId, List.of()); }
+    public Collection<Season> getSeasons() { return seasonsById.values(); }
+
+    @Override
+    public String toString() {
+        return String.format("TimetableSnapshot[v%d, routes=%d, builtAt=%s]", version, routes.size(), builtAt);
+    }
+}
@@ -0,0 +1,150 @@
+package service.timetable;
+
+import domain.model.ExceptionEntry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import port.outbound.ExceptionEntryRepositoryPort;
+import port.outbound.FrequencyRepositoryPort;
+import port.outbound.RouteRepositoryPort;
+import port.outbound.RouteStopsRepositoryPort;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Eier gjeldende {@link TimetableSnapshot}.
+ *
+ * Bildet bygges ved første oppslag, og byttes atomisk ut ved refresh(). Lesere får alltid
+ * et komplett bilde og gjør ingen databasekall. Som sikkerhetsnett bygges bildet på nytt
+ * når det er eldre enn maxAge, slik at endringer gjort direkte i databasen også blir synlige.
+ *
+ * Endringer gjort gjennom appen merker bare bildet som utdatert (markStale()). Det bygges
+ * på nytt ved neste oppslag, én gang uansett hvor mange endringer som kom i mellomtiden, så
+ * den som skriver slipper å vente på at alt leses inn igjen.
+ */
+@Component
+public class TimetableSnapshotProvider {
+
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(10);
+
+    private final RouteRepositoryPort routeRepo;
+    private final RouteStopsRepositoryPort routeStopsRepo;
+    private final FrequencyRepositoryPort frequencyRepo;
+    private final ExceptionEntryRepositoryPort exceptionRepo;
+
+    private final AtomicReference<TimetableSnapshot> current = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final Object rebuildLock = new Object();
+
+    private volatile boolean stale;
+    // Siste bilde som ble lest inn fordi alt kunne være endret, ikke på grunn av en kjent endring
+    private volatile long fullReloadVersion;
+
+    private Duration maxAge = DEFAULT_MAX_AGE;
+    private Clock clock = Clock.systemDefaultZone();
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    public TimetableSnapshotProvider(RouteRepositoryPort routeRepo,
+                                     RouteStopsRepositoryPort routeStopsRepo,
+                                     FrequencyRepositoryPort frequencyRepo,
+                                     ExceptionEntryRepositoryPort exceptionRepo) {
+        this.routeRepo = routeRepo;
+        this.routeStopsRepo = routeStopsRepo;
+        this.frequencyRepo = frequencyRepo;
+        this.exceptionRepo = exceptionRepo;
+    }
+
+    /**
+     * Returnerer gjeldende bilde. Bygger et nytt hvis det mangler eller er utløpt.
+     */
+    public TimetableSnapshot current() {
+        TimetableSnapshot snapshot = current.get();
+        if (snapshot != null && !stale && !isExpired(snapshot)) return snapshot;
+
+        synchronized (rebuildLock) {
+            snapshot = current.get();
+            if (snapshot == null || isExpired(snapshot)) return rebuild(true);
+            if (stale) return rebuild(false);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Leser alle data på nytt og bytter ut bildet atomisk.
+     */
+    public TimetableSnapshot refresh() {
+        return rebuild(true);
+    }
+
+    /**
+     * Merker bildet som utdatert etter en kjent endring. Neste oppslag bygger et nytt.
+     */
+    public void markStale() {
+        stale = true;
+    }
+
+    private TimetableSnapshot rebuild(boolean full) {
+        synchronized (rebuildLock) {
+            // Nullstilles før lesingen, slik at en endring underveis gir enda en bygging
+            stale = false;
+            Timer.Sample sample = Timer.start(meterRegistry);
+
+            // Unntakene strømmes, og bare de aktive beholdes; historikken blir ikke liggende i minnet
+            List<ExceptionEntry> exceptions = new ArrayList<>();
+            exceptionRepo.forEachAll(ex -> {
+                if (ex.isActive()) exceptions.add(ex);
+            });
+
+            TimetableSnapshot next = new TimetableSnapshot(
+                    versions.incrementAndGet(),
+                    Instant.now(clock),
+                    routeRepo.readAll(),
+                    routeStopsRepo.readAll(),
+                    frequencyRepo.readAll(),
+                    exceptions
+            );
+            if (full) fullReloadVersion = next.getVersion();
+            current.set(next);
+            sample.stop(meterRegistry.timer("ferry.timetable.snapshot.build"));
+            return next;
+        }
+    }
+
+    /**
+     * Forkaster gjeldende bilde slik at neste oppslag bygger et nytt.
+     */
+    public void invalidate() {
+        current.set(null);
+    }
+
+    /**
+     * Versjonen til siste bilde som ble lest inn uten en kjent endring (første gang, utløpt eller
+     * refresh()). Data beregnet fra et bilde med denne versjonen eller nyere er fortsatt gyldige,
+     * så lenge ingen endring siden har berørt dem.
+     */
+    public long getFullReloadVersion() {
+        return fullReloadVersion;
+    }
+
+    private boolean isExpired(TimetableSnapshot snapshot) {
+        return snapshot.getBuiltAt().plus(maxAge).isBefore(Instant.now(clock));
+    }
+
+    // --- Konfigurasjon ---
+
+    public void setMaxAge(Duration maxAge) { this.maxAge = maxAge; }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) { this.meterRegistry = meterRegistry; }
+
+    // for testing
+    public void setClock(Clock clock) { this.clock = clock; }
+}
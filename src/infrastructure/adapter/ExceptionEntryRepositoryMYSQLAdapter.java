@@ -1,6 +1,9 @@
 package adapter;
 
 import domain.model.*;
+import event.ChangeType;
+import event.ExceptionEntryChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import port.outbound.ExceptionEntryRepositoryPort;
 
@@ -9,13 +12,21 @@ import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 @Repository
 public class ExceptionEntryRepositoryMYSQLAdapter implements ExceptionEntryRepositoryPort {
 
+    private static final String INSERT_SQL = "INSERT INTO exceptionEntry " +
+            "(routeId, stopId, validDate, weekday, seasonId, departureTime, type, isActive, operationMessageId) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE exceptionEntry SET routeId=?, stopId=?, validDate=?, weekday=?, seasonId=?, " +
+            "departureTime=?, type=?, isActive=?, operationMessageId=? WHERE id=?";
+
     private final DataSource dataSource;
+    private final ApplicationEventPublisher events;
     private final RouteRepositoryMYSQLAdapter routeRepo;
     private final StopsRepositoryMYSQLAdapter stopsRepo;
     private final SeasonRepositoryMYSQLAdapter seasonRepo;
@@ -25,8 +36,10 @@ public class ExceptionEntryRepositoryMYSQLAdapter implements ExceptionEntryRepos
                                                 RouteRepositoryMYSQLAdapter routeRepo,
                                                 StopsRepositoryMYSQLAdapter stopsRepo,
                                                 SeasonRepositoryMYSQLAdapter seasonRepo,
-                                                OperationMessageRepositoryMYSQLAdapter msgRepo) {
+                                                OperationMessageRepositoryMYSQLAdapter msgRepo,
+                                                ApplicationEventPublisher events) {
         this.dataSource = dataSource;
+        this.events = events;
         this.routeRepo = routeRepo;
         this.stopsRepo = stopsRepo;
         this.seasonRepo = seasonRepo;
@@ -36,21 +49,10 @@ public class ExceptionEntryRepositoryMYSQLAdapter implements ExceptionEntryRepos
     // --- CRUD ---
     @Override
     public void create(ExceptionEntry entry) {
-        String sql = "INSERT INTO exceptionEntry " +
-                "(routeId, stopId, validDate, weekday, seasonId, departureTime, type, isActive, operationMessageId) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
         try (Connection connection = dataSource.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            stmt.setInt(1, entry.getRoute().getId());
-            stmt.setObject(2, entry.getStop() != null ? entry.getStop().getId() : null);
-            stmt.setDate(3, entry.getValidDate() != null ? java.sql.Date.valueOf(entry.getValidDate()) : null);
-            stmt.setString(4, entry.getWeekday() != null ? entry.getWeekday().name() : null);
-            stmt.setObject(5, entry.getSeason() != null ? entry.getSeason().getId() : null);
-            stmt.setTime(6, Time.valueOf(entry.getDepartureTime()));
-            stmt.setString(7, entry.getType() != null ? entry.getType().name() : null);
-            stmt.setBoolean(8, entry.isActive());
-            stmt.setObject(9, entry.getOperationMessage() != null ? entry.getOperationMessage().getId() : null);
+             PreparedStatement stmt = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+            bindColumns(stmt, entry);
             stmt.executeUpdate();
 
             ResultSet keys = stmt.getGeneratedKeys();
@@ -59,21 +61,29 @@ public class ExceptionEntryRepositoryMYSQLAdapter implements ExceptionEntryRepos
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+        events.publishEvent(new ExceptionEntryChangedEvent(ChangeType.CREATED, null, entry));
     }
 
+    /**
+     * Setter inn alle unntakene i én transaksjon med batchet INSERT, og publiserer én
+     * hendelse for hele importen.
+     */
     @Override
-    public Optional<ExceptionEntry> readById(int id) {
-        String sql = "SELECT * FROM exceptionEntry WHERE id=?";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) return Optional.of(mapRowToEntry(rs));
-            }
+    public void createAll(List<ExceptionEntry> entries) {
+        if (entries.isEmpty()) return;
+        try {
+            SqlBatches.insertAll(dataSource, INSERT_SQL, entries,
+                    ExceptionEntryRepositoryMYSQLAdapter::bindColumns, ExceptionEntry::setId);
         } catch (SQLException e) {
-            throw new RuntimeException(e);
+            throw new RuntimeException("Failed to create exception entries", e);
         }
-        return Optional.empty();
+        events.publishEvent(new ExceptionEntryChangedEvent(ChangeType.CREATED, List.of(), entries));
+    }
+
+    @Override
+    public Optional<ExceptionEntry> readById(int id) {
+        String sql = "SELECT * FROM exceptionEntry WHERE id=?";
+        return executeQueryList(sql, stmt -> stmt.setInt(1, id)).stream().findFirst();
     }
 
     @Override
@@ -82,28 +92,44 @@ public class ExceptionEntryRepositoryMYSQLAdapter implements ExceptionEntryRepos
         return executeQueryList(sql, null);
     }
 
+    @Override
+    public void forEachAll(Consumer<? super ExceptionEntry> action) {
+        forEachQuery("SELECT * FROM exceptionEntry ORDER BY departureTime", action);
+    }
+
     @Override
     public void update(ExceptionEntry entry) {
-        String sql = "UPDATE exceptionEntry SET routeId=?, stopId=?, validDate=?, weekday=?, seasonId=?, " +
-                "departureTime=?, type=?, isActive=?, operationMessageId=? WHERE id=?";
+        ExceptionEntry before = readById(entry.getId()).orElse(null);
         try (Connection connection = dataSource.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
+             PreparedStatement stmt = connection.prepareStatement(UPDATE_SQL)) {
 
-            stmt.setInt(1, entry.getRoute().getId());
-            stmt.setObject(2, entry.getStop() != null ? entry.getStop().getId() : null);
-            stmt.setDate(3, entry.getValidDate() != null ? java.sql.Date.valueOf(entry.getValidDate()) : null);
-            stmt.setString(4, entry.getWeekday() != null ? entry.getWeekday().name() : null);
-            stmt.setObject(5, entry.getSeason() != null ? entry.getSeason().getId() : null);
-            stmt.setTime(6, Time.valueOf(entry.getDepartureTime()));
-            stmt.setString(7, entry.getType() != null ? entry.getType().name() : null);
-            stmt.setBoolean(8, entry.isActive());
-            stmt.setObject(9, entry.getOperationMessage() != null ? entry.getOperationMessage().getId() : null);
+            bindColumns(stmt, entry);
             stmt.setInt(10, entry.getId());
             stmt.executeUpdate();
 
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+        events.publishEvent(new ExceptionEntryChangedEvent(ChangeType.UPDATED, before, entry));
+    }
+
+    /**
+     * Oppdaterer alle unntakene i én transaksjon. Tidligere verdier leses samlet, slik at
+     * hendelsen dekker både gamle og nye datoer.
+     */
+    @Override
+    public void updateAll(List<ExceptionEntry> entries) {
+        if (entries.isEmpty()) return;
+        List<ExceptionEntry> before = readByIds(entries.stream().map(ExceptionEntry::getId).toList());
+        try {
+            SqlBatches.updateAll(dataSource, UPDATE_SQL, entries, (stmt, entry) -> {
+                bindColumns(stmt, entry);
+                stmt.setInt(10, entry.getId());
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to update exception entries", e);
+        }
+        events.publishEvent(new ExceptionEntryChangedEvent(ChangeType.UPDATED, before, entries));
     }
 
     @Override
@@ -113,6 +139,7 @@ public class ExceptionEntryRepositoryMYSQLAdapter implements ExceptionEntryRepos
 
     @Override
     public void deleteById(int id) {
+        ExceptionEntry before = readById(id).orElse(null);
         String sql = "DELETE FROM exceptionEntry WHERE id=?";
         try (Connection connection = dataSource.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -121,6 +148,7 @@ public class ExceptionEntryRepositoryMYSQLAdapter implements ExceptionEntryRepos
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+        events.publishEvent(new ExceptionEntryChangedEvent(ChangeType.DELETED, before, null));
     }
 
     // --- FINN METODER ---
@@ -311,61 +339,142 @@ public class ExceptionEntryRepositoryMYSQLAdapter implements ExceptionEntryRepos
         return list;
     }
 
-    private ExceptionEntry mapRowToEntry(ResultSet rs) throws SQLException {
-        int id = rs.getInt("id");
-
-        int routeId = rs.getInt("routeId");
-        Route route = routeRepo.readById(routeId).orElseThrow(() -> new RuntimeException("Route not found: " + routeId));
-
-        Integer stopId = rs.getObject("stopId", Integer.class);
-        Stops stop = stopId != null ? stopsRepo.readById(stopId).orElse(null) : null;
-
-        java.sql.Date sqlDate = rs.getDate("validDate");
-        LocalDate validDate = sqlDate != null ? sqlDate.toLocalDate() : null;
-
-        String weekdayStr = rs.getString("weekday");
-        Weekday weekday = weekdayStr != null ? Weekday.valueOf(weekdayStr) : null;
-
-        Integer seasonId = rs.getObject("seasonId", Integer.class);
-        Season season = seasonId != null ? seasonRepo.readById(seasonId).orElse(null) : null;
-
-        Time sqlTime = rs.getTime("departureTime");
-        LocalTime departureTime = sqlTime != null ? sqlTime.toLocalTime() : null;
-
-        String typeStr = rs.getString("type");
-        ExceptionType type = typeStr != null ? ExceptionType.valueOf(typeStr) : null;
-
-        boolean isActive = rs.getBoolean("isActive");
-
-        Integer msgId = rs.getObject("operationMessageId", Integer.class);
-        OperationMessage msg = msgId != null ? msgRepo.readById(msgId).orElse(null) : null;
+    /** Setter kolonnene 1-9 i INSERT_SQL og UPDATE_SQL. */
+    private static void bindColumns(PreparedStatement stmt, ExceptionEntry entry) throws SQLException {
+        stmt.setInt(1, entry.getRoute().getId());
+        stmt.setObject(2, entry.getStop() != null ? entry.getStop().getId() : null);
+        stmt.setDate(3, entry.getValidDate() != null ? java.sql.Date.valueOf(entry.getValidDate()) : null);
+        stmt.setString(4, entry.getWeekday() != null ? entry.getWeekday().name() : null);
+        stmt.setObject(5, entry.getSeason() != null ? entry.getSeason().getId() : null);
+        stmt.setTime(6, Time.valueOf(entry.getDepartureTime()));
+        stmt.setString(7, entry.getType() != null ? entry.getType().name() : null);
+        stmt.setBoolean(8, entry.isActive());
+        stmt.setObject(9, entry.getOperationMessage() != null ? entry.getOperationMessage().getId() : null);
+    }
+
+    private List<ExceptionEntry> readByIds(List<Integer> ids) {
+        List<ExceptionEntry> result = new ArrayList<>();
+        for (List<Integer> chunk : SqlLists.chunks(ids)) {
+            String sql = "SELECT * FROM exceptionEntry WHERE id IN (" + SqlLists.placeholders(chunk.size()) + ")";
+            result.addAll(executeQueryList(sql, stmt -> SqlLists.bind(stmt, chunk)));
+        }
+        return result;
+    }
 
-        return new ExceptionEntry.Builder()
-                .setId(id)
-                .setRoute(route)
-                .setStop(stop)
-                .setValidDate(validDate)
-                .setWeekday(weekday)
-                .setSeason(season)
-                .setDepartureTime(departureTime)
-                .setType(type)
-                .setIsActive(isActive)
-                .setOperationMessage(msg)
-                .build();
+    /**
+     * Kobler rådataene til ruter, stopp, sesonger og meldinger. Alt som refereres lastes
+     * samlet med én IN-spørring per tabell, og deles mellom radene via et identitetskart.
+     */
+    private List<ExceptionEntry> hydrate(List<EntryRow> rows) {
+        return hydrate(rows, new IdentityMap());
+    }
+
+    private List<ExceptionEntry> hydrate(List<EntryRow> rows, IdentityMap identity) {
+        if (rows.isEmpty()) return new ArrayList<>();
+
+        msgRepo.loadInto(identity, rows.stream().map(row -> row.msgId).toList());
+        routeRepo.loadInto(identity, rows.stream().map(row -> row.routeId).toList());
+        stopsRepo.loadInto(identity, rows.stream().map(row -> row.stopId).toList());
+        seasonRepo.loadInto(identity, rows.stream().map(row -> row.seasonId).toList());
+
+        List<ExceptionEntry> list = new ArrayList<>(rows.size());
+        for (EntryRow row : rows) {
+            Route route = identity.routes.get(row.routeId);
+            if (route == null) throw new RuntimeException("Route not found: " + row.routeId);
+
+            list.add(new ExceptionEntry.Builder()
+                    .setId(row.id)
+                    .setRoute(route)
+                    .setStop(row.stopId != null ? identity.stops.get(row.stopId) : null)
+                    .setValidDate(row.validDate)
+                    .setWeekday(row.weekday)
+                    .setSeason(row.seasonId != null ? identity.seasons.get(row.seasonId) : null)
+                    .setDepartureTime(row.departureTime)
+                    .setType(row.type)
+                    .setIsActive(row.isActive)
+                    .setOperationMessage(row.msgId != null ? identity.messages.get(row.msgId) : null)
+                    .build());
+        }
+        return list;
     }
 
     private List<ExceptionEntry> executeQueryList(String sql, SQLConsumer<PreparedStatement> setter) {
-        List<ExceptionEntry> list = new ArrayList<>();
+        List<EntryRow> rows = new ArrayList<>();
         try (Connection connection = dataSource.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
             if (setter != null) setter.accept(stmt);
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) list.add(mapRowToEntry(rs));
+                while (rs.next()) rows.add(new EntryRow(rs));
             }
         } catch (SQLException e) {
             throw new RuntimeException("Failed to execute query: " + sql, e);
         }
-        return list;
+        return hydrate(rows);
+    }
+
+    /**
+     * Strømmer radene og kobler dem i puljer på SqlStreams.BATCH_SIZE. Ruter, stopp og sesonger
+     * deles mellom puljene; meldinger tilhører som regel ett unntak og slippes etter hver pulje.
+     */
+    private void forEachQuery(String sql, Consumer<? super ExceptionEntry> action) {
+        IdentityMap identity = new IdentityMap();
+        List<EntryRow> batch = new ArrayList<>(SqlStreams.BATCH_SIZE);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = SqlStreams.prepare(connection, sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                batch.add(new EntryRow(rs));
+                if (batch.size() == SqlStreams.BATCH_SIZE) {
+                    hydrate(batch, identity).forEach(action);
+                    batch.clear();
+                    identity.messages.clear();
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to stream query: " + sql, e);
+        }
+        hydrate(batch, identity).forEach(action);
+    }
+
+    /**
+     * Rådata for ett unntak, med id-er i stedet for refererte objekter.
+     */
+    private static final class EntryRow {
+        final int id;
+        final int routeId;
+        final Integer stopId;
+        final LocalDate validDate;
+        final Weekday weekday;
+        final Integer seasonId;
+        final LocalTime departureTime;
+        final ExceptionType type;
+        final boolean isActive;
+        final Integer msgId;
+
+        EntryRow(ResultSet rs) throws SQLException {
+            this.id = rs.getInt("id");
+            this.routeId = rs.getInt("routeId");
+            this.stopId = rs.getObject("stopId", Integer.class);
+
+            java.sql.Date sqlDate = rs.getDate("validDate");
+            this.validDate = sqlDate != null ? sqlDate.toLocalDate() : null;
+
+            String weekdayStr = rs.getString("weekday");
+            this.weekday = weekdayStr != null ? Weekday.valueOf(weekdayStr) : null;
+
+            this.seasonId = rs.getObject("seasonId", Integer.class);
+
+            Time sqlTime = rs.getTime("departureTime");
+            this.departureTime = sqlTime != null ? sqlTime.toLocalTime() : null;
+
+            String typeStr = rs.getString("type");
+            this.type = typeStr != null ? ExceptionType.valueOf(typeStr) : null;
+
+            this.isActive = rs.getBoolean("isActive");
+            this.msgId = rs.getObject("operationMessageId", Integer.class);
+        }
     }
 
     @FunctionalInterface
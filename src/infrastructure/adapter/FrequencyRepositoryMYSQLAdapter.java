@@ -1,6 +1,9 @@
 package adapter;
 
 import domain.model.*;
+import event.ChangeType;
+import event.FrequencyChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import port.outbound.FrequencyRepositoryPort;
 
@@ -11,18 +14,25 @@ import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public class FrequencyRepositoryMYSQLAdapter implements FrequencyRepositoryPort {
 
+    private static final String INSERT_SQL = "INSERT INTO frequency (routeId, weekday, seasonId, firstDeparture, lastDeparture, intervalMinutes) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE frequency SET routeId=?, weekday=?, seasonId=?, firstDeparture=?, lastDeparture=?, intervalMinutes=? WHERE id=?";
+
     private final DataSource dataSource;
+    private final ApplicationEventPublisher events;
     private final RouteRepositoryMYSQLAdapter routeRepo;
     private final SeasonRepositoryMYSQLAdapter seasonRepo;
 
     public FrequencyRepositoryMYSQLAdapter(DataSource dataSource,
                                            RouteRepositoryMYSQLAdapter routeRepo,
-                                           SeasonRepositoryMYSQLAdapter seasonRepo) {
+                                           SeasonRepositoryMYSQLAdapter seasonRepo,
+                                           ApplicationEventPublisher events) {
         this.dataSource = dataSource;
+        this.events = events;
         this.routeRepo = routeRepo;
         this.seasonRepo = seasonRepo;
     }
@@ -30,16 +40,10 @@ public class FrequencyRepositoryMYSQLAdapter implements FrequencyRepositoryPort
     // --- CRUD METHODS ---
     @Override
     public void create(Frequency freq) {
-        String sql = "INSERT INTO frequency (routeId, weekday, seasonId, firstDeparture, lastDeparture, intervalMinutes) VALUES (?, ?, ?, ?, ?, ?)";
         try (Connection connection = dataSource.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            stmt.setInt(1, freq.getRoute().getId());
-            stmt.setString(2, freq.getWeekday().name());
-            stmt.setInt(3, freq.getSeason().getId());
-            stmt.setTime(4, Time.valueOf(freq.getFirstDeparture()));
-            stmt.setTime(5, Time.valueOf(freq.getLastDeparture()));
-            stmt.setInt(6, freq.getIntervalMinutes());
+             PreparedStatement stmt = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+            bindColumns(stmt, freq);
             stmt.executeUpdate();
 
             ResultSet keys = stmt.getGeneratedKeys();
@@ -48,23 +52,29 @@ public class FrequencyRepositoryMYSQLAdapter implements FrequencyRepositoryPort
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+        events.publishEvent(new FrequencyChangedEvent(ChangeType.CREATED, null, freq));
     }
 
+    /**
+     * Setter inn alle frekvensene i én transaksjon med batchet INSERT, og publiserer én
+     * hendelse for hele importen.
+     */
     @Override
-    public Optional<Frequency> readById(int id) {
-        String sql = "SELECT * FROM frequency WHERE id=?";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
-
-            stmt.setInt(1, id);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) return Optional.of(mapRowToFrequency(rs));
-            }
-
+    public void createAll(List<Frequency> frequencies) {
+        if (frequencies.isEmpty()) return;
+        try {
+            SqlBatches.insertAll(dataSource, INSERT_SQL, frequencies,
+                    FrequencyRepositoryMYSQLAdapter::bindColumns, Frequency::setId);
         } catch (SQLException e) {
-            throw new RuntimeException(e);
+            throw new RuntimeException("Failed to create frequencies", e);
         }
-        return Optional.empty();
+        events.publishEvent(new FrequencyChangedEvent(ChangeType.CREATED, List.of(), frequencies));
+    }
+
+    @Override
+    public Optional<Frequency> readById(int id) {
+        String sql = "SELECT * FROM frequency WHERE id=?";
+        return executeQueryList(sql, stmt -> stmt.setInt(1, id)).stream().findFirst();
     }
 
     @Override
@@ -73,24 +83,44 @@ public class FrequencyRepositoryMYSQLAdapter implements FrequencyRepositoryPort
         return executeQueryList(sql, null);
     }
 
+    @Override
+    public void forEachAll(Consumer<? super Frequency> action) {
+        forEachQuery("SELECT * FROM frequency ORDER BY firstDeparture", action);
+    }
+
     @Override
     public void update(Frequency freq) {
-        String sql = "UPDATE frequency SET routeId=?, weekday=?, seasonId=?, firstDeparture=?, lastDeparture=?, intervalMinutes=? WHERE id=?";
+        Frequency before = readById(freq.getId()).orElse(null);
         try (Connection connection = dataSource.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
+             PreparedStatement stmt = connection.prepareStatement(UPDATE_SQL)) {
 
-            stmt.setInt(1, freq.getRoute().getId());
-            stmt.setString(2, freq.getWeekday().name());
-            stmt.setInt(3, freq.getSeason().getId());
-            stmt.setTime(4, Time.valueOf(freq.getFirstDeparture()));
-            stmt.setTime(5, Time.valueOf(freq.getLastDeparture()));
-            stmt.setInt(6, freq.getIntervalMinutes());
+            bindColumns(stmt, freq);
             stmt.setInt(7, freq.getId());
             stmt.executeUpdate();
 
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+        events.publishEvent(new FrequencyChangedEvent(ChangeType.UPDATED, before, freq));
+    }
+
+    /**
+     * Oppdaterer alle frekvensene i én transaksjon. Tidligere verdier leses samlet, slik at
+     * hendelsen dekker både gamle og nye ukedager.
+     */
+    @Override
+    public void updateAll(List<Frequency> frequencies) {
+        if (frequencies.isEmpty()) return;
+        List<Frequency> before = readByIds(frequencies.stream().map(Frequency::getId).toList());
+        try {
+            SqlBatches.updateAll(dataSource, UPDATE_SQL, frequencies, (stmt, freq) -> {
+                bindColumns(stmt, freq);
+                stmt.setInt(7, freq.getId());
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to update frequencies", e);
+        }
+        events.publishEvent(new FrequencyChangedEvent(ChangeType.UPDATED, before, frequencies));
     }
 
     @Override
@@ -100,6 +130,7 @@ public class FrequencyRepositoryMYSQLAdapter implements FrequencyRepositoryPort
 
     @Override
     public void deleteById(int id) {
+        Frequency before = readById(id).orElse(null);
         String sql = "DELETE FROM frequency WHERE id=?";
         try (Connection connection = dataSource.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -110,6 +141,7 @@ public class FrequencyRepositoryMYSQLAdapter implements FrequencyRepositoryPort
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+        events.publishEvent(new FrequencyChangedEvent(ChangeType.DELETED, before, null));
     }
 
     // --- Finn frekvenser etter route ---
@@ -200,40 +232,114 @@ public class FrequencyRepositoryMYSQLAdapter implements FrequencyRepositoryPort
     }
 
     // --- HELPER METHODS ---
-    private Frequency mapRowToFrequency(ResultSet rs) throws SQLException {
-        int id = rs.getInt("id");
+    /** Setter kolonnene 1-6 i INSERT_SQL og UPDATE_SQL. */
+    private static void bindColumns(PreparedStatement stmt, Frequency freq) throws SQLException {
+        stmt.setInt(1, freq.getRoute().getId());
+        stmt.setString(2, freq.getWeekday().name());
+        stmt.setInt(3, freq.getSeason().getId());
+        stmt.setTime(4, Time.valueOf(freq.getFirstDeparture()));
+        stmt.setTime(5, Time.valueOf(freq.getLastDeparture()));
+        stmt.setInt(6, freq.getIntervalMinutes());
+    }
 
-        int routeId = rs.getInt("routeId");
-        Route route = routeRepo.readById(routeId)
-                .orElseThrow(() -> new RuntimeException("Route not found: " + routeId));
+    private List<Frequency> readByIds(List<Integer> ids) {
+        List<Frequency> result = new ArrayList<>();
+        for (List<Integer> chunk : SqlLists.chunks(ids)) {
+            String sql = "SELECT * FROM frequency WHERE id IN (" + SqlLists.placeholders(chunk.size()) + ")";
+            result.addAll(executeQueryList(sql, stmt -> SqlLists.bind(stmt, chunk)));
+        }
+        return result;
+    }
 
-        Weekday weekday = Weekday.valueOf(rs.getString("weekday"));
+    /**
+     * Kobler rådataene til ruter og sesonger. Rutene (med stopp) og sesongene lastes samlet
+     * med én IN-spørring per tabell, og deles mellom radene via et identitetskart.
+     */
+    private List<Frequency> hydrate(List<FrequencyRow> rows) {
+        return hydrate(rows, new IdentityMap());
+    }
+
+    private List<Frequency> hydrate(List<FrequencyRow> rows, IdentityMap identity) {
+        if (rows.isEmpty()) return new ArrayList<>();
+
+        routeRepo.loadInto(identity, rows.stream().map(row -> row.routeId).toList());
+        seasonRepo.loadInto(identity, rows.stream().map(row -> row.seasonId).toList());
 
-        int seasonId = rs.getInt("seasonId");
-        Season season = seasonRepo.readById(seasonId)
-                .orElseThrow(() -> new RuntimeException("Season not found: " + seasonId));
+        List<Frequency> list = new ArrayList<>(rows.size());
+        for (FrequencyRow row : rows) {
+            Route route = identity.routes.get(row.routeId);
+            if (route == null) throw new RuntimeException("Route not found: " + row.routeId);
 
-        LocalTime first = rs.getTime("firstDeparture").toLocalTime();
-        LocalTime last = rs.getTime("lastDeparture").toLocalTime();
-        int interval = rs.getInt("intervalMinutes");
+            Season season = identity.seasons.get(row.seasonId);
+            if (season == null) throw new RuntimeException("Season not found: " + row.seasonId);
 
-        return new Frequency(id, route, weekday, season, first, last, interval);
+            list.add(new Frequency(row.id, route, row.weekday, season, row.first, row.last, row.interval));
+        }
+        return list;
     }
 
     private List<Frequency> executeQueryList(String sql, SQLConsumer<PreparedStatement> setter) {
-        List<Frequency> list = new ArrayList<>();
+        List<FrequencyRow> rows = new ArrayList<>();
         try (Connection connection = dataSource.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
 
             if (setter != null) setter.accept(stmt);
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) list.add(mapRowToFrequency(rs));
+                while (rs.next()) rows.add(new FrequencyRow(rs));
             }
 
         } catch (SQLException e) {
             throw new RuntimeException("Failed to execute query: " + sql, e);
         }
-        return list;
+        return hydrate(rows);
+    }
+
+    /**
+     * Strømmer radene og kobler dem i puljer på SqlStreams.BATCH_SIZE, med ruter og
+     * sesonger delt mellom puljene.
+     */
+    private void forEachQuery(String sql, Consumer<? super Frequency> action) {
+        IdentityMap identity = new IdentityMap();
+        List<FrequencyRow> batch = new ArrayList<>(SqlStreams.BATCH_SIZE);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = SqlStreams.prepare(connection, sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                batch.add(new FrequencyRow(rs));
+                if (batch.size() == SqlStreams.BATCH_SIZE) {
+                    hydrate(batch, identity).forEach(action);
+                    batch.clear();
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to stream query: " + sql, e);
+        }
+        hydrate(batch, identity).forEach(action);
+    }
+
+    /**
+     * Rådata for én frekvens, med id-er i stedet for rute og sesong.
+     */
+    private static final class FrequencyRow {
+        final int id;
+        final int routeId;
+        final Weekday weekday;
+        final int seasonId;
+        final LocalTime first;
+        final LocalTime last;
+        final int interval;
+
+        FrequencyRow(ResultSet rs) throws SQLException {
+            this.id = rs.getInt("id");
+            this.routeId = rs.getInt("routeId");
+            this.weekday = Weekday.valueOf(rs.getString("weekday"));
+            this.seasonId = rs.getInt("seasonId");
+            this.first = rs.getTime("firstDeparture").toLocalTime();
+            this.last = rs.getTime("lastDeparture").toLocalTime();
+            this.interval = rs.getInt("intervalMinutes");
+        }
     }
 
     @FunctionalInterface
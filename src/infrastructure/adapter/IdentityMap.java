@@ -0,0 +1,34 @@
+package adapter;
+
+import domain.model.OperationMessage;
+import domain.model.Route;
+import domain.model.Season;
+import domain.model.Stops;
+
+import java.util.*;
+
+/**
+ * Identitetskart for én henting.
+ *
+ * Adapterne laster refererte rader i bulk og legger dem her, slik at hver rute, hvert stopp,
+ * hver sesong og hver melding hentes og opprettes bare én gang, uansett hvor mange rader som
+ * peker på den. Kartet lever bare så lenge hentingen pågår.
+ */
+final class IdentityMap {
+
+    final Map<Integer, Stops> stops = new HashMap<>();
+    final Map<Integer, Route> routes = new HashMap<>();
+    final Map<Integer, Season> seasons = new HashMap<>();
+    final Map<Integer, OperationMessage> messages = new HashMap<>();
+
+    /**
+     * Id-ene som ikke allerede finnes i kartet, uten duplikater og null-verdier.
+     */
+    static List<Integer> missing(Map<Integer, ?> loaded, Collection<Integer> ids) {
+        Set<Integer> result = new LinkedHashSet<>();
+        for (Integer id : ids) {
+            if (id != null && !loaded.containsKey(id)) result.add(id);
+        }
+        return new ArrayList<>(result);
+    }
+}
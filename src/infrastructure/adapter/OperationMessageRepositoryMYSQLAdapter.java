@@ -2,6 +2,9 @@ package adapter;
 
 import domain.model.OperationMessage;
 import domain.model.Route;
+import event.ChangeType;
+import event.OperationMessageChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import port.outbound.OperationMessageRepositoryPort;
 
@@ -9,6 +12,7 @@ import javax.sql.DataSource;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,10 +21,13 @@ public class OperationMessageRepositoryMYSQLAdapter implements OperationMessageR
 
     private final DataSource dataSource;
     private final RouteRepositoryMYSQLAdapter routeRepo;
+    private final ApplicationEventPublisher events;
 
-    public OperationMessageRepositoryMYSQLAdapter(DataSource dataSource, RouteRepositoryMYSQLAdapter routeRepo) {
+    public OperationMessageRepositoryMYSQLAdapter(DataSource dataSource, RouteRepositoryMYSQLAdapter routeRepo,
+                                                  ApplicationEventPublisher events) {
         this.dataSource = dataSource;
         this.routeRepo = routeRepo;
+        this.events = events;
     }
 
     // --- CRUD METHODS ---
@@ -44,6 +51,7 @@ public class OperationMessageRepositoryMYSQLAdapter implements OperationMessageR
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+        events.publishEvent(new OperationMessageChangedEvent(ChangeType.CREATED, msg.getId(), msg));
     }
 
     @Override
@@ -84,6 +92,7 @@ public class OperationMessageRepositoryMYSQLAdapter implements OperationMessageR
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+        events.publishEvent(new OperationMessageChangedEvent(ChangeType.UPDATED, msg.getId(), msg));
     }
 
     @Override
@@ -93,6 +102,7 @@ public class OperationMessageRepositoryMYSQLAdapter implements OperationMessageR
 
     @Override
     public void deleteById(int id) {
+        int routeId = routeIdOf(id);
         String sql = "DELETE FROM operationMessage WHERE id=?";
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -102,6 +112,7 @@ public class OperationMessageRepositoryMYSQLAdapter implements OperationMessageR
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+        events.publishEvent(new OperationMessageChangedEvent(ChangeType.DELETED, id, routeId, null));
     }
 
     // --- Spørringer ---
@@ -145,6 +156,7 @@ public class OperationMessageRepositoryMYSQLAdapter implements OperationMessageR
 
     @Override
     public void setActiveStatus(int id, boolean active) {
+        int routeId = routeIdOf(id);
         String sql = "UPDATE operationMessage SET isActive=? WHERE id=?";
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -155,9 +167,80 @@ public class OperationMessageRepositoryMYSQLAdapter implements OperationMessageR
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+        events.publishEvent(new OperationMessageChangedEvent(ChangeType.UPDATED, id, routeId, null));
+    }
+
+    // --- BULK ---
+
+    /**
+     * Laster meldingene som mangler i identitetskartet. Rutene meldingene peker på lastes
+     * samlet gjennom RouteRepository, slik at de deles med resten av hentingen.
+     */
+    void loadInto(IdentityMap identity, Collection<Integer> ids) {
+        List<MessageRow> rows = new ArrayList<>();
+        for (List<Integer> chunk : SqlLists.chunks(IdentityMap.missing(identity.messages, ids))) {
+            String sql = "SELECT * FROM operationMessage WHERE id IN (" + SqlLists.placeholders(chunk.size()) + ")";
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                SqlLists.bind(stmt, chunk);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) rows.add(new MessageRow(rs));
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to read operation messages by IDs", e);
+            }
+        }
+
+        routeRepo.loadInto(identity, rows.stream().map(row -> row.routeId).toList());
+
+        for (MessageRow row : rows) {
+            Route route = identity.routes.get(row.routeId);
+            if (route == null) throw new RuntimeException("Route not found for OperationMessage: " + row.routeId);
+            identity.messages.put(row.id, new OperationMessage(row.id, row.message, row.published, route, row.validFrom, row.validTo));
+        }
+    }
+
+    /**
+     * Rådata for én melding, før ruten er koblet på.
+     */
+    private static final class MessageRow {
+        final int id;
+        final String message;
+        final LocalDateTime published;
+        final int routeId;
+        final LocalDateTime validFrom;
+        final LocalDateTime validTo;
+
+        MessageRow(ResultSet rs) throws SQLException {
+            this.id = rs.getInt("id");
+            this.message = rs.getString("message");
+            this.published = rs.getTimestamp("published").toLocalDateTime();
+            this.routeId = rs.getInt("routeId");
+            this.validFrom = rs.getTimestamp("validFrom").toLocalDateTime();
+            this.validTo = rs.getTimestamp("validTo").toLocalDateTime();
+        }
     }
 
     // --- HELPER METHODS ---
+
+    /**
+     * Ruten meldingen gjelder, slik at hendelsen kan si hvem som berøres. 0 hvis meldingen ikke finnes.
+     */
+    private int routeIdOf(int id) {
+        String sql = "SELECT routeId FROM operationMessage WHERE id=?";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt("routeId") : 0;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private OperationMessage mapRowToMessage(ResultSet rs) throws SQLException {
         int id = rs.getInt("id");
         String message = rs.getString("message");
@@ -0,0 +1,43 @@
+package adapter;
+
+import domain.model.environment.RateProfile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import port.outbound.RateProfileRepositoryPort;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Leser satsene for miljøberegningen fra en properties-fil. Filen leses på nytt ved hver
+ * load(), slik at satsene kan endres uten omstart.
+ */
+@Repository
+public class RateProfileFileAdapter implements RateProfileRepositoryPort {
+
+    private final Path file;
+
+    public RateProfileFileAdapter(@Value("${environment.rates.file:src/resources/rates.properties}") String file) {
+        this.file = Path.of(file);
+    }
+
+    @Override
+    public Optional<RateProfile> load() {
+        if (!Files.isRegularFile(file)) return Optional.empty();
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read rate profile from " + file, e);
+        }
+        return Optional.of(RateProfile.fromProperties(properties));
+    }
+
+    public Path getFile() { return file; }
+}
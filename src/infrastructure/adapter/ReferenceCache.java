@@ -0,0 +1,127 @@
+package adapter;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Begrenset read-through-cache for referansedata (stopp, ruter, sesonger).
+ *
+ * Oppføringene holdes i LRU-rekkefølge og forkastes når de er eldre enn maxAge, slik at
+ * endringer gjort direkte i databasen også blir synlige etter en stund. Adapteren som eier
+ * cachen fjerner oppføringen ved create, update og delete. Tomme oppslag caches ikke.
+ */
+public final class ReferenceCache<V> {
+
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(10);
+
+    private final Map<Integer, Entry<V>> entries;
+    private final long maxAgeNanos;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ReferenceCache(int capacity) {
+        this(capacity, DEFAULT_MAX_AGE);
+    }
+
+    public ReferenceCache(int capacity, Duration maxAge) {
+        this.maxAgeNanos = maxAge.toNanos();
+        this.entries = new LinkedHashMap<>(Math.min(capacity, 256), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry<V>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returnerer verdien fra cachen, eller henter den med loader og legger den i cachen.
+     */
+    public Optional<V> get(int id, IntFunction<Optional<V>> loader) {
+        V cached = peek(id);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached);
+        }
+
+        misses.incrementAndGet();
+        Optional<V> loaded = loader.apply(id);
+        loaded.ifPresent(value -> put(id, value));
+        return loaded;
+    }
+
+    /**
+     * Verdien hvis den finnes og ikke er utløpt, ellers null. Teller ikke treff eller bom.
+     */
+    public V peek(int id) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(id);
+            if (entry == null) return null;
+            if (System.nanoTime() - entry.loadedAt > maxAgeNanos) {
+                entries.remove(id);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    /**
+     * Slår opp flere id-er på én gang. Funnene legges i found, og id-ene som må hentes
+     * fra databasen returneres.
+     */
+    public List<Integer> getAll(Collection<Integer> ids, Map<Integer, V> found) {
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            V cached = peek(id);
+            if (cached != null) {
+                hits.incrementAndGet();
+                found.put(id, cached);
+            } else {
+                misses.incrementAndGet();
+                missing.add(id);
+            }
+        }
+        return missing;
+    }
+
+    public void put(int id, V value) {
+        synchronized (entries) {
+            entries.put(id, new Entry<>(value, System.nanoTime()));
+        }
+    }
+
+    public void invalidate(int id) {
+        synchronized (entries) {
+            entries.remove(id);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    // --- Statistikk ---
+
+    public long getHitCount() { return hits.get(); }
+    public long getMissCount() { return misses.get(); }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long loadedAt;
+
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -2,24 +2,33 @@ package adapter;
 
 import domain.model.Route;
 import domain.model.Stops;
+import event.ChangeType;
+import event.RouteChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import port.outbound.RouteRepositoryPort;
 
 import javax.sql.DataSource;
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Repository
 public class RouteRepositoryMYSQLAdapter implements RouteRepositoryPort {
 
+    private static final int CACHE_CAPACITY = 512;
+
     private final DataSource dataSource;
     private final StopsRepositoryMYSQLAdapter stopsRepo;
+    private final ApplicationEventPublisher events;
+
+    // Cachen holder rådata. Route har intern tilstand (stopplisten), så hvert oppslag får en ny instans
+    private final ReferenceCache<RouteRow> cache = new ReferenceCache<>(CACHE_CAPACITY);
 
-    public RouteRepositoryMYSQLAdapter(DataSource dataSource) {
+    public RouteRepositoryMYSQLAdapter(DataSource dataSource, StopsRepositoryMYSQLAdapter stopsRepo,
+                                       ApplicationEventPublisher events) {
         this.dataSource = dataSource;
-        this.stopsRepo = new StopsRepositoryMYSQLAdapter(dataSource);
+        this.stopsRepo = stopsRepo;
+        this.events = events;
     }
 
     // --- CRUD METHODS ---
@@ -40,17 +49,23 @@ public class RouteRepositoryMYSQLAdapter implements RouteRepositoryPort {
         } catch (SQLException e) {
             throw new RuntimeException("Failed to create route", e);
         }
+        cache.invalidate(route.getId());
+        events.publishEvent(new RouteChangedEvent(ChangeType.CREATED, route.getId(), route));
     }
 
     @Override
     public Optional<Route> readById(int id) {
+        return cache.get(id, this::loadRowById).map(row -> toRoutes(List.of(row)).get(0));
+    }
+
+    private Optional<RouteRow> loadRowById(int id) {
         String sql = "SELECT * FROM route WHERE id = ?";
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
-            if (rs.next()) return Optional.of(mapRowToRoute(rs));
+            if (rs.next()) return Optional.of(new RouteRow(rs));
         } catch (SQLException e) {
             throw new RuntimeException("Failed to read route by ID", e);
         }
@@ -59,17 +74,17 @@ public class RouteRepositoryMYSQLAdapter implements RouteRepositoryPort {
 
     @Override
     public List<Route> readAll() {
-        List<Route> routes = new ArrayList<>();
+        List<RouteRow> rows = new ArrayList<>();
         String sql = "SELECT * FROM route";
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
-            while (rs.next()) routes.add(mapRowToRoute(rs));
+            while (rs.next()) rows.add(cacheRow(new RouteRow(rs)));
         } catch (SQLException e) {
             throw new RuntimeException("Failed to read all routes", e);
         }
-        return routes;
+        return toRoutes(rows);
     }
 
     @Override
@@ -87,6 +102,8 @@ public class RouteRepositoryMYSQLAdapter implements RouteRepositoryPort {
         } catch (SQLException e) {
             throw new RuntimeException("Failed to update route", e);
         }
+        cache.invalidate(route.getId());
+        events.publishEvent(new RouteChangedEvent(ChangeType.UPDATED, route.getId(), route));
     }
 
     @Override
@@ -105,6 +122,8 @@ public class RouteRepositoryMYSQLAdapter implements RouteRepositoryPort {
         } catch (SQLException e) {
             throw new RuntimeException("Failed to delete route", e);
         }
+        cache.invalidate(id);
+        events.publishEvent(new RouteChangedEvent(ChangeType.DELETED, id, null));
     }
 
     @Override
@@ -115,7 +134,7 @@ public class RouteRepositoryMYSQLAdapter implements RouteRepositoryPort {
 
             stmt.setString(1, routeName);
             ResultSet rs = stmt.executeQuery();
-            if (rs.next()) return Optional.of(mapRowToRoute(rs));
+            if (rs.next()) return Optional.of(toRoutes(List.of(cacheRow(new RouteRow(rs)))).get(0));
         } catch (SQLException e) {
             throw new RuntimeException("Failed to find route by name", e);
         }
@@ -124,32 +143,96 @@ public class RouteRepositoryMYSQLAdapter implements RouteRepositoryPort {
 
     @Override
     public List<Route> findAllActive() {
-        List<Route> routes = new ArrayList<>();
+        List<RouteRow> rows = new ArrayList<>();
         String sql = "SELECT * FROM route WHERE isActive = true";
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
-            while (rs.next()) routes.add(mapRowToRoute(rs));
+            while (rs.next()) rows.add(cacheRow(new RouteRow(rs)));
         } catch (SQLException e) {
             throw new RuntimeException("Failed to find all active routes", e);
         }
-        return routes;
+        return toRoutes(rows);
+    }
+
+    // --- BULK ---
+
+    /**
+     * Laster rutene som mangler i identitetskartet, og deretter alle start- og sluttstopp
+     * samlet. Rader som finnes i cachen hentes ikke på nytt.
+     */
+    void loadInto(IdentityMap identity, Collection<Integer> ids) {
+        Map<Integer, RouteRow> cached = new HashMap<>();
+        List<Integer> missing = cache.getAll(IdentityMap.missing(identity.routes, ids), cached);
+
+        List<RouteRow> rows = new ArrayList<>(cached.values());
+        for (List<Integer> chunk : SqlLists.chunks(missing)) {
+            String sql = "SELECT * FROM route WHERE id IN (" + SqlLists.placeholders(chunk.size()) + ")";
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                SqlLists.bind(stmt, chunk);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) rows.add(cacheRow(new RouteRow(rs)));
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to read routes by IDs", e);
+            }
+        }
+
+        for (Route route : toRoutes(rows, identity)) identity.routes.put(route.getId(), route);
+    }
+
+    /**
+     * Rådata for én rute, før stoppene er koblet på.
+     */
+    static final class RouteRow {
+        final int id;
+        final int num;
+        final int fromStopId;
+        final int toStopId;
+        final boolean isActive;
+
+        RouteRow(ResultSet rs) throws SQLException {
+            this.id = rs.getInt("id");
+            this.num = rs.getInt("num");
+            this.fromStopId = rs.getInt("fromStopId");
+            this.toStopId = rs.getInt("toStopId");
+            this.isActive = rs.getBoolean("isActive");
+        }
     }
 
     // --- HELPER METHODS ---
-    private Route mapRowToRoute(ResultSet rs) throws SQLException {
-        int id = rs.getInt("id");
-        int num = rs.getInt("num");
-        int fromStopId = rs.getInt("fromStopId");
-        int toStopId = rs.getInt("toStopId");
-        boolean isActive = rs.getBoolean("isActive");
-
-        Stops fromStop = stopsRepo.readById(fromStopId)
-                .orElse(new Stops(fromStopId, "Unknown Stop"));
-        Stops toStop = stopsRepo.readById(toStopId)
-                .orElse(new Stops(toStopId, "Unknown Stop"));
-
-        return new Route(id, num, fromStop, toStop, isActive);
+
+    /**
+     * Lager nye Route-objekter fra rådata. Stoppene hentes samlet, og via stoppcachen.
+     */
+    private List<Route> toRoutes(List<RouteRow> rows) {
+        return toRoutes(rows, new IdentityMap());
     }
+
+    private List<Route> toRoutes(List<RouteRow> rows, IdentityMap identity) {
+        List<Integer> stopIds = new ArrayList<>();
+        for (RouteRow row : rows) {
+            stopIds.add(row.fromStopId);
+            stopIds.add(row.toStopId);
+        }
+        stopsRepo.loadInto(identity, stopIds);
+
+        List<Route> routes = new ArrayList<>(rows.size());
+        for (RouteRow row : rows) {
+            Stops fromStop = identity.stops.getOrDefault(row.fromStopId, new Stops(row.fromStopId, "Unknown Stop"));
+            Stops toStop = identity.stops.getOrDefault(row.toStopId, new Stops(row.toStopId, "Unknown Stop"));
+            routes.add(new Route(row.id, row.num, fromStop, toStop, row.isActive));
+        }
+        return routes;
+    }
+
+    private RouteRow cacheRow(RouteRow row) {
+        cache.put(row.id, row);
+        return row;
+    }
+
+    public ReferenceCache<?> getCache() { return cache; }
 }
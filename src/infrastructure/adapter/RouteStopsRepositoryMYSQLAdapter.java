@@ -3,6 +3,9 @@ package adapter;
 import domain.model.Route;
 import domain.model.RouteStops;
 import domain.model.Stops;
+import event.ChangeType;
+import event.RouteStopsChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import port.outbound.RouteStopsRepositoryPort;
 
@@ -16,13 +19,16 @@ import java.util.Optional;
 public class RouteStopsRepositoryMYSQLAdapter implements RouteStopsRepositoryPort {
 
     private final DataSource dataSource;
+    private final ApplicationEventPublisher events;
     private final RouteRepositoryMYSQLAdapter routeRepo;
     private final StopsRepositoryMYSQLAdapter stopsRepo;
 
     public RouteStopsRepositoryMYSQLAdapter(DataSource dataSource,
                                             RouteRepositoryMYSQLAdapter routeRepo,
-                                            StopsRepositoryMYSQLAdapter stopsRepo) {
+                                            StopsRepositoryMYSQLAdapter stopsRepo,
+                                            ApplicationEventPublisher events) {
         this.dataSource = dataSource;
+        this.events = events;
         this.routeRepo = routeRepo;
         this.stopsRepo = stopsRepo;
     }
@@ -47,6 +53,7 @@ public class RouteStopsRepositoryMYSQLAdapter implements RouteStopsRepositoryPor
         } catch (SQLException e) {
             throw new RuntimeException("Failed to create RouteStops", e);
         }
+        events.publishEvent(new RouteStopsChangedEvent(ChangeType.CREATED, entity.getId(), entity));
     }
 
     @Override
@@ -96,6 +103,7 @@ public class RouteStopsRepositoryMYSQLAdapter implements RouteStopsRepositoryPor
         } catch (SQLException e) {
             throw new RuntimeException("Failed to update RouteStops", e);
         }
+        events.publishEvent(new RouteStopsChangedEvent(ChangeType.UPDATED, entity.getId(), entity));
     }
 
     @Override
@@ -114,6 +122,7 @@ public class RouteStopsRepositoryMYSQLAdapter implements RouteStopsRepositoryPor
         } catch (SQLException e) {
             throw new RuntimeException("Failed to delete RouteStops", e);
         }
+        events.publishEvent(new RouteStopsChangedEvent(ChangeType.DELETED, id, null));
     }
 
     @Override
@@ -1,6 +1,9 @@
 package adapter;
 
 import domain.model.Season;
+import event.ChangeType;
+import event.SeasonChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import port.outbound.SeasonRepositoryPort;
 
@@ -8,16 +11,24 @@ import javax.sql.DataSource;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
 public class SeasonRepositoryMYSQLAdapter implements SeasonRepositoryPort {
 
+    private static final int CACHE_CAPACITY = 128;
+
     private final DataSource dataSource;
+    private final ReferenceCache<SeasonRow> cache = new ReferenceCache<>(CACHE_CAPACITY);
+    private final ApplicationEventPublisher events;
 
-    public SeasonRepositoryMYSQLAdapter(DataSource dataSource) {
+    public SeasonRepositoryMYSQLAdapter(DataSource dataSource, ApplicationEventPublisher events) {
         this.dataSource = dataSource;
+        this.events = events;
     }
 
     // --- CRUD METHODS ---
@@ -40,18 +51,25 @@ public class SeasonRepositoryMYSQLAdapter implements SeasonRepositoryPort {
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            return;
         }
+        cache.invalidate(season.getId());
+        events.publishEvent(new SeasonChangedEvent(ChangeType.CREATED, null, season));
     }
 
     @Override
     public Optional<Season> readById(int id) {
+        return cache.get(id, this::loadRowById).map(SeasonRow::toSeason);
+    }
+
+    private Optional<SeasonRow> loadRowById(int id) {
         String sql = "SELECT * FROM season WHERE id = ?";
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
-            if (rs.next()) return Optional.of(mapResultSetToSeason(rs));
+            if (rs.next()) return Optional.of(new SeasonRow(rs));
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -75,6 +93,8 @@ public class SeasonRepositoryMYSQLAdapter implements SeasonRepositoryPort {
 
     @Override
     public void update(Season season) {
+        // Fra databasen, ikke cachen: objektet kalleren endrer kan være det samme som ble lest
+        Season before = loadRowById(season.getId()).map(SeasonRow::toSeason).orElse(null);
         String sql = "UPDATE season SET seasonType = ?, validYear = ?, startDate = ?, endDate = ? WHERE id = ?";
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -87,7 +107,10 @@ public class SeasonRepositoryMYSQLAdapter implements SeasonRepositoryPort {
             stmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
+            return;
         }
+        cache.invalidate(season.getId());
+        events.publishEvent(new SeasonChangedEvent(ChangeType.UPDATED, before, season));
     }
 
     @Override
@@ -97,6 +120,7 @@ public class SeasonRepositoryMYSQLAdapter implements SeasonRepositoryPort {
 
     @Override
     public void deleteById(int id) {
+        Season before = loadRowById(id).map(SeasonRow::toSeason).orElse(null);
         String sql = "DELETE FROM season WHERE id = ?";
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -105,7 +129,10 @@ public class SeasonRepositoryMYSQLAdapter implements SeasonRepositoryPort {
             stmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
+            return;
         }
+        cache.invalidate(id);
+        events.publishEvent(new SeasonChangedEvent(ChangeType.DELETED, before, null));
     }
 
     @Override
@@ -127,13 +154,63 @@ public class SeasonRepositoryMYSQLAdapter implements SeasonRepositoryPort {
         return seasons;
     }
 
+    // --- BULK ---
+
+    /**
+     * Laster sesongene som mangler i identitetskartet. Sesonger som finnes i cachen hentes
+     * ikke på nytt, resten hentes med én IN-spørring per 1000 id-er.
+     */
+    void loadInto(IdentityMap identity, Collection<Integer> ids) {
+        Map<Integer, SeasonRow> cached = new HashMap<>();
+        List<Integer> missing = cache.getAll(IdentityMap.missing(identity.seasons, ids), cached);
+        for (SeasonRow row : cached.values()) identity.seasons.put(row.id, row.toSeason());
+
+        for (List<Integer> chunk : SqlLists.chunks(missing)) {
+            String sql = "SELECT * FROM season WHERE id IN (" + SqlLists.placeholders(chunk.size()) + ")";
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                SqlLists.bind(stmt, chunk);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        SeasonRow row = new SeasonRow(rs);
+                        cache.put(row.id, row);
+                        identity.seasons.put(row.id, row.toSeason());
+                    }
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Rådata for én sesong. Cachen holder radene, og hver lesing får et nytt Season-objekt.
+     */
+    static final class SeasonRow {
+        final int id;
+        final String seasonType;
+        final int validYear;
+        final LocalDate startDate;
+        final LocalDate endDate;
+
+        SeasonRow(ResultSet rs) throws SQLException {
+            this.id = rs.getInt("id");
+            this.seasonType = rs.getString("seasonType");
+            this.validYear = rs.getInt("validYear");
+            this.startDate = rs.getDate("startDate") != null ? rs.getDate("startDate").toLocalDate() : null;
+            this.endDate = rs.getDate("endDate") != null ? rs.getDate("endDate").toLocalDate() : null;
+        }
+
+        Season toSeason() {
+            return new Season(id, seasonType, validYear, startDate, endDate);
+        }
+    }
+
     // --- HELPER METHODS ---
     private Season mapResultSetToSeason(ResultSet rs) throws SQLException {
-        int id = rs.getInt("id");
-        String seasonType = rs.getString("seasonType");
-        int validYear = rs.getInt("validYear");
-        LocalDate startDate = rs.getDate("startDate") != null ? rs.getDate("startDate").toLocalDate() : null;
-        LocalDate endDate = rs.getDate("endDate") != null ? rs.getDate("endDate").toLocalDate() : null;
-        return new Season(id, seasonType, validYear, startDate, endDate);
+        return new SeasonRow(rs).toSeason();
     }
+
+    public ReferenceCache<?> getCache() { return cache; }
 }
@@ -0,0 +1,93 @@
+package adapter;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Hjelpemetoder for å skrive mange rader i én transaksjon med JDBC-batching.
+ *
+ * Med rewriteBatchedStatements slår MySQL-driveren sammen hver batch til én INSERT med
+ * mange VALUES-lister, slik at en import blir noen få rundturer i stedet for én per rad.
+ */
+final class SqlBatches {
+
+    /** Maks antall rader per executeBatch, for å holde pakkene under max_allowed_packet. */
+    static final int MAX_BATCH_SIZE = 1000;
+
+    private SqlBatches() {
+    }
+
+    @FunctionalInterface
+    interface Binder<T> {
+        void bind(PreparedStatement stmt, T entity) throws SQLException;
+    }
+
+    /**
+     * Setter inn alle radene i én transaksjon og gir hver entitet sin genererte nøkkel.
+     * Feiler én rad, rulles hele importen tilbake.
+     */
+    static <T> void insertAll(DataSource dataSource, String sql, List<T> entities,
+                              Binder<T> binder, ObjIntConsumer<T> setId) throws SQLException {
+        inTransaction(dataSource, connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (int start = 0; start < entities.size(); start += MAX_BATCH_SIZE) {
+                    List<T> chunk = entities.subList(start, Math.min(entities.size(), start + MAX_BATCH_SIZE));
+                    for (T entity : chunk) {
+                        binder.bind(stmt, entity);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+
+                    // Nøklene kommer i samme rekkefølge som radene ble lagt til
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        for (int i = 0; i < chunk.size() && keys.next(); i++) setId.accept(chunk.get(i), keys.getInt(1));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Kjører samme UPDATE for alle entitetene i én transaksjon.
+     */
+    static <T> void updateAll(DataSource dataSource, String sql, List<T> entities, Binder<T> binder) throws SQLException {
+        inTransaction(dataSource, connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (int start = 0; start < entities.size(); start += MAX_BATCH_SIZE) {
+                    for (T entity : entities.subList(start, Math.min(entities.size(), start + MAX_BATCH_SIZE))) {
+                        binder.bind(stmt, entity);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Work {
+        void run(Connection connection) throws SQLException;
+    }
+
+    private static void inTransaction(DataSource dataSource, Work work) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                work.run(connection);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+}
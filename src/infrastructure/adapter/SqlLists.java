@@ -0,0 +1,37 @@
+package adapter;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hjelpemetoder for spørringer med IN (...)-lister.
+ */
+final class SqlLists {
+
+    /** Maks antall verdier i én IN-liste. */
+    static final int MAX_IN_SIZE = 1000;
+
+    private SqlLists() {
+    }
+
+    /** "?, ?, ?" med count plassholdere. */
+    static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    static void bind(PreparedStatement stmt, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) stmt.setInt(i + 1, ids.get(i));
+    }
+
+    /** Deler opp id-listen slik at ingen IN-liste blir for lang. */
+    static List<List<Integer>> chunks(List<Integer> ids) {
+        List<List<Integer>> result = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += MAX_IN_SIZE) {
+            result.add(ids.subList(i, Math.min(ids.size(), i + MAX_IN_SIZE)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,29 @@
+package adapter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Hjelpemetoder for spørringer som leses rad for rad i stedet for samlet i minnet.
+ */
+final class SqlStreams {
+
+    /** Antall rader som kobles til referanser (ruter, stopp osv.) om gangen. */
+    static final int BATCH_SIZE = 500;
+
+    private SqlStreams() {
+    }
+
+    /**
+     * Forbereder en spørring der MySQL-driveren sender radene fortløpende. Med fetch size
+     * Integer.MIN_VALUE holder driveren bare én rad i minnet, men tilkoblingen kan ikke brukes
+     * til andre spørringer før resultatet er lest ferdig eller lukket.
+     */
+    static PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(Integer.MIN_VALUE);
+        return stmt;
+    }
+}
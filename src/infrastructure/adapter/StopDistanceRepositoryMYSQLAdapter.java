@@ -2,6 +2,9 @@ package adapter;
 
 import domain.model.Stops;
 import domain.model.environment.DistanceBetweenStops;
+import event.ChangeType;
+import event.StopDistanceChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import port.outbound.StopDistanceRepositoryPort;
 
@@ -16,10 +19,13 @@ public class StopDistanceRepositoryMYSQLAdapter implements StopDistanceRepositor
 
     private final DataSource dataSource;
     private final StopsRepositoryMYSQLAdapter stopsRepo;
+    private final ApplicationEventPublisher events;
 
-    public StopDistanceRepositoryMYSQLAdapter(DataSource dataSource, StopsRepositoryMYSQLAdapter stopsRepo) {
+    public StopDistanceRepositoryMYSQLAdapter(DataSource dataSource, StopsRepositoryMYSQLAdapter stopsRepo,
+                                              ApplicationEventPublisher events) {
         this.dataSource = dataSource;
         this.stopsRepo = stopsRepo;
+        this.events = events;
     }
 
     @Override
@@ -39,6 +45,7 @@ public class StopDistanceRepositoryMYSQLAdapter implements StopDistanceRepositor
         } catch (SQLException e) {
             throw new RuntimeException("Failed to create stop distance", e);
         }
+        events.publishEvent(new StopDistanceChangedEvent(ChangeType.CREATED, distance.getId()));
     }
 
     @Override
@@ -58,17 +65,17 @@ public class StopDistanceRepositoryMYSQLAdapter implements StopDistanceRepositor
 
     @Override
     public List<DistanceBetweenStops> readAll() {
-        List<DistanceBetweenStops> distances = new ArrayList<>();
+        List<DistanceRow> rows = new ArrayList<>();
         String sql = "SELECT * FROM stopDistance";
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
-            while (rs.next()) distances.add(mapRowToDistance(rs));
+            while (rs.next()) rows.add(new DistanceRow(rs));
         } catch (SQLException e) {
             throw new RuntimeException("Failed to read all stop distances", e);
         }
-        return distances;
+        return hydrate(rows);
     }
 
     @Override
@@ -86,6 +93,7 @@ public class StopDistanceRepositoryMYSQLAdapter implements StopDistanceRepositor
         } catch (SQLException e) {
             throw new RuntimeException("Failed to update stop distance", e);
         }
+        events.publishEvent(new StopDistanceChangedEvent(ChangeType.UPDATED, distance.getId()));
     }
 
     @Override
@@ -104,6 +112,7 @@ public class StopDistanceRepositoryMYSQLAdapter implements StopDistanceRepositor
         } catch (SQLException e) {
             throw new RuntimeException("Failed to delete stop distance", e);
         }
+        events.publishEvent(new StopDistanceChangedEvent(ChangeType.DELETED, id));
     }
 
     @Override
@@ -122,6 +131,32 @@ public class StopDistanceRepositoryMYSQLAdapter implements StopDistanceRepositor
         return null;
     }
 
+    // --- BULK ---
+
+    /**
+     * Bygger avstandene fra rå rader. Stoppene hentes i bulk gjennom et identitetskart,
+     * slik at hvert stopp bare hentes én gang uansett hvor mange avstander som peker på det.
+     */
+    private List<DistanceBetweenStops> hydrate(List<DistanceRow> rows) {
+        if (rows.isEmpty()) return new ArrayList<>();
+
+        IdentityMap identity = new IdentityMap();
+        List<Integer> stopIds = new ArrayList<>(rows.size() * 2);
+        for (DistanceRow row : rows) {
+            stopIds.add(row.fromId);
+            stopIds.add(row.toId);
+        }
+        stopsRepo.loadInto(identity, stopIds);
+
+        List<DistanceBetweenStops> list = new ArrayList<>(rows.size());
+        for (DistanceRow row : rows) {
+            Stops fromStop = identity.stops.getOrDefault(row.fromId, new Stops(row.fromId, "Unknown Stop"));
+            Stops toStop = identity.stops.getOrDefault(row.toId, new Stops(row.toId, "Unknown Stop"));
+            list.add(new DistanceBetweenStops(row.id, fromStop, toStop, row.distance, row.tollgate));
+        }
+        return list;
+    }
+
     // --- HELPER ---
     private DistanceBetweenStops mapRowToDistance(ResultSet rs) throws SQLException {
         int id = rs.getInt("id");
@@ -137,4 +172,20 @@ public class StopDistanceRepositoryMYSQLAdapter implements StopDistanceRepositor
 
         return new DistanceBetweenStops(id, fromStopObj, toStopObj, distance, tollgate);
     }
+
+    private static final class DistanceRow {
+        final int id;
+        final int fromId;
+        final int toId;
+        final double distance;
+        final boolean tollgate;
+
+        DistanceRow(ResultSet rs) throws SQLException {
+            this.id = rs.getInt("id");
+            this.fromId = rs.getInt("fromStopId");
+            this.toId = rs.getInt("toStopId");
+            this.distance = rs.getDouble("distance");
+            this.tollgate = rs.getBoolean("tollgate");
+        }
+    }
 }
@@ -1,22 +1,33 @@
 package adapter;
 
 import domain.model.Stops;
+import event.ChangeType;
+import event.StopChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import port.outbound.StopsRepositoryPort;
 
 import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
 public class StopsRepositoryMYSQLAdapter implements StopsRepositoryPort {
 
+    private static final int CACHE_CAPACITY = 1024;
+
     private final DataSource dataSource;
+    private final ApplicationEventPublisher events;
+    private final ReferenceCache<StopRow> cache = new ReferenceCache<>(CACHE_CAPACITY);
 
-    public StopsRepositoryMYSQLAdapter(DataSource dataSource) {
+    public StopsRepositoryMYSQLAdapter(DataSource dataSource, ApplicationEventPublisher events) {
         this.dataSource = dataSource;
+        this.events = events;
     }
 
     // --- CRUD METHODS ---
@@ -37,17 +48,23 @@ public class StopsRepositoryMYSQLAdapter implements StopsRepositoryPort {
         } catch (SQLException e) {
             throw new RuntimeException("Failed to create stop", e);
         }
+        cache.invalidate(stop.getId());
+        events.publishEvent(new StopChangedEvent(ChangeType.CREATED, stop.getId(), stop));
     }
 
     @Override
     public Optional<Stops> readById(int id) {
+        return cache.get(id, this::loadRowById).map(StopRow::toStop);
+    }
+
+    private Optional<StopRow> loadRowById(int id) {
         String sql = "SELECT * FROM stops WHERE id = ?";
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
-            if (rs.next()) return Optional.of(mapRowToStop(rs));
+            if (rs.next()) return Optional.of(new StopRow(rs));
         } catch (SQLException e) {
             throw new RuntimeException("Failed to read stop by ID", e);
         }
@@ -62,7 +79,7 @@ public class StopsRepositoryMYSQLAdapter implements StopsRepositoryPort {
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
-            while (rs.next()) stops.add(mapRowToStop(rs));
+            while (rs.next()) stops.add(cacheRow(new StopRow(rs)).toStop());
         } catch (SQLException e) {
             throw new RuntimeException("Failed to read all stops", e);
         }
@@ -84,6 +101,8 @@ public class StopsRepositoryMYSQLAdapter implements StopsRepositoryPort {
         } catch (SQLException e) {
             throw new RuntimeException("Failed to update stop", e);
         }
+        cache.invalidate(stop.getId());
+        events.publishEvent(new StopChangedEvent(ChangeType.UPDATED, stop.getId(), stop));
     }
 
     @Override
@@ -102,6 +121,8 @@ public class StopsRepositoryMYSQLAdapter implements StopsRepositoryPort {
         } catch (SQLException e) {
             throw new RuntimeException("Failed to delete stop", e);
         }
+        cache.invalidate(id);
+        events.publishEvent(new StopChangedEvent(ChangeType.DELETED, id, null));
     }
 
     @Override
@@ -163,14 +184,68 @@ public class StopsRepositoryMYSQLAdapter implements StopsRepositoryPort {
         return stops;
     }
 
+    // --- BULK ---
+
+    /**
+     * Laster stoppene som mangler i identitetskartet. Stopp som finnes i cachen hentes ikke
+     * på nytt, resten hentes med én IN-spørring per 1000 id-er.
+     */
+    void loadInto(IdentityMap identity, Collection<Integer> ids) {
+        Map<Integer, StopRow> cached = new HashMap<>();
+        List<Integer> missing = cache.getAll(IdentityMap.missing(identity.stops, ids), cached);
+        for (StopRow row : cached.values()) identity.stops.put(row.id, row.toStop());
+
+        for (List<Integer> chunk : SqlLists.chunks(missing)) {
+            String sql = "SELECT * FROM stops WHERE id IN (" + SqlLists.placeholders(chunk.size()) + ")";
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                SqlLists.bind(stmt, chunk);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        StopRow row = cacheRow(new StopRow(rs));
+                        identity.stops.put(row.id, row.toStop());
+                    }
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to read stops by IDs", e);
+            }
+        }
+    }
+
+    /**
+     * Rådata for ett stopp. Cachen holder radene, og hver lesing får et nytt Stops-objekt,
+     * slik at endringer en kaller gjør ikke lekker til andre.
+     */
+    static final class StopRow {
+        final int id;
+        final String name;
+        final double latitude;
+        final double longitude;
+        final boolean isActive;
+
+        StopRow(ResultSet rs) throws SQLException {
+            this.id = rs.getInt("id");
+            this.name = rs.getString("name");
+            this.latitude = rs.getDouble("latitude");
+            this.longitude = rs.getDouble("longitude");
+            this.isActive = rs.getBoolean("isActive");
+        }
+
+        Stops toStop() {
+            return new Stops(id, name, latitude, longitude, isActive);
+        }
+    }
+
     // --- HELPER METHODS ---
     private Stops mapRowToStop(ResultSet rs) throws SQLException {
-        return new Stops(
-                rs.getInt("id"),
-                rs.getString("name"),
-                rs.getDouble("latitude"),
-                rs.getDouble("longitude"),
-                rs.getBoolean("isActive")
-        );
+        return new StopRow(rs).toStop();
+    }
+
+    private StopRow cacheRow(StopRow row) {
+        cache.put(row.id, row);
+        return row;
     }
+
+    public ReferenceCache<?> getCache() { return cache; }
 }
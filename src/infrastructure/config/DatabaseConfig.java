@@ -1,37 +1,39 @@
 package config;
 
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
-import io.github.cdimascio.dotenv.Dotenv;
+import database.DataSourceFactory;
+import database.TracingDataSource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import javax.sql.DataSource;
+import java.time.Duration;
 
 @Configuration
 public class DatabaseConfig {
 
-    @Bean
+    // Poolen dimensjoneres etter hvor mange forespørsler Tomcat kan behandle samtidig
+    @Value("${server.tomcat.threads.max:200}")
+    private int requestThreads;
+
+    @Value("${db.trace.slow-query-ms:200}")
+    private long slowQueryMillis;
+
+    @Value("${db.trace.budgets:}")
+    private String queryBudgets;
+
+    @Value("${db.trace.fail-over-budget:false}")
+    private boolean failOverBudget;
+
+    // Poolen pakkes inn, slik at hver forespørsel kan telle setningene og tilkoblingene sine
+    @Bean(destroyMethod = "close")
     public DataSource dataSource() {
-        Dotenv dotenv = Dotenv.configure()
-                .directory("src/resources")
-                .filename("database.env")
-                .load();
-
-        String dbHost = dotenv.get("DB_HOST");
-        String dbPort = dotenv.get("DB_PORT");
-        String dbName = dotenv.get("DB_NAME");
-        String dbUser = dotenv.get("DB_USER");
-        String dbPassword = dotenv.get("DB_PASSWORD");
-
-        String jdbcUrl = String.format("jdbc:mysql://%s:%s/%s?useSSL=false&serverTimezone=UTC", dbHost, dbPort, dbName);
-
-        HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(jdbcUrl);
-        config.setUsername(dbUser);
-        config.setPassword(dbPassword);
-        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
-
-        return new HikariDataSource(config);
+        return new TracingDataSource(DataSourceFactory.fromEnv("ferry-web", requestThreads),
+                Duration.ofMillis(slowQueryMillis));
+    }
+
+    @Bean
+    public QueryTraceFilter queryTraceFilter() {
+        return new QueryTraceFilter(QueryTraceFilter.parseBudgets(queryBudgets), failOverBudget);
     }
 }
@@ -0,0 +1,65 @@
+package config;
+
+import adapter.ReferenceCache;
+import adapter.RouteRepositoryMYSQLAdapter;
+import adapter.SeasonRepositoryMYSQLAdapter;
+import adapter.StopsRepositoryMYSQLAdapter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import service.timetable.DepartureIndexCache;
+
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+@Configuration
+public class MetricsConfig {
+
+    // Statisk, slik at postprosessoren ikke drar resten av konfigurasjonen med seg tidlig
+    @Bean
+    public static RepositoryMetricsPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new RepositoryMetricsPostProcessor(registry);
+    }
+
+    // Treff og bom i dagcachen og i referansecachene til adapterne
+    @Bean
+    public MeterBinder cacheMetrics(DepartureIndexCache departureIndex,
+                                    ObjectProvider<StopsRepositoryMYSQLAdapter> stops,
+                                    ObjectProvider<RouteRepositoryMYSQLAdapter> routes,
+                                    ObjectProvider<SeasonRepositoryMYSQLAdapter> seasons) {
+        return registry -> {
+            bindCache(registry, "departureIndex", departureIndex,
+                    DepartureIndexCache::getHitCount, DepartureIndexCache::getMissCount, DepartureIndexCache::size);
+            Gauge.builder("ferry.timetable.snapshot.version", departureIndex,
+                            cache -> cache.getSnapshotProvider().current().getVersion())
+                    .register(registry);
+
+            stops.ifAvailable(adapter -> bindReferenceCache(registry, "stops", adapter.getCache()));
+            routes.ifAvailable(adapter -> bindReferenceCache(registry, "routes", adapter.getCache()));
+            seasons.ifAvailable(adapter -> bindReferenceCache(registry, "seasons", adapter.getCache()));
+        };
+    }
+
+    private static void bindReferenceCache(MeterRegistry registry, String name, ReferenceCache<?> cache) {
+        bindCache(registry, name, cache, ReferenceCache::getHitCount, ReferenceCache::getMissCount, ReferenceCache::size);
+    }
+
+    private static <C> void bindCache(MeterRegistry registry, String name, C cache,
+                                      ToLongFunction<C> hits,
+                                      ToLongFunction<C> misses,
+                                      ToIntFunction<C> size) {
+        FunctionCounter.builder("ferry.cache.gets", cache, c -> hits.applyAsLong(c))
+                .tags("cache", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("ferry.cache.gets", cache, c -> misses.applyAsLong(c))
+                .tags("cache", name, "result", "miss")
+                .register(registry);
+        Gauge.builder("ferry.cache.size", cache, c -> size.applyAsInt(c))
+                .tag("cache", name)
+                .register(registry);
+    }
+}
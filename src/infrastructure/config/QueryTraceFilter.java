@@ -0,0 +1,111 @@
+package config;
+
+import database.QueryTrace;
+import exception.QueryBudgetExceededException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Starter et {@link QueryTrace} for hver HTTP-forespørsel.
+ *
+ * Antall setninger og tilkoblinger sendes med i svaret (X-Db-Statements, X-Db-Connections).
+ * Et endepunkt kan få et budsjett i db.trace.budgets, for eksempel
+ * "/api/departures/search=2,/api/stops=1". Går en forespørsel over, skrives det ut, eller
+ * forespørselen feiler hvis db.trace.fail-over-budget er satt (for tester).
+ */
+public class QueryTraceFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-Db-Statements";
+    public static final String CONNECTIONS_HEADER = "X-Db-Connections";
+
+    private final Map<String, Integer> budgets;
+    private final boolean failOverBudget;
+
+    public QueryTraceFilter(Map<String, Integer> budgets, boolean failOverBudget) {
+        this.budgets = Map.copyOf(budgets);
+        this.failOverBudget = failOverBudget;
+    }
+
+    /**
+     * Leser "endepunkt=antall,endepunkt=antall".
+     */
+    public static Map<String, Integer> parseBudgets(String spec) {
+        Map<String, Integer> budgets = new HashMap<>();
+        if (spec == null || spec.isBlank()) return budgets;
+        for (String entry : spec.split(",")) {
+            int eq = entry.lastIndexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Invalid query budget: " + entry);
+            budgets.put(entry.substring(0, eq).trim(), Integer.parseInt(entry.substring(eq + 1).trim()));
+        }
+        return budgets;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String name = request.getMethod() + " " + request.getRequestURI();
+        try (QueryTrace trace = QueryTrace.start(name)) {
+            chain.doFilter(request, response);
+
+            // Svar uten body er ikke sendt ennå; de andre har fått hodene fra HeaderAdvice
+            if (!response.isCommitted()) writeHeaders(trace, response);
+            checkBudget(request, trace);
+        }
+    }
+
+    private void checkBudget(HttpServletRequest request, QueryTrace trace) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Integer budget = budgets.get(pattern != null ? pattern.toString() : request.getRequestURI());
+        if (budget == null || trace.getStatements() <= budget) return;
+
+        try {
+            trace.assertWithin(budget);
+        } catch (QueryBudgetExceededException e) {
+            if (failOverBudget) throw e;
+            System.err.println("Query budget exceeded: " + e.getMessage());
+        }
+    }
+
+    static void writeHeaders(QueryTrace trace, HttpServletResponse response) {
+        response.setHeader(STATEMENTS_HEADER, String.valueOf(trace.getStatements()));
+        response.setHeader(CONNECTIONS_HEADER, String.valueOf(trace.getConnections()));
+    }
+
+    /**
+     * Setter hodene rett før body skrives, når kontrolleren er ferdig med databasen.
+     */
+    @ControllerAdvice
+    public static class HeaderAdvice implements ResponseBodyAdvice<Object> {
+        @Override
+        public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+            return true;
+        }
+
+        @Override
+        public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType contentType,
+                                      Class<? extends HttpMessageConverter<?>> converterType,
+                                      ServerHttpRequest request, ServerHttpResponse response) {
+            QueryTrace trace = QueryTrace.current();
+            if (trace != null) {
+                response.getHeaders().set(STATEMENTS_HEADER, String.valueOf(trace.getStatements()));
+                response.getHeaders().set(CONNECTIONS_HEADER, String.valueOf(trace.getConnections()));
+            }
+            return body;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.ClassUtils;
+import port.outbound.CRUDRepositoryPort;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Måler hvert kall til en port i port.outbound (ferry.repository, tagget med port, metode og
+ * utfall), uansett hvilken adapter som ligger bak.
+ *
+ * Adapterne injiseres med konkret klasse i hverandre, så det lages klasseproxyer. Kall en adapter
+ * gjør til seg selv måles ikke, men kall mellom adaptere gjør det, slik at nøstede readById-kall
+ * synes som egne tidsserier.
+ */
+public class RepositoryMetricsPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    public static final String TIMER = "ferry.repository";
+
+    private static final String PORT_PACKAGE = CRUDRepositoryPort.class.getPackageName();
+
+    public RepositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        this.advisor = new PortAdvisor(new TimingInterceptor(registry));
+        setProxyTargetClass(true);
+        setBeforeExistingAdvisors(true);
+    }
+
+    /**
+     * Porten metoden tilhører, eller null hvis den ikke er del av en port.
+     */
+    static Class<?> portOf(Method method, Class<?> targetClass) {
+        for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(targetClass)) {
+            if (!type.getPackageName().equals(PORT_PACKAGE)) continue;
+            if (ClassUtils.hasMethod(type, method.getName(), method.getParameterTypes())) return type;
+        }
+        return null;
+    }
+
+    private static final class PortAdvisor extends StaticMethodMatcherPointcutAdvisor {
+        PortAdvisor(TimingInterceptor interceptor) {
+            super(interceptor);
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return portOf(method, targetClass) != null;
+        }
+    }
+
+    private static final class TimingInterceptor implements MethodInterceptor {
+
+        private final ObjectProvider<MeterRegistry> registryProvider;
+        // Tagger per metode, så porten slås opp bare første gang
+        private final Map<Method, Tags> tags = new ConcurrentHashMap<>();
+        private volatile MeterRegistry registry;
+
+        TimingInterceptor(ObjectProvider<MeterRegistry> registryProvider) {
+            this.registryProvider = registryProvider;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            MeterRegistry meters = registry();
+            if (meters == null) return invocation.proceed();
+
+            Tags methodTags = tags.computeIfAbsent(invocation.getMethod(), method -> {
+                Class<?> port = portOf(method, invocation.getThis().getClass());
+                return Tags.of("port", port != null ? port.getSimpleName() : method.getDeclaringClass().getSimpleName(),
+                        "method", method.getName());
+            });
+
+            Timer.Sample sample = Timer.start(meters);
+            String outcome = "success";
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                outcome = "error";
+                throw e;
+            } finally {
+                sample.stop(meters.timer(TIMER, methodTags.and("outcome", outcome)));
+            }
+        }
+
+        // Registeret hentes ved første kall; postprosessoren lages før resten av konteksten
+        private MeterRegistry registry() {
+            MeterRegistry meters = registry;
+            if (meters == null) {
+                meters = registryProvider.getIfAvailable();
+                registry = meters;
+            }
+            return meters;
+        }
+    }
+}
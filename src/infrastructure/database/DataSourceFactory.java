@@ -0,0 +1,171 @@
+package database;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import exception.MySQLDatabaseException;
+import io.github.cdimascio.dotenv.Dotenv;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Felles oppsett av tilkoblingspoolen for både Spring-appen og CLI-en.
+ *
+ * Tilkoblingsdata leses fra database.env. Poolen får en ytelsesprofil med mellomlagrede
+ * prepared statements på serveren, batch-omskriving og lekkasjesjekk, og størrelsen knyttes
+ * til antall tråder som kan bruke den. Alt kan overstyres i database.env:
+ * DB_POOL_SIZE, DB_POOL_MIN_IDLE, DB_LEAK_DETECTION_MS og DB_CONNECTION_TIMEOUT_MS.
+ */
+public final class DataSourceFactory {
+
+    private static final String ENV_DIRECTORY = "src/resources";
+    private static final String ENV_FILE = "database.env";
+
+    private DataSourceFactory() {
+    }
+
+    /**
+     * Lager poolen fra database.env.
+     *
+     * @param poolName       navn i logger og JMX
+     * @param requestThreads antall tråder som kan be om en tilkobling samtidig
+     */
+    public static HikariDataSource fromEnv(String poolName, int requestThreads) {
+        Dotenv dotenv = Dotenv.configure()
+                .directory(ENV_DIRECTORY)
+                .filename(ENV_FILE)
+                .ignoreIfMalformed()
+                .ignoreIfMissing()
+                .load();
+
+        String dbHost = dotenv.get("DB_HOST");
+        String dbPort = dotenv.get("DB_PORT");
+        String dbName = dotenv.get("DB_NAME");
+        String dbUser = dotenv.get("DB_USER");
+        String dbPassword = dotenv.get("DB_PASSWORD");
+
+        if (dbHost == null || dbPort == null || dbName == null || dbUser == null || dbPassword == null) {
+            throw new MySQLDatabaseException("Database credentials missing in " + ENV_FILE, null);
+        }
+
+        String jdbcUrl = String.format("jdbc:mysql://%s:%s/%s?useSSL=false&serverTimezone=UTC", dbHost, dbPort, dbName);
+
+        HikariConfig config = performanceProfile(poolName, jdbcUrl, dbUser, dbPassword, requestThreads);
+        config.setMaximumPoolSize(intOr(dotenv, "DB_POOL_SIZE", config.getMaximumPoolSize()));
+        config.setMinimumIdle(Math.min(config.getMaximumPoolSize(), intOr(dotenv, "DB_POOL_MIN_IDLE", config.getMinimumIdle())));
+        config.setLeakDetectionThreshold(intOr(dotenv, "DB_LEAK_DETECTION_MS", (int) config.getLeakDetectionThreshold()));
+        config.setConnectionTimeout(intOr(dotenv, "DB_CONNECTION_TIMEOUT_MS", (int) config.getConnectionTimeout()));
+
+        try {
+            return new HikariDataSource(config);
+        } catch (Exception e) {
+            throw new MySQLDatabaseException("Failed to initialize HikariCP DataSource", e);
+        }
+    }
+
+    /**
+     * Konfigurasjon med ytelsesprofilen, uten å åpne noen tilkoblinger.
+     */
+    public static HikariConfig performanceProfile(String poolName, String jdbcUrl, String user, String password,
+                                                  int requestThreads) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(user);
+        config.setPassword(password);
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+
+        // Størrelse: aldri flere enn trådene som kan bruke poolen, og ellers rundt to per kjerne.
+        // En strømmende spørring holder én tilkobling mens radene kobles med en annen, så minst to.
+        int size = poolSize(requestThreads, Runtime.getRuntime().availableProcessors());
+        config.setMaximumPoolSize(size);
+        config.setMinimumIdle(Math.min(size, 2));
+        config.setConnectionTimeout(5_000);
+        config.setLeakDetectionThreshold(30_000);
+        config.setRegisterMbeans(true);
+
+        // Prepared statements mellomlagres på serveren og i driveren
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+
+        // Færre rundturer for øktstatus som ikke endres
+        config.addDataSourceProperty("useLocalSessionState", "true");
+        config.addDataSourceProperty("cacheResultSetMetadata", "true");
+        config.addDataSourceProperty("cacheServerConfiguration", "true");
+        config.addDataSourceProperty("elideSetAutoCommits", "true");
+        config.addDataSourceProperty("maintainTimeStats", "false");
+        return config;
+    }
+
+    /**
+     * Antall tilkoblinger for et gitt antall forespørselstråder og kjerner.
+     */
+    public static int poolSize(int requestThreads, int cores) {
+        return Math.max(2, Math.min(requestThreads, cores * 2 + 1));
+    }
+
+    /**
+     * Aktive, ledige og ventende tilkoblinger, eller null hvis dataSource ikke er en Hikari-pool.
+     */
+    public static PoolStats stats(DataSource dataSource) {
+        HikariDataSource hikari = unwrapHikari(dataSource);
+        if (hikari == null) return null;
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) return null;
+        return new PoolStats(hikari.getPoolName(), pool.getActiveConnections(), pool.getIdleConnections(),
+                pool.getThreadsAwaitingConnection(), pool.getTotalConnections(), hikari.getMaximumPoolSize());
+    }
+
+    // Poolen kan ligge bak en TracingDataSource
+    private static HikariDataSource unwrapHikari(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari) return hikari;
+        try {
+            return dataSource != null && dataSource.isWrapperFor(HikariDataSource.class)
+                    ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private static int intOr(Dotenv dotenv, String key, int fallback) {
+        String value = dotenv.get(key);
+        if (value == null || value.isBlank()) return fallback;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new MySQLDatabaseException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+
+    /**
+     * Øyeblikksbilde av poolen.
+     */
+    public static final class PoolStats {
+        private final String poolName;
+        private final int active;
+        private final int idle;
+        private final int pending;
+        private final int total;
+        private final int max;
+
+        PoolStats(String poolName, int active, int idle, int pending, int total, int max) {
+            this.poolName = poolName;
+            this.active = active;
+            this.idle = idle;
+            this.pending = pending;
+            this.total = total;
+            this.max = max;
+        }
+
+        public String getPoolName() { return poolName; }
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getPending() { return pending; }
+        public int getTotal() { return total; }
+        public int getMax() { return max; }
+    }
+}
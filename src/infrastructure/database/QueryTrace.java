@@ -0,0 +1,125 @@
+package database;
+
+import exception.QueryBudgetExceededException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Teller databasearbeidet én tråd gjør mellom start() og close(), typisk én HTTP-forespørsel.
+ *
+ * {@link TracingDataSource} registrerer hver tilkobling som lånes og hver setning som kjøres
+ * i sporet som er aktivt på tråden. Uten et aktivt spor telles ingenting. Spor kan nøstes;
+ * close() gjenoppretter nærmeste ytre spor som ikke er lukket, også når et indre spor er
+ * glemt åpent eller sporene lukkes i feil rekkefølge. Tråder i en pool arver dermed aldri
+ * et spor fra en tidligere forespørsel.
+ *
+ * I tester: try (QueryTrace trace = QueryTrace.start("søk")) { ...; trace.assertWithin(3); }
+ */
+public final class QueryTrace implements AutoCloseable {
+
+    /** Høyst så mange trege spørringer tas vare på per spor. */
+    private static final int MAX_SLOW_QUERIES = 20;
+
+    private static final ThreadLocal<QueryTrace> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final QueryTrace outer;
+    private final List<SlowQuery> slowQueries = new ArrayList<>();
+    private int statements;
+    private int connections;
+    private long statementNanos;
+    private boolean closed;
+
+    private QueryTrace(String name, QueryTrace outer) {
+        this.name = name;
+        this.outer = outer;
+    }
+
+    public static QueryTrace start(String name) {
+        QueryTrace trace = new QueryTrace(name, CURRENT.get());
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /** Sporet som er aktivt på tråden, eller null. */
+    public static QueryTrace current() {
+        return CURRENT.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        QueryTrace restore = outer;
+        while (restore != null && restore.closed) restore = restore.outer;
+        if (restore != null) CURRENT.set(restore);
+        else CURRENT.remove();
+    }
+
+    /**
+     * Feiler hvis sporet har kjørt flere setninger enn budsjettet tillater.
+     */
+    public void assertWithin(int maxStatements) {
+        if (statements > maxStatements) {
+            throw new QueryBudgetExceededException(name + " ran " + statements
+                    + " statements, budget is " + maxStatements + describeSlowest());
+        }
+    }
+
+    private String describeSlowest() {
+        if (slowQueries.isEmpty()) return "";
+        return "; slowest: " + Collections.max(slowQueries, (a, b) -> Long.compare(a.getNanos(), b.getNanos()));
+    }
+
+    // --- Registrering fra TracingDataSource ---
+
+    void connectionAcquired() {
+        connections++;
+        if (outer != null) outer.connectionAcquired();
+    }
+
+    void statementExecuted(long nanos) {
+        statements++;
+        statementNanos += nanos;
+        if (outer != null) outer.statementExecuted(nanos);
+    }
+
+    void slowQuery(SlowQuery query) {
+        if (slowQueries.size() < MAX_SLOW_QUERIES) slowQueries.add(query);
+        if (outer != null) outer.slowQuery(query);
+    }
+
+    // --- Gettere ---
+
+    public String getName() { return name; }
+    public int getStatements() { return statements; }
+    public int getConnections() { return connections; }
+    public long getStatementMillis() { return statementNanos / 1_000_000; }
+    public List<SlowQuery> getSlowQueries() { return Collections.unmodifiableList(slowQueries); }
+
+    /**
+     * En spørring som tok lengre tid enn terskelen. Bindingene beskrives bare med type og
+     * antall, så verdier havner aldri i loggen.
+     */
+    public static final class SlowQuery {
+        private final String sql;
+        private final String bindShape;
+        private final long nanos;
+
+        SlowQuery(String sql, String bindShape, long nanos) {
+            this.sql = sql;
+            this.bindShape = bindShape;
+            this.nanos = nanos;
+        }
+
+        public String getSql() { return sql; }
+        public String getBindShape() { return bindShape; }
+        public long getNanos() { return nanos; }
+
+        @Override
+        public String toString() {
+            return (nanos / 1_000_000) + " ms: " + sql + " " + bindShape;
+        }
+    }
+}
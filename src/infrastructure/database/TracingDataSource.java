@@ -0,0 +1,174 @@
+package database;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lett sporing rundt en DataSource: hver tilkobling som lånes og hver setning som kjøres
+ * registreres i {@link QueryTrace} for tråden, og spørringer over terskelen skrives ut med
+ * SQL og bindingenes form (typer og antall, ikke verdier).
+ *
+ * Uten et aktivt spor måles bare tiden mot terskelen. unwrap() slipper gjennom til poolen, så
+ * poolstatistikk og metrikker ser Hikari som før.
+ */
+public class TracingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private static final Set<String> EXECUTE_METHODS =
+            Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final long slowQueryNanos;
+
+    public TracingDataSource(DataSource delegate, Duration slowQueryThreshold) {
+        super(delegate);
+        this.slowQueryNanos = slowQueryThreshold.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return traced(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return traced(super.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) closeable.close();
+    }
+
+    private Connection traced(Connection connection) {
+        QueryTrace trace = QueryTrace.current();
+        if (trace != null) trace.connectionAcquired();
+
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return switch (method.getName()) {
+                        case "prepareStatement" -> statement(result, PreparedStatement.class, (String) args[0]);
+                        case "prepareCall" -> statement(result, CallableStatement.class, (String) args[0]);
+                        case "createStatement" -> statement(result, Statement.class, null);
+                        default -> result;
+                    };
+                });
+    }
+
+    private Object statement(Object statement, Class<?> type, String sql) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new StatementHandler(statement, sql));
+    }
+
+    void record(String sql, BindShape binds, long nanos) {
+        QueryTrace trace = QueryTrace.current();
+        if (trace != null) trace.statementExecuted(nanos);
+        if (nanos < slowQueryNanos) return;
+
+        QueryTrace.SlowQuery slow = new QueryTrace.SlowQuery(normalize(sql), binds.describe(), nanos);
+        if (trace != null) trace.slowQuery(slow);
+        System.err.println("Slow query (" + (trace != null ? trace.getName() + ", " : "") + slow + ")");
+    }
+
+    private static String normalize(String sql) {
+        return sql == null ? "?" : sql.replaceAll("\\s+", " ").trim();
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Object statement;
+        private final String sql;
+        private final BindShape binds = new BindShape();
+
+        StatementHandler(Object statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                binds.bind(index, name.substring(3));
+            } else if (name.equals("addBatch")) {
+                binds.addBatch();
+            } else if (name.equals("clearParameters")) {
+                binds.clear();
+            }
+
+            if (!EXECUTE_METHODS.contains(name)) return TracingDataSource.invoke(statement, method, args);
+
+            // Statement.execute(sql) har SQL-en som argument
+            String executed = args != null && args.length > 0 && args[0] instanceof String text ? text : sql;
+            long start = System.nanoTime();
+            try {
+                return TracingDataSource.invoke(statement, method, args);
+            } finally {
+                record(executed, binds, System.nanoTime() - start);
+                if (name.endsWith("Batch")) binds.clearBatch();
+            }
+        }
+    }
+
+    /**
+     * Bindingene til en setning som typer per posisjon, slått sammen der de gjentas:
+     * "(Intx500)" for en IN-liste, "(Int, String) x200 rows" for en batch.
+     */
+    static final class BindShape {
+        private final List<String> types = new ArrayList<>();
+        private int batchRows;
+
+        void bind(int index, String type) {
+            while (types.size() < index) types.add("?");
+            types.set(index - 1, type);
+        }
+
+        void addBatch() {
+            batchRows++;
+        }
+
+        void clearBatch() {
+            batchRows = 0;
+        }
+
+        void clear() {
+            types.clear();
+        }
+
+        String describe() {
+            StringBuilder shape = new StringBuilder("(");
+            int i = 0;
+            while (i < types.size()) {
+                int run = 1;
+                while (i + run < types.size() && types.get(i + run).equals(types.get(i))) run++;
+                if (shape.length() > 1) shape.append(", ");
+                shape.append(types.get(i));
+                if (run > 1) shape.append('x').append(run);
+                i += run;
+            }
+            shape.append(')');
+            if (batchRows > 0) shape.append(" x").append(batchRows).append(" rows");
+            return shape.toString();
+        }
+    }
+}
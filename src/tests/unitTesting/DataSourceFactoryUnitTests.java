@@ -0,0 +1,30 @@
+package unitTesting;
+
+import com.zaxxer.hikari.HikariConfig;
+import database.DataSourceFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataSourceFactoryUnitTests {
+
+    @Test
+    void testPoolSize_isBoundedByThreadsAndCores() {
+        assertEquals(9, DataSourceFactory.poolSize(200, 4));
+        assertEquals(3, DataSourceFactory.poolSize(3, 16));
+        assertEquals(2, DataSourceFactory.poolSize(1, 8));
+    }
+
+    @Test
+    void testPerformanceProfile_enablesStatementCachingAndLeakDetection() {
+        HikariConfig config = DataSourceFactory.performanceProfile(
+                "test", "jdbc:mysql://localhost:3306/ferry", "user", "secret", 1);
+
+        assertEquals("true", config.getDataSourceProperties().getProperty("useServerPrepStmts"));
+        assertEquals("true", config.getDataSourceProperties().getProperty("cachePrepStmts"));
+        assertEquals("true", config.getDataSourceProperties().getProperty("rewriteBatchedStatements"));
+        assertTrue(config.getLeakDetectionThreshold() > 0);
+        assertEquals(2, config.getMaximumPoolSize());
+        assertEquals("test", config.getPoolName());
+    }
+}
@@ -0,0 +1,236 @@
+package unitTesting;
+
+import domain.model.ExceptionEntry;
+import domain.model.ExceptionType;
+import domain.model.Route;
+import domain.model.Stops;
+import dto.DepartureChangeDTO;
+import event.ChangeType;
+import event.ExceptionEntryChangedEvent;
+import event.OperationMessageChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import port.outbound.*;
+import service.DepartureChangeFeed;
+import service.ScheduleService;
+import service.timetable.TimetableSnapshotProvider;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DepartureChangeFeedUnitTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 11, 17);
+
+    private final Stops gamlebyen = new Stops(1, "Gamlebyen");
+    private final Stops aalekilen = new Stops(2, "Ålekilen");
+    private final Route route10 = new Route(10, 100, gamlebyen, aalekilen, true);
+    private final Route route11 = new Route(11, 101, aalekilen, gamlebyen, true);
+
+    private ScheduleService scheduleService;
+    private TimetableSnapshotProvider snapshotProvider;
+    private DepartureChangeFeed feed;
+
+    @BeforeEach
+    void setup() {
+        scheduleService = mock(ScheduleService.class);
+        when(scheduleService.getDepartures(any())).thenReturn(List.of());
+
+        RouteRepositoryPort routeRepo = mock(RouteRepositoryPort.class);
+        ExceptionEntryRepositoryPort exceptionRepo = mock(ExceptionEntryRepositoryPort.class);
+        snapshotProvider = new TimetableSnapshotProvider(routeRepo,
+                mock(RouteStopsRepositoryPort.class), mock(FrequencyRepositoryPort.class), exceptionRepo);
+        when(routeRepo.readAll()).thenReturn(List.of(route10, route11));
+
+        // Utsendingen skjer på testtråden
+        feed = new DepartureChangeFeed(scheduleService, snapshotProvider, Runnable::run);
+        feed.setClock(Clock.fixed(TODAY.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+    }
+
+    @Test
+    void testRouteSubscription_receivesOnlyItsRoute() {
+        List<DepartureChangeDTO> received = new ArrayList<>();
+        feed.subscribeRoute(10, recorder(received));
+
+        feed.onTimetableChange(new ExceptionEntryChangedEvent(ChangeType.CREATED, null, cancellation(route11)));
+        assertTrue(received.isEmpty());
+
+        feed.onTimetableChange(new ExceptionEntryChangedEvent(ChangeType.CREATED, null, cancellation(route10)));
+        assertEquals(1, received.size());
+        assertEquals(List.of(10), received.get(0).getRouteIds());
+        assertNull(received.get(0).getDepartures());
+    }
+
+    @Test
+    void testStopPairSubscribers_shareOneDepartureLookup() {
+        List<DepartureChangeDTO> first = new ArrayList<>();
+        List<DepartureChangeDTO> second = new ArrayList<>();
+        feed.subscribeStopPair(gamlebyen, aalekilen, recorder(first));
+        feed.subscribeStopPair(gamlebyen, aalekilen, recorder(second));
+        verify(scheduleService, times(2)).getDepartures(any());
+
+        // Ukjent rute ved sletting, så alle abonnenter berøres
+        feed.onTimetableChange(new OperationMessageChangedEvent(ChangeType.DELETED, 3, null));
+
+        verify(scheduleService, times(3)).getDepartures(any());
+        assertEquals("DELETED", first.get(1).getChangeType());
+        assertEquals(List.of(), second.get(1).getDepartures());
+    }
+
+    @Test
+    void testDeletedMessage_reachesOnlyItsRoute() {
+        List<DepartureChangeDTO> route10Changes = new ArrayList<>();
+        List<DepartureChangeDTO> route11Changes = new ArrayList<>();
+        feed.subscribeRoute(10, recorder(route10Changes));
+        feed.subscribeRoute(11, recorder(route11Changes));
+
+        feed.onTimetableChange(new OperationMessageChangedEvent(ChangeType.DELETED, 3, 11, null));
+
+        assertTrue(route10Changes.isEmpty());
+        assertEquals(List.of(11), route11Changes.get(0).getRouteIds());
+    }
+
+    @Test
+    void testFailingListener_isUnsubscribed() {
+        feed.subscribeRoute(10, new DepartureChangeFeed.Listener() {
+            @Override
+            public void onChange(DepartureChangeDTO change) throws Exception {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void onHeartbeat() {
+            }
+        });
+        assertEquals(1, feed.getSubscriberCount());
+
+        feed.onTimetableChange(new ExceptionEntryChangedEvent(ChangeType.UPDATED, null, cancellation(route10)));
+        assertEquals(0, feed.getSubscriberCount());
+    }
+
+    @Test
+    void testSlowListener_doesNotHoldBackOthersAndIsClosedWhenQueueFills() throws Exception {
+        ExecutorService delivery = Executors.newFixedThreadPool(2);
+        DepartureChangeFeed pooled = new DepartureChangeFeed(scheduleService, snapshotProvider, Runnable::run, delivery);
+        pooled.setClock(Clock.fixed(TODAY.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicBoolean closed = new AtomicBoolean();
+            pooled.subscribeRoute(10, new DepartureChangeFeed.Listener() {
+                @Override
+                public void onChange(DepartureChangeDTO change) throws Exception {
+                    release.await();
+                }
+
+                @Override
+                public void onHeartbeat() {
+                }
+
+                @Override
+                public void onClose() {
+                    closed.set(true);
+                }
+            });
+            Semaphore fastReceived = new Semaphore(0);
+            pooled.subscribeRoute(10, new DepartureChangeFeed.Listener() {
+                @Override
+                public void onChange(DepartureChangeDTO change) {
+                    fastReceived.release();
+                }
+
+                @Override
+                public void onHeartbeat() {
+                }
+            });
+
+            // Flere meldinger enn køen til den trege klienten rommer. Den raske får hver av dem.
+            for (int i = 0; i < 32; i++) {
+                pooled.onTimetableChange(new ExceptionEntryChangedEvent(ChangeType.UPDATED, null, cancellation(route10)));
+                assertTrue(fastReceived.tryAcquire(5, TimeUnit.SECONDS));
+            }
+            assertTrue(closed.get());
+            assertEquals(1, pooled.getSubscriberCount());
+            release.countDown();
+        } finally {
+            delivery.shutdownNow();
+        }
+    }
+
+    @Test
+    void testShutdown_closesOpenSubscriptions() {
+        AtomicBoolean closed = new AtomicBoolean();
+        feed.subscribeRoute(10, new DepartureChangeFeed.Listener() {
+            @Override
+            public void onChange(DepartureChangeDTO change) {
+            }
+
+            @Override
+            public void onHeartbeat() {
+            }
+
+            @Override
+            public void onClose() {
+                closed.set(true);
+            }
+        });
+
+        feed.shutdown();
+        assertTrue(closed.get());
+        assertEquals(0, feed.getSubscriberCount());
+    }
+
+    @Test
+    void testStoppedSender_doesNotFailTheWrite() {
+        ExecutorService sender = Executors.newSingleThreadExecutor();
+        sender.shutdownNow();
+        DepartureChangeFeed stopped = new DepartureChangeFeed(scheduleService, snapshotProvider, sender);
+        stopped.setClock(Clock.fixed(TODAY.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+        stopped.subscribeRoute(10, recorder(new ArrayList<>()));
+
+        assertDoesNotThrow(() -> stopped.onTimetableChange(
+                new ExceptionEntryChangedEvent(ChangeType.CREATED, null, cancellation(route10))));
+        assertDoesNotThrow(() -> stopped.subscribeStopPair(gamlebyen, aalekilen, recorder(new ArrayList<>())));
+        assertEquals(1, stopped.getSubscriberCount());
+
+        stopped.shutdown();
+        stopped.subscribeRoute(10, recorder(new ArrayList<>()));
+        assertEquals(0, stopped.getSubscriberCount());
+    }
+
+    private static ExceptionEntry cancellation(Route route) {
+        return new ExceptionEntry.Builder()
+                .setRoute(route)
+                .setValidDate(TODAY)
+                .setDepartureTime(LocalTime.of(10, 0))
+                .setType(ExceptionType.CANCELLED)
+                .build();
+    }
+
+    private static DepartureChangeFeed.Listener recorder(List<DepartureChangeDTO> received) {
+        return new DepartureChangeFeed.Listener() {
+            @Override
+            public void onChange(DepartureChangeDTO change) {
+                received.add(change);
+            }
+
+            @Override
+            public void onHeartbeat() {
+            }
+        };
+    }
+}
@@ -0,0 +1,155 @@
+package unitTesting;
+
+import domain.model.Frequency;
+import domain.model.Route;
+import domain.model.Stops;
+import domain.model.Weekday;
+import event.ChangeType;
+import event.FrequencyChangedEvent;
+import event.OperationMessageChangedEvent;
+import event.RouteChangedEvent;
+import event.RouteStopsChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import port.outbound.*;
+import service.timetable.CompiledDay;
+import service.timetable.DepartureIndexCache;
+import service.timetable.TimetableSnapshotProvider;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DepartureIndexCacheUnitTests {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 11, 17);
+    private static final LocalDate TUESDAY = LocalDate.of(2025, 11, 18);
+
+    private RouteRepositoryPort routeRepo;
+    private FrequencyRepositoryPort frequencyRepo;
+    private Route route;
+    private Frequency mondayFreq;
+    private Frequency tuesdayFreq;
+
+    private DepartureIndexCache cache;
+
+    @BeforeEach
+    void setup() {
+        routeRepo = mock(RouteRepositoryPort.class);
+        RouteStopsRepositoryPort routeStopsRepo = mock(RouteStopsRepositoryPort.class);
+        frequencyRepo = mock(FrequencyRepositoryPort.class);
+        ExceptionEntryRepositoryPort exceptionRepo = mock(ExceptionEntryRepositoryPort.class);
+
+        route = new Route(10, 100, new Stops(1, "Gamlebyen"), new Stops(2, "Ålekilen"), true);
+        mondayFreq = new Frequency(1, route, Weekday.MONDAY, null, LocalTime.of(10, 0), LocalTime.of(11, 0), 30);
+        tuesdayFreq = new Frequency(2, route, Weekday.TUESDAY, null, LocalTime.of(12, 0), LocalTime.of(12, 0), 30);
+
+        when(routeRepo.readAll()).thenReturn(List.of(route));
+        when(frequencyRepo.readAll()).thenReturn(List.of(mondayFreq, tuesdayFreq));
+
+        cache = new DepartureIndexCache(
+                new TimetableSnapshotProvider(routeRepo, routeStopsRepo, frequencyRepo, exceptionRepo), 2);
+    }
+
+    @Test
+    void testGet_compilesEachDateOnce() {
+        CompiledDay monday = cache.get(MONDAY);
+        cache.get(MONDAY);
+
+        assertArrayEquals(new int[]{600, 630, 660}, monday.getDepartureMinutes(10));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        verify(frequencyRepo, times(1)).readAll();
+    }
+
+    @Test
+    void testGet_evictsLeastRecentlyUsedDate() {
+        cache.get(MONDAY);
+        cache.get(TUESDAY);
+        cache.get(MONDAY);
+        cache.get(MONDAY.plusWeeks(1));
+
+        assertEquals(2, cache.size());
+        cache.get(MONDAY);
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    void testChangeEvent_evictsOnlyTouchedDates() {
+        cache.get(MONDAY);
+        cache.get(TUESDAY);
+
+        Frequency changed = new Frequency(1, route, Weekday.MONDAY, null, LocalTime.of(10, 0), LocalTime.of(10, 0), 30);
+        when(frequencyRepo.readAll()).thenReturn(List.of(changed, tuesdayFreq));
+        cache.onTimetableChange(new FrequencyChangedEvent(ChangeType.UPDATED, mondayFreq, changed));
+
+        long missesBefore = cache.getMissCount();
+        assertArrayEquals(new int[]{720}, cache.get(TUESDAY).getDepartureMinutes(10));
+        assertEquals(missesBefore, cache.getMissCount());
+
+        assertArrayEquals(new int[]{600}, cache.get(MONDAY).getDepartureMinutes(10));
+        assertEquals(missesBefore + 1, cache.getMissCount());
+    }
+
+    @Test
+    void testBatchChangeEvent_evictsEveryTouchedDateOnce() {
+        cache.get(MONDAY);
+        cache.get(TUESDAY);
+
+        Frequency changedMonday = new Frequency(1, route, Weekday.MONDAY, null, LocalTime.of(10, 0), LocalTime.of(10, 0), 30);
+        Frequency changedTuesday = new Frequency(2, route, Weekday.TUESDAY, null, LocalTime.of(13, 0), LocalTime.of(13, 0), 30);
+        when(frequencyRepo.readAll()).thenReturn(List.of(changedMonday, changedTuesday));
+        cache.onTimetableChange(new FrequencyChangedEvent(ChangeType.UPDATED,
+                List.of(mondayFreq, tuesdayFreq), List.of(changedMonday, changedTuesday)));
+
+        assertArrayEquals(new int[]{600}, cache.get(MONDAY).getDepartureMinutes(10));
+        assertArrayEquals(new int[]{780}, cache.get(TUESDAY).getDepartureMinutes(10));
+        verify(frequencyRepo, times(2)).readAll();
+    }
+
+    @Test
+    void testChangeEvents_rebuildSnapshotOnceOnNextGet() {
+        cache.get(MONDAY);
+
+        Frequency first = new Frequency(1, route, Weekday.MONDAY, null, LocalTime.of(10, 0), LocalTime.of(10, 0), 30);
+        Frequency second = new Frequency(1, route, Weekday.MONDAY, null, LocalTime.of(11, 0), LocalTime.of(11, 0), 30);
+        when(frequencyRepo.readAll()).thenReturn(List.of(second, tuesdayFreq));
+        cache.onTimetableChange(new FrequencyChangedEvent(ChangeType.UPDATED, mondayFreq, first));
+        cache.onTimetableChange(new FrequencyChangedEvent(ChangeType.UPDATED, first, second));
+        verify(frequencyRepo, times(1)).readAll();
+
+        assertArrayEquals(new int[]{660}, cache.get(MONDAY).getDepartureMinutes(10));
+        cache.get(TUESDAY);
+        verify(frequencyRepo, times(2)).readAll();
+    }
+
+    @Test
+    void testRouteChange_keepsDaysAndMessageChange_evictsThem() {
+        cache.get(MONDAY);
+
+        cache.onTimetableChange(new RouteChangedEvent(ChangeType.UPDATED, 10, route));
+        cache.get(MONDAY);
+        assertEquals(1, cache.getMissCount());
+
+        cache.onTimetableChange(new OperationMessageChangedEvent(ChangeType.UPDATED, 3, null));
+        cache.get(MONDAY);
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void testRouteStopsChange_rebuildsSnapshotButKeepsDays() {
+        cache.get(MONDAY);
+        long versionBefore = cache.getSnapshotProvider().current().getVersion();
+
+        cache.onTimetableChange(new RouteStopsChangedEvent(ChangeType.DELETED, 5, null));
+
+        long missesBefore = cache.getMissCount();
+        cache.get(MONDAY);
+        assertEquals(missesBefore, cache.getMissCount());
+        assertTrue(cache.getSnapshotProvider().current().getVersion() > versionBefore);
+        verify(routeRepo, times(2)).readAll();
+    }
+}
@@ -1,13 +1,26 @@
 package unitTesting;
 
+import domain.model.Route;
+import domain.model.RouteStops;
+import domain.model.Stops;
 import domain.model.environment.EnvironmentVariables;
+import domain.model.environment.RateProfile;
 import dto.EnvironmentDTO;
+import event.ChangeType;
+import event.StopDistanceChangedEvent;
 import domain.model.environment.DistanceBetweenStops;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import port.outbound.StopDistanceRepositoryPort;
+import port.outbound.*;
 import service.EnvironmentService;
+import service.environment.DistanceGraph;
+import service.environment.SavingsMatrix;
+import service.timetable.TimetableSnapshotProvider;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -93,4 +106,117 @@ class EnvironmentServiceUnitTests {
         assertEquals(expectedCost, result.getCostSaved());
         assertEquals(expectedEmission, result.getEmissionSaved());
     }
+
+    @Test
+    @DisplayName("calculateSavings uses the precomputed matrix and rebuilds it after a distance change")
+    void calculateSavings_UsesMatrix() {
+        DistanceBetweenStops route = new DistanceBetweenStops(1, new Stops(1, "Gamlebyen"), new Stops(2, "Ålekilen"), 10, true);
+        when(stopDistanceRepository.readAll()).thenReturn(List.of(route));
+
+        EnvironmentDTO first = environmentService.calculateSavings(1, 2);
+        EnvironmentDTO second = environmentService.calculateSavings(1, 2);
+
+        assertEquals(route.costSaved(), first.getCostSaved());
+        assertEquals(route.emissionSaved(), second.getEmissionSaved());
+        verify(stopDistanceRepository, times(1)).readAll();
+        verify(stopDistanceRepository, never()).findByFromAndTo(anyInt(), anyInt());
+
+        environmentService.onStopDistanceChange(new StopDistanceChangedEvent(ChangeType.UPDATED, 1));
+        environmentService.calculateSavings(1, 2);
+        verify(stopDistanceRepository, times(2)).readAll();
+    }
+
+    @Test
+    @DisplayName("calculateSavings derives road distance for a route pair without its own row")
+    void calculateSavings_DerivesRoutePair() {
+        Stops gamlebyen = new Stops(1, "Gamlebyen");
+        Stops alekilen = new Stops(2, "Ålekilen");
+        Stops vesteroy = new Stops(3, "Vesterøy");
+        Route route = new Route(10, 100, gamlebyen, alekilen, true);
+
+        RouteRepositoryPort routeRepo = mock(RouteRepositoryPort.class);
+        RouteStopsRepositoryPort routeStopsRepo = mock(RouteStopsRepositoryPort.class);
+        when(routeRepo.readAll()).thenReturn(List.of(route));
+        when(routeStopsRepo.readAll()).thenReturn(List.of(new RouteStops(1, route, vesteroy, 2, 10, 5.0)));
+        TimetableSnapshotProvider snapshots = new TimetableSnapshotProvider(routeRepo, routeStopsRepo,
+                mock(FrequencyRepositoryPort.class), mock(ExceptionEntryRepositoryPort.class));
+
+        // Veien går innom Vesterøy; bare første del har bom
+        when(stopDistanceRepository.readAll()).thenReturn(List.of(
+                new DistanceBetweenStops(1, gamlebyen, vesteroy, 4, true),
+                new DistanceBetweenStops(2, vesteroy, alekilen, 6, false)));
+        EnvironmentService service = new EnvironmentService(stopDistanceRepository, snapshots);
+
+        EnvironmentDTO result = service.calculateSavings(1, 2);
+        DistanceBetweenStops expected = new DistanceBetweenStops(gamlebyen, alekilen, 10, true);
+
+        assertEquals(expected.costSaved(), result.getCostSaved());
+        assertEquals(expected.emissionSaved(), result.getEmissionSaved());
+        // Bare leggen til Vesterøy er målt; avstanden til sluttstoppet er et anslag og tas ikke med
+        assertEquals(5.0, service.getSavingsMatrix().getSeaDistance(1, 3));
+        assertTrue(Double.isNaN(service.getSavingsMatrix().getSeaDistance(1, 2)));
+        verify(stopDistanceRepository, never()).findByFromAndTo(anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("calculateSavings leaves a route pair without any road out of the matrix")
+    void calculateSavings_RoutePairWithoutRoad_FallsThroughToLookup() {
+        Stops gamlebyen = new Stops(1, "Gamlebyen");
+        Stops alekilen = new Stops(2, "Ålekilen");
+        Route route = new Route(10, 100, gamlebyen, alekilen, true);
+
+        RouteRepositoryPort routeRepo = mock(RouteRepositoryPort.class);
+        when(routeRepo.readAll()).thenReturn(List.of(route));
+        TimetableSnapshotProvider snapshots = new TimetableSnapshotProvider(routeRepo, mock(RouteStopsRepositoryPort.class),
+                mock(FrequencyRepositoryPort.class), mock(ExceptionEntryRepositoryPort.class));
+        when(stopDistanceRepository.readAll()).thenReturn(List.of());
+        EnvironmentService service = new EnvironmentService(stopDistanceRepository, snapshots);
+
+        assertFalse(service.getSavingsMatrix().contains(1, 2));
+        assertThrows(RuntimeException.class, () -> service.calculateSavings(1, 2));
+        verify(stopDistanceRepository, times(1)).findByFromAndTo(1, 2);
+    }
+
+    @Test
+    @DisplayName("DistanceGraph keeps the tollgate of each direction on derived paths")
+    void distanceGraph_TollgateFollowsDirection() {
+        Stops gamlebyen = new Stops(1, "Gamlebyen");
+        Stops smertu = new Stops(2, "Smertu");
+        Stops sentrum = new Stops(3, "Sentrum");
+
+        // Bom bare fra Gamlebyen mot Smertu; Smertu-Sentrum har bare én rad
+        DistanceGraph graph = DistanceGraph.of(List.of(
+                new DistanceBetweenStops(1, gamlebyen, smertu, 4, true),
+                new DistanceBetweenStops(2, smertu, gamlebyen, 4, false),
+                new DistanceBetweenStops(3, smertu, sentrum, 3, false)));
+
+        assertTrue(graph.roadsFrom(1).get(3).isTollgate());
+        assertFalse(graph.roadsFrom(3).get(1).isTollgate());
+        assertEquals(7.0, graph.roadsFrom(3).get(1).getDistance());
+    }
+
+    @Test
+    @DisplayName("reloadRates publishes a new profile together with a recomputed matrix")
+    void reloadRates_RecomputesMatrix() {
+        DistanceBetweenStops route = new DistanceBetweenStops(1, new Stops(1, "Gamlebyen"), new Stops(2, "Ålekilen"), 10, false);
+        when(stopDistanceRepository.readAll()).thenReturn(List.of(route));
+
+        Properties properties = new Properties();
+        properties.setProperty("standardRatePrKm", "5");
+        properties.setProperty("ferryRate", "10");
+        RateProfileRepositoryPort rateRepository = mock(RateProfileRepositoryPort.class);
+        when(rateRepository.load()).thenReturn(Optional.of(RateProfile.fromProperties(properties)));
+
+        EnvironmentService service = new EnvironmentService(stopDistanceRepository, null, rateRepository);
+        SavingsMatrix before = service.getSavingsMatrix();
+
+        properties.setProperty("standardRatePrKm", "6");
+        when(rateRepository.load()).thenReturn(Optional.of(RateProfile.fromProperties(properties)));
+        RateProfile reloaded = service.reloadRates().orElseThrow();
+
+        assertEquals(40.0, before.getCostSaved(1, 2));
+        assertTrue(reloaded.getVersion() > before.getRates().getVersion());
+        assertSame(reloaded, service.getSavingsMatrix().getRates());
+        assertEquals(50.0, service.calculateSavings(1, 2).getCostSaved());
+    }
 }
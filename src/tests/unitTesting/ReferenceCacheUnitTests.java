@@ -0,0 +1,70 @@
+package unitTesting;
+
+import adapter.ReferenceCache;
+import domain.model.Stops;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceCacheUnitTests {
+
+    private ReferenceCache<Stops> cache;
+    private AtomicInteger loads;
+    private IntFunction<Optional<Stops>> loader;
+
+    @BeforeEach
+    void setup() {
+        cache = new ReferenceCache<>(2);
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            return id > 0 ? Optional.of(new Stops(id, "Stopp " + id)) : Optional.empty();
+        };
+    }
+
+    @Test
+    void testGet_loadsOnceThenHits() {
+        Stops first = cache.get(1, loader).orElseThrow();
+        Stops second = cache.get(1, loader).orElseThrow();
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void testGet_missingIsNotCached() {
+        assertTrue(cache.get(0, loader).isEmpty());
+        assertTrue(cache.get(0, loader).isEmpty());
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testInvalidate_forcesReload() {
+        cache.get(1, loader);
+        cache.invalidate(1);
+        cache.get(1, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testCapacity_evictsLeastRecentlyUsed() {
+        cache.get(1, loader);
+        cache.get(2, loader);
+        cache.get(1, loader);
+        cache.get(3, loader);
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.peek(1));
+        assertNull(cache.peek(2));
+    }
+}
@@ -0,0 +1,78 @@
+package unitTesting;
+
+import config.RepositoryMetricsPostProcessor;
+import domain.model.environment.RateProfile;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import port.outbound.RateProfileRepositoryPort;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositoryMetricsPostProcessorUnitTests {
+
+    private SimpleMeterRegistry registry;
+    private RepositoryMetricsPostProcessor postProcessor;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", registry);
+
+        postProcessor = new RepositoryMetricsPostProcessor(beanFactory.getBeanProvider(MeterRegistry.class));
+        postProcessor.setBeanFactory(beanFactory);
+    }
+
+    @Test
+    void testPortMethods_areTimedPerPortMethodAndOutcome() {
+        FileRates adapter = (FileRates) postProcessor.postProcessAfterInitialization(new FileRates(false), "rates");
+        FileRates failing = (FileRates) postProcessor.postProcessAfterInitialization(new FileRates(true), "failingRates");
+
+        adapter.load();
+        adapter.load();
+        assertThrows(IllegalStateException.class, failing::load);
+
+        assertEquals(2, registry.get(RepositoryMetricsPostProcessor.TIMER)
+                .tags("port", "RateProfileRepositoryPort", "method", "load", "outcome", "success").timer().count());
+        assertEquals(1, registry.get(RepositoryMetricsPostProcessor.TIMER)
+                .tags("outcome", "error").timer().count());
+    }
+
+    @Test
+    void testMethodsOutsidePorts_areNotTimed() {
+        FileRates adapter = (FileRates) postProcessor.postProcessAfterInitialization(new FileRates(false), "rates");
+
+        adapter.reload();
+
+        assertNull(registry.find(RepositoryMetricsPostProcessor.TIMER).timer());
+    }
+
+    @Test
+    void testBeansWithoutPorts_areLeftAlone() {
+        Object bean = new Object();
+        assertSame(bean, postProcessor.postProcessAfterInitialization(bean, "other"));
+    }
+
+    // Klasseproxy, som for adapterne som injiseres med konkret type
+    static class FileRates implements RateProfileRepositoryPort {
+        private final boolean failing;
+
+        FileRates(boolean failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public Optional<RateProfile> load() {
+            if (failing) throw new IllegalStateException("rates unavailable");
+            return Optional.empty();
+        }
+
+        public void reload() {
+        }
+    }
+}
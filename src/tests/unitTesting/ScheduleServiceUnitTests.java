@@ -1,22 +1,31 @@
 package unitTesting;
 
+import domain.model.ExceptionEntry;
+import domain.model.ExceptionType;
+import domain.model.Frequency;
+import domain.model.OperationMessage;
 import domain.model.Route;
+import domain.model.RouteStops;
 import domain.model.Stops;
 import domain.model.TimeMode;
+import domain.model.Weekday;
 import dto.DepartureDTO;
 import dto.DepartureRequestDTO;
 import dto.DepartureResponseDTO;
 import dto.ScheduleDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import port.outbound.*;
 import service.EnvironmentService;
 import service.ScheduleService;
+import service.ScheduleServiceWithoutDTO;
 
 import java.time.*;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class ScheduleServiceUnitTests {
@@ -36,6 +45,8 @@ class ScheduleServiceUnitTests {
         routeStopsRepo = mock(RouteStopsRepositoryPort.class);
         frequencyRepo = mock(FrequencyRepositoryPort.class);
         exceptionRepo = mock(ExceptionEntryRepositoryPort.class);
+        // Øyeblikksbildet strømmer unntakene; standardvarianten leser via readAll()
+        doCallRealMethod().when(exceptionRepo).forEachAll(any());
         stopsRepo = mock(StopsRepositoryPort.class);
         environmentService = mock(EnvironmentService.class);
 
@@ -149,74 +160,28 @@ class ScheduleServiceUnitTests {
         LocalTime now = LocalTime.now(fixedClock);
         LocalDate today = LocalDate.now(fixedClock);
 
-        // Lag avgangene – én i fortiden, én i fremtiden
-        DepartureDTO pastDep = new DepartureDTO();
-        pastDep.setRouteId(100);
-        pastDep.setRouteNumber(100);
-        pastDep.setFromStopId(1);
-        pastDep.setFromStopName("Gamlebyen");
-        pastDep.setToStopId(2);
-        pastDep.setToStopName("Ålekilen");
-        pastDep.setTravelDate(today);
-        pastDep.setPlannedDeparture(now.minusHours(1));
-        pastDep.setArrivalTime(now.plusHours(1));
-
-        DepartureDTO futureDep = new DepartureDTO();
-        futureDep.setRouteId(100);
-        futureDep.setRouteNumber(100);
-        futureDep.setFromStopId(1);
-        futureDep.setFromStopName("Gamlebyen");
-        futureDep.setToStopId(2);
-        futureDep.setToStopName("Ålekilen");
-        futureDep.setTravelDate(today);
-        futureDep.setPlannedDeparture(now.plusHours(1));
-        futureDep.setArrivalTime(now.plusHours(2));
-
-        // Lag en subklasse av ScheduleService for å override findDepartures
-        class TestScheduleService extends ScheduleService {
-            private final List<DepartureDTO> mockDepartures;
+        // To avganger – én i fortiden, én i fremtiden
+        Frequency freq = new Frequency(1, route, Weekday.fromLocalDate(today), null,
+                now.minusHours(1), now.plusHours(1), 120);
 
-            public TestScheduleService(RouteRepositoryPort routeRepo,
-                                       RouteStopsRepositoryPort routeStopsRepo,
-                                       FrequencyRepositoryPort frequencyRepo,
-                                       ExceptionEntryRepositoryPort exceptionRepo,
-                                       StopsRepositoryPort stopsRepo,
-                                       EnvironmentService environmentService,
-                                       List<DepartureDTO> mockDepartures) {
-                super(routeRepo, routeStopsRepo, frequencyRepo, exceptionRepo, stopsRepo, environmentService);
-                this.mockDepartures = mockDepartures;
-            }
-
-            @Override
-            protected List<DepartureDTO> findDepartures(Stops from, Stops to, LocalDate date, LocalTime time) {
-                return mockDepartures;
-            }
-        }
-
-        // Opprett testservice
-        List<DepartureDTO> mockDepartures = List.of(pastDep, futureDep);
-        TestScheduleService testService = new TestScheduleService(
-                routeRepo,
-                routeStopsRepo,
-                frequencyRepo,
-                exceptionRepo,
-                stopsRepo,
-                environmentService,
-                mockDepartures
-        );
-
-        testService.setClock(fixedClock);
-        testService.allRoutes = List.of(route);
+        scheduleService.setClock(fixedClock);
+        when(routeRepo.readAll()).thenReturn(List.of(route));
+        when(frequencyRepo.readAll()).thenReturn(List.of(freq));
 
         // Kall metoden
-        List<ScheduleDTO> result = testService.getFullSchedule(today);
+        List<ScheduleDTO> result = scheduleService.getFullSchedule(today);
 
         // Sjekk at kun fremtidige avganger returneres
         assertEquals(1, result.size());
         ScheduleDTO dto = result.get(0);
         assertEquals(100, dto.getRouteNumber());
         assertEquals(1, dto.getPlannedDepartures().size());
-        assertEquals(futureDep.getPlannedDeparture(), dto.getPlannedDepartures().get(0));
+        assertEquals(now.plusHours(1), dto.getPlannedDepartures().get(0));
+
+        // Senere samme dag: samme tabell gjenbrukes, bare kuttet ved nytt minutt
+        scheduleService.setClock(Clock.offset(fixedClock, Duration.ofMinutes(61)));
+        assertTrue(scheduleService.getFullSchedule(today).isEmpty());
+        verify(frequencyRepo, times(1)).readAll();
     }
 
     @Test
@@ -299,5 +264,133 @@ class ScheduleServiceUnitTests {
         assertEquals(futureDep.getPlannedDeparture(), result.get(0).getPlannedDeparture());
     }
 
-}
+    @Test
+    void testGetDepartures_readsRepositoriesOnceAcrossSearches() {
+        Stops fromStop = new Stops(1, "Gamlebyen");
+        Stops toStop = new Stops(2, "Ålekilen");
+        Route route = new Route(10, 100, fromStop, toStop, true);
+
+        // Mandag, 10:00 - 11:00 hvert 30. minutt
+        Frequency freq = new Frequency(1, route, Weekday.MONDAY, null,
+                LocalTime.of(10, 0), LocalTime.of(11, 0), 30);
+
+        when(stopsRepo.readAll()).thenReturn(List.of(fromStop, toStop));
+        when(routeRepo.readAll()).thenReturn(List.of(route));
+        when(frequencyRepo.readAll()).thenReturn(List.of(freq));
+
+        DepartureRequestDTO request = new DepartureRequestDTO(
+                "Gamlebyen", "Ålekilen",
+                LocalDate.of(2025, 11, 17),
+                LocalTime.of(9, 0),
+                TimeMode.DEPART
+        );
+
+        List<DepartureResponseDTO> first = scheduleService.getDepartures(request);
+        List<DepartureResponseDTO> second = scheduleService.getDepartures(request);
 
+        assertEquals(3, first.size());
+        assertEquals(LocalTime.of(10, 0), first.get(0).getPlannedDeparture());
+        assertEquals(LocalTime.of(10, 5), first.get(0).getArrivalTime());
+        assertEquals(3, second.size());
+
+        // Ruteplanen bygges én gang og gjenbrukes, uten spørringer per søk
+        verify(routeRepo, times(1)).readAll();
+        verify(frequencyRepo, times(1)).readAll();
+        verify(frequencyRepo, never()).findActiveForRouteAndDate(any(), any());
+        verify(exceptionRepo, never()).findActiveForRouteAndDate(any(), any());
+    }
+
+    @Test
+    void testGetDepartures_recordsSearchTimerAndDeparturesPerRoute() {
+        Stops fromStop = new Stops(1, "Gamlebyen");
+        Stops toStop = new Stops(2, "Ålekilen");
+        Route route = new Route(10, 100, fromStop, toStop, true);
+        Frequency freq = new Frequency(1, route, Weekday.MONDAY, null,
+                LocalTime.of(10, 0), LocalTime.of(11, 0), 30);
+
+        when(stopsRepo.readAll()).thenReturn(List.of(fromStop, toStop));
+        when(routeRepo.readAll()).thenReturn(List.of(route));
+        when(frequencyRepo.readAll()).thenReturn(List.of(freq));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        scheduleService.setMeterRegistry(registry);
+
+        scheduleService.getDepartures(new DepartureRequestDTO("Gamlebyen", "Ålekilen",
+                LocalDate.of(2025, 11, 17), LocalTime.of(10, 15), TimeMode.DEPART));
+        scheduleService.getDepartures(new DepartureRequestDTO("Gamlebyen", "Ukjent",
+                LocalDate.of(2025, 11, 17), LocalTime.of(10, 15), TimeMode.ARRIVAL));
+
+        assertEquals(1, registry.get("ferry.schedule.search").tags("kind", "DEPART", "result", "found").timer().count());
+        assertEquals(1, registry.get("ferry.schedule.search").tags("kind", "ARRIVAL", "result", "empty").timer().count());
+        assertEquals(1, registry.get("ferry.schedule.unknown-stop").tag("side", "to").counter().count());
+        assertEquals(2, registry.get("ferry.departures.served").tag("route", "100").counter().count());
+    }
+
+    @Test
+    void testFindDepartures_fromIntermediateStop_slicesAcrossMidnight() {
+        Stops fromStop = new Stops(1, "Gamlebyen");
+        Stops midStop = new Stops(3, "Vesterøy");
+        Stops toStop = new Stops(2, "Ålekilen");
+        Route route = new Route(10, 100, fromStop, toStop, true);
+
+        // Mandag 23:40 og 23:55. Vesterøy ligger 10 minutter ut i ruten
+        Frequency freq = new Frequency(1, route, Weekday.MONDAY, null,
+                LocalTime.of(23, 40), LocalTime.of(23, 55), 15);
+
+        when(routeRepo.readAll()).thenReturn(List.of(route));
+        when(routeStopsRepo.readAll()).thenReturn(List.of(new RouteStops(1, route, midStop, 2, 10, 5.0)));
+        when(frequencyRepo.readAll()).thenReturn(List.of(freq));
+
+        ScheduleServiceWithoutDTO service = new ScheduleServiceWithoutDTO(
+                routeRepo, routeStopsRepo, frequencyRepo, exceptionRepo);
+        LocalDate monday = LocalDate.of(2025, 11, 17);
+
+        List<DepartureDTO> evening = service.getDepartures(midStop, toStop, monday, LocalTime.of(23, 45), TimeMode.DEPART);
+        List<DepartureDTO> afterMidnight = service.getDepartures(midStop, toStop, monday, LocalTime.of(0, 0), TimeMode.DEPART);
+        List<DepartureDTO> allDay = service.getDepartures(midStop, toStop, monday, null, TimeMode.DEPART);
+
+        assertEquals(List.of(LocalTime.of(23, 50)), evening.stream().map(DepartureDTO::getPlannedDeparture).toList());
+        assertEquals(2, afterMidnight.size());
+        assertEquals(LocalTime.of(0, 5), afterMidnight.get(0).getPlannedDeparture());
+        assertEquals(LocalTime.of(0, 10), afterMidnight.get(0).getArrivalTime());
+        assertEquals(2, allDay.size());
+    }
+
+    @Test
+    void testFindDepartures_resolvesExceptionsPerDeparture() {
+        Stops fromStop = new Stops(1, "Gamlebyen");
+        Stops toStop = new Stops(2, "Ålekilen");
+        Route route = new Route(10, 100, fromStop, toStop, true);
+        LocalDate monday = LocalDate.of(2025, 11, 17);
+
+        Frequency freq = new Frequency(1, route, Weekday.MONDAY, null,
+                LocalTime.of(10, 0), LocalTime.of(11, 0), 30);
+        OperationMessage delayMessage = new OperationMessage(1, "Forsinket pga. vær", LocalDateTime.of(2025, 11, 17, 8, 0), route,
+                LocalDateTime.of(2025, 11, 17, 8, 0), LocalDateTime.of(2025, 11, 17, 23, 0));
+
+        ExceptionEntry cancelled = new ExceptionEntry.Builder().setId(1).setRoute(route)
+                .setValidDate(monday).setDepartureTime(LocalTime.of(10, 30)).setType(ExceptionType.CANCELLED).build();
+        ExceptionEntry delayed = new ExceptionEntry.Builder().setId(2).setRoute(route).setStop(fromStop)
+                .setWeekday(Weekday.MONDAY).setDepartureTime(LocalTime.of(11, 0)).setType(ExceptionType.DELAYED)
+                .setOperationMessage(delayMessage).build();
+        ExceptionEntry extra = new ExceptionEntry.Builder().setId(3).setRoute(route)
+                .setValidDate(monday).setDepartureTime(LocalTime.of(12, 0)).setType(ExceptionType.EXTRA).build();
+
+        when(routeRepo.readAll()).thenReturn(List.of(route));
+        when(frequencyRepo.readAll()).thenReturn(List.of(freq));
+        when(exceptionRepo.readAll()).thenReturn(List.of(cancelled, delayed, extra));
+
+        ScheduleServiceWithoutDTO service = new ScheduleServiceWithoutDTO(
+                routeRepo, routeStopsRepo, frequencyRepo, exceptionRepo);
+
+        List<DepartureDTO> result = service.getDepartures(fromStop, toStop, monday, null, TimeMode.DEPART);
+
+        assertEquals(List.of(LocalTime.of(10, 0), LocalTime.of(11, 0), LocalTime.of(12, 0)),
+                result.stream().map(DepartureDTO::getPlannedDeparture).toList());
+        assertFalse(result.get(0).isDelayed());
+        assertTrue(result.get(1).isDelayed());
+        assertEquals("Forsinket pga. vær", result.get(1).getOperationMessage());
+        assertTrue(result.get(2).isExtra());
+    }
+
+}
@@ -0,0 +1,62 @@
+package unitTesting;
+
+import adapter.SeasonRepositoryMYSQLAdapter;
+import domain.model.Season;
+import event.SeasonChangedEvent;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SeasonRepositoryAdapterUnitTests {
+
+    private ApplicationEventPublisher events;
+    private SeasonRepositoryMYSQLAdapter adapter;
+
+    @BeforeEach
+    void setup() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:season;DB_CLOSE_DELAY=-1");
+        try (Connection connection = h2.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS season (id INT PRIMARY KEY, seasonType VARCHAR(20), "
+                    + "validYear INT, startDate DATE, endDate DATE)");
+            statement.execute("DELETE FROM season");
+            statement.execute("INSERT INTO season VALUES (1, 'Vinter', 2025, DATE '2025-01-01', DATE '2025-04-01')");
+        }
+        events = mock(ApplicationEventPublisher.class);
+        adapter = new SeasonRepositoryMYSQLAdapter(h2, events);
+    }
+
+    @Test
+    void testReadById_returnsNewInstanceFromCache() {
+        Season first = adapter.readById(1).orElseThrow();
+        first.setEndDate(LocalDate.of(2025, 2, 1));
+
+        Season second = adapter.readById(1).orElseThrow();
+        assertNotSame(first, second);
+        assertEquals(LocalDate.of(2025, 4, 1), second.getEndDate());
+        assertEquals(1, adapter.getCache().getHitCount());
+    }
+
+    @Test
+    void testUpdate_eventKeepsOldDatesWhenCallerChangedCachedSeason() {
+        Season season = adapter.readById(1).orElseThrow();
+        season.setEndDate(LocalDate.of(2025, 2, 1));
+        adapter.update(season);
+
+        ArgumentCaptor<SeasonChangedEvent> event = ArgumentCaptor.forClass(SeasonChangedEvent.class);
+        verify(events).publishEvent(event.capture());
+        // Mars var dekket av den gamle sesongen og må forkastes fra dagcachen
+        assertTrue(event.getValue().touches(LocalDate.of(2025, 3, 15)));
+        assertEquals(LocalDate.of(2025, 2, 1), adapter.readById(1).orElseThrow().getEndDate());
+    }
+}
@@ -0,0 +1,85 @@
+package unitTesting;
+
+import domain.model.Stops;
+import event.ChangeType;
+import event.StopChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import port.outbound.StopsRepositoryPort;
+import service.StopResolver;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StopResolverUnitTests {
+
+    private StopsRepositoryPort stopsRepo;
+    private Stops vaerste;
+    private Stops alekilen;
+    private Stops gamlebyen;
+
+    private StopResolver resolver;
+
+    @BeforeEach
+    void setup() {
+        stopsRepo = mock(StopsRepositoryPort.class);
+        vaerste = new Stops(1, "Værste");
+        alekilen = new Stops(2, "Ålekilen");
+        gamlebyen = new Stops(3, "Gamlebyen brygge");
+
+        when(stopsRepo.readAll()).thenReturn(List.of(vaerste, alekilen, gamlebyen));
+        resolver = new StopResolver(stopsRepo);
+    }
+
+    @Test
+    void testResolve_foldsCaseAndNorwegianLetters() {
+        assertEquals(vaerste, resolver.resolve("Vaerste").orElse(null));
+        assertEquals(vaerste, resolver.resolve("  VÆRSTE ").orElse(null));
+        assertEquals(alekilen, resolver.resolve("aalekilen").orElse(null));
+        assertTrue(resolver.resolve("Værst").isEmpty());
+
+        resolver.resolve("Gamlebyen brygge");
+        verify(stopsRepo, times(1)).readAll();
+    }
+
+    @Test
+    void testSuggest_prefixWordAndTypo() {
+        assertEquals(List.of(vaerste), resolver.suggest("vae", 5));
+        assertEquals(List.of(gamlebyen), resolver.suggest("bry", 5));
+        assertEquals(List.of(gamlebyen), resolver.suggest("gamlbyen", 5));
+        assertTrue(resolver.suggest("xyz", 5).isEmpty());
+    }
+
+    @Test
+    void testStopChange_rebuildsIndex() {
+        resolver.resolve("Værste");
+
+        Stops renamed = new Stops(1, "Vesten");
+        when(stopsRepo.readAll()).thenReturn(List.of(renamed, alekilen, gamlebyen));
+        resolver.onStopChange(new StopChangedEvent(ChangeType.UPDATED, 1, renamed));
+
+        assertTrue(resolver.resolve("Værste").isEmpty());
+        assertEquals(renamed, resolver.resolve("vesten").orElse(null));
+    }
+
+    @Test
+    void testStopChangeDuringRebuild_indexIsNotKept() {
+        Stops renamed = new Stops(1, "Vesten");
+        AtomicInteger reads = new AtomicInteger();
+        when(stopsRepo.readAll()).thenAnswer(invocation -> {
+            if (reads.incrementAndGet() > 1) return List.of(renamed, alekilen, gamlebyen);
+            // Stoppet endres mens den første byggingen leser
+            resolver.onStopChange(new StopChangedEvent(ChangeType.UPDATED, 1, renamed));
+            return List.of(vaerste, alekilen, gamlebyen);
+        });
+
+        resolver.resolve("Værste");
+
+        assertEquals(renamed, resolver.resolve("vesten").orElse(null));
+        assertTrue(resolver.resolve("Værste").isEmpty());
+        verify(stopsRepo, times(2)).readAll();
+    }
+}
@@ -0,0 +1,108 @@
+package unitTesting;
+
+import domain.model.Stops;
+import event.ChangeType;
+import event.StopChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import port.outbound.StopsRepositoryPort;
+import service.StopSpatialIndex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StopSpatialIndexUnitTests {
+
+    private StopsRepositoryPort stopsRepo;
+    private List<Stops> stops;
+    private StopSpatialIndex index;
+
+    @BeforeEach
+    void setup() {
+        stopsRepo = mock(StopsRepositoryPort.class);
+
+        // Stopp spredt rundt Fredrikstad, pluss ett langt unna
+        Random random = new Random(42);
+        stops = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            stops.add(new Stops(i, "Stopp " + i,
+                    59.15 + random.nextDouble() * 0.2, 10.85 + random.nextDouble() * 0.2, true));
+        }
+        stops.add(new Stops(999, "Tromsø", 69.65, 18.96, true));
+
+        when(stopsRepo.findAllActive()).thenReturn(stops);
+        index = new StopSpatialIndex(stopsRepo);
+    }
+
+    @Test
+    void testNearest_matchesBruteForceOrder() {
+        Random random = new Random(7);
+        for (int q = 0; q < 50; q++) {
+            double lat = 59.1 + random.nextDouble() * 0.3;
+            double lon = 10.8 + random.nextDouble() * 0.3;
+
+            List<Integer> expected = stops.stream()
+                    .sorted(Comparator.comparingDouble(s -> StopSpatialIndex.haversine(lat, lon, s.getLatitude(), s.getLongitude())))
+                    .limit(5)
+                    .map(Stops::getId)
+                    .toList();
+            List<Integer> actual = index.nearest(lat, lon, 5).stream().map(n -> n.getStop().getId()).toList();
+
+            assertEquals(expected, actual);
+        }
+        verify(stopsRepo, times(1)).findAllActive();
+    }
+
+    @Test
+    void testWithinRadius_filtersAndSortsByHaversine() {
+        double lat = 59.25;
+        double lon = 10.95;
+
+        List<StopSpatialIndex.Nearby> hits = index.withinRadius(lat, lon, 2.0, 100);
+
+        long expected = stops.stream()
+                .filter(s -> StopSpatialIndex.haversine(lat, lon, s.getLatitude(), s.getLongitude()) <= 2.0)
+                .count();
+        assertEquals(expected, hits.size());
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue(hits.get(i - 1).getDistanceKm() <= hits.get(i).getDistanceKm());
+        }
+
+        // Stoppet langt unna finnes bare med stor nok radius
+        assertEquals(999, index.nearest(69.6, 19.0, 1).get(0).getStop().getId());
+        assertTrue(index.withinRadius(69.6, 19.0, 1.0, 5).isEmpty());
+    }
+
+    @Test
+    void testStopChange_rebuildsGrid() {
+        index.nearest(59.2, 10.9, 1);
+        index.onStopChange(new StopChangedEvent(ChangeType.DELETED, 1, null));
+        index.nearest(59.2, 10.9, 1);
+
+        verify(stopsRepo, times(2)).findAllActive();
+    }
+
+    @Test
+    void testStopChangeDuringRebuild_gridIsNotKept() {
+        List<Stops> withoutFirst = stops.subList(1, stops.size());
+        AtomicInteger reads = new AtomicInteger();
+        when(stopsRepo.findAllActive()).thenAnswer(invocation -> {
+            if (reads.incrementAndGet() > 1) return withoutFirst;
+            // Stoppet deaktiveres mens det første nettet bygges
+            index.onStopChange(new StopChangedEvent(ChangeType.UPDATED, 1, null));
+            return stops;
+        });
+
+        Stops first = stops.get(0);
+        index.nearest(first.getLatitude(), first.getLongitude(), 1);
+
+        assertNotEquals(first, index.nearest(first.getLatitude(), first.getLongitude(), 1).get(0).getStop());
+        verify(stopsRepo, times(2)).findAllActive();
+    }
+}
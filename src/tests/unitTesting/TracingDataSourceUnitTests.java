@@ -0,0 +1,117 @@
+package unitTesting;
+
+import com.zaxxer.hikari.HikariDataSource;
+import database.DataSourceFactory;
+import database.QueryTrace;
+import database.TracingDataSource;
+import exception.QueryBudgetExceededException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TracingDataSourceUnitTests {
+
+    private JdbcDataSource h2;
+
+    @BeforeEach
+    void setup() throws SQLException {
+        h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:trace;DB_CLOSE_DELAY=-1");
+        try (Connection connection = h2.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS stops (stopId INT PRIMARY KEY, name VARCHAR(50))");
+            statement.execute("DELETE FROM stops");
+        }
+    }
+
+    @Test
+    void testTrace_countsConnectionsAndStatementsOnItsThread() throws SQLException {
+        TracingDataSource dataSource = new TracingDataSource(h2, Duration.ofMinutes(1));
+
+        try (QueryTrace trace = QueryTrace.start("search")) {
+            // Tre oppslag på én tilkobling, og ett på en ny, som nøstede readById-kall
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement ps = connection.prepareStatement("SELECT name FROM stops WHERE stopId = ?")) {
+                for (int id = 1; id <= 3; id++) {
+                    ps.setInt(1, id);
+                    ps.executeQuery().close();
+                }
+            }
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                statement.executeQuery("SELECT COUNT(*) FROM stops").close();
+            }
+
+            assertEquals(4, trace.getStatements());
+            assertEquals(2, trace.getConnections());
+            assertThrows(QueryBudgetExceededException.class, () -> trace.assertWithin(3));
+            trace.assertWithin(4);
+        }
+        assertNull(QueryTrace.current());
+    }
+
+    @Test
+    void testSlowQueries_keepSqlAndBindShapeWithoutValues() throws SQLException {
+        TracingDataSource dataSource = new TracingDataSource(h2, Duration.ZERO);
+
+        try (QueryTrace trace = QueryTrace.start("insert");
+             Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement("INSERT INTO stops (stopId, name)\n   VALUES (?, ?)")) {
+            for (int id = 1; id <= 3; id++) {
+                ps.setInt(1, id);
+                ps.setString(2, "Gamlebyen " + id);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+
+            QueryTrace.SlowQuery slow = trace.getSlowQueries().get(0);
+            assertEquals("INSERT INTO stops (stopId, name) VALUES (?, ?)", slow.getSql());
+            assertEquals("(Int, String) x3 rows", slow.getBindShape());
+            assertFalse(slow.toString().contains("Gamlebyen"));
+        }
+    }
+
+    @Test
+    void testNestedTrace_alsoCountsTowardsOuter() throws SQLException {
+        TracingDataSource dataSource = new TracingDataSource(h2, Duration.ofMinutes(1));
+
+        try (QueryTrace request = QueryTrace.start("request")) {
+            try (QueryTrace inner = QueryTrace.start("readById");
+                 Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("SELECT 1");
+                assertEquals(1, inner.getStatements());
+            }
+            assertSame(request, QueryTrace.current());
+            assertEquals(1, request.getStatements());
+        }
+    }
+
+    @Test
+    void testClose_neverLeavesTraceOnThread() {
+        QueryTrace request = QueryTrace.start("request");
+        QueryTrace.start("readById");
+        request.close();
+        assertNull(QueryTrace.current());
+
+        // Lukket i feil rekkefølge
+        QueryTrace outer = QueryTrace.start("outer");
+        QueryTrace inner = QueryTrace.start("inner");
+        outer.close();
+        inner.close();
+        assertNull(QueryTrace.current());
+    }
+
+    @Test
+    void testPoolStats_seeThroughTheWrapper() throws SQLException {
+        assertNull(DataSourceFactory.stats(new TracingDataSource(h2, Duration.ZERO)));
+        assertTrue(new TracingDataSource(new HikariDataSource(), Duration.ZERO)
+                .isWrapperFor(HikariDataSource.class));
+    }
+}